@@ -2,9 +2,12 @@ package PartyContainers;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.SplittableRandom;
 import java.util.TreeMap;
+import java.util.random.RandomGenerator;
 import BattleCommands.AbilityItem;
 import BattleCommands.BattleCommand;
+import BattleCommands.CommandResult;
 import BattleCommands.HealthItem;
 import BattleCommands.Item;
 import BattleCommands.OffensiveAbility;
@@ -12,13 +15,12 @@ import BattleCommands.StatusItem;
 import BattleMVC.BattleController;
 import Heros.Hero;
 import Heros.Monster;
+import Heros.PartyRankings;
 import Heros.SkeletonArcher;
 import Heros.SkeletonBoss;
 import Heros.SkeletonSpearMan;
 import Heros.SkeletonWarrior;
 import RPG_Exceptions.BattleModelException;
-import RPG_Exceptions.MaximumStatException;
-import RPG_Exceptions.NotAfflictedWithStatusException;
 import Statuses.Status;
 
 /**
@@ -31,6 +33,12 @@ public class AI extends Player{
 	// Public constant which defines who to give control to in the battle system
 	public static final String CONTROLLER = "AI";
 	private BattleController controller;
+	// Every random choice of this AI and its monsters is drawn from here so a battle can be replayed from its seed
+	private RandomGenerator random = new SplittableRandom();
+	// Live rankings of the opposing party, the monsters choose their targets from them instead of scanning the party
+	private PartyRankings targetRankings;
+	// The party by slot, getParty is its map of the same heroes under their keys
+	private Party partySlots = new Party();
 	
 	/**
 	 * Constructor which creates the default party.
@@ -41,6 +49,19 @@ public class AI extends Player{
 		makeDefaultParty();
 	}
 	
+	/**
+	 * Constructor which creates a party of the given heroes, any number of which may be of the same class.
+	 * @param party: heroes of the party in slot order
+	 */
+	public AI(Collection<? extends Hero> party)
+	{
+		super();
+		for(Hero hero : party)
+		{
+			addHero(hero);
+		}
+	}
+	
 	/**
 	 * Creates the default AI party uses Heros specific to the AI.
 	 */
@@ -53,10 +74,60 @@ public class AI extends Player{
 		partyArray.add(new SkeletonWarrior(AI.CONTROLLER));
 		for(Hero hero : partyArray)
 		{
-			super.getParty().put(hero.getClass().getName(), hero);
+			addHero(hero);
 		}
 	}
 	
+	/**
+	 * Add a hero to the AI party in the next slot under its own key, see Party.addHero.
+	 * @param hero: hero to add
+	 * @return the hero's slot
+	 */
+	public int addHero(Hero hero)
+	{
+		return partySlots.addHero(hero);
+	}
+	
+	/**
+	 * Get the AI party by key. The map is the party's own, so a hero put in it or removed from it is added to or
+	 * removed from the party's slots and alive mask as well.
+	 * @return the party's heroes under their keys
+	 */
+	@Override
+	public TreeMap<String, Hero> getParty()
+	{
+		return this.partySlots.asMap();
+	}
+	
+	/**
+	 * Get a hero of the AI party by key.
+	 * @param name: the hero's key
+	 * @return the hero, null if no hero has the key
+	 */
+	@Override
+	public Hero getCharacter(String name)
+	{
+		return this.partySlots.get(name);
+	}
+	
+	/**
+	 * Get the AI party by slot, with its living heroes kept as a mask.
+	 * @return the party's slots
+	 */
+	public Party getPartySlots()
+	{
+		return this.partySlots;
+	}
+	
+	/**
+	 * Replace the AI party, getParty is the new party's map from then on.
+	 * @param partySlots: the new party
+	 */
+	public void setPartySlots(Party partySlots)
+	{
+		this.partySlots = partySlots;
+	}
+	
 	/**
 	 * This method is used to determine a Monster's actions in battle.
 	 * The method uses various values from the Monster to when and how often it will use certain items.
@@ -73,20 +144,32 @@ public class AI extends Player{
 	{
 		
 		AiBattleReturnType result;
-		TreeMap<String, Hero> party = player.getParty();
-		Collection<Hero> playerParty = party.values();
+		// The rankings of the battle, else the party by slot if the player keeps one, else the player's map
+		Collection<Hero> playerParty;
+		if(targetRankings != null && targetRankings.ranks(player))
+		{
+			playerParty = targetRankings;
+		}
+		else if(player instanceof AI)
+		{
+			playerParty = ((AI) player).getPartySlots();
+		}
+		else
+		{
+			playerParty = player.getParty().values();
+		}
 		
 		// Checks to see if Monster will use a Health item
 		double currentHealth = (double) monster.getHealth();
 		double maxHealth = (double) monster.getMaxHealth();
 		if ((currentHealth / maxHealth) <= monster.getHealRange()) {
-			double random = Math.random();
-			if (random < monster.getHealChance()) {
+			if (random.nextDouble() < monster.getHealChance()) {
 				Item item = pickHealingItem();
 				if(item != null)		//If a healing item exists, use it
 				{
-					useItem(item, monster);
-					result = new AiBattleReturnType(null,item);
+					// An item that could not be used costs the monster its turn
+					BattleCommand used = useItem(item, monster).isSuccess() ? item : null;
+					result = new AiBattleReturnType(null,used);
 					return result;		
 				}
 			}
@@ -96,13 +179,12 @@ public class AI extends Player{
 		Collection<Status> status = monster.getStatuses().values();
 
 		if (status.size() != 0) {
-			double random = Math.random();
-			if (random < monster.getCureChance()) {
+			if (random.nextDouble() < monster.getCureChance()) {
 				Item item = setStatusCure(status);
 				if(item != null)	//If a curing item exists, use it
 				{
-					useItem(item, monster);
-					result = new AiBattleReturnType(null,item);
+					BattleCommand used = useItem(item, monster).isSuccess() ? item : null;
+					result = new AiBattleReturnType(null,used);
 					return result;
 				}
 			}
@@ -112,13 +194,12 @@ public class AI extends Player{
 		double currentAbilityPoints = (double) monster.getAbilityPoints();
 		double maxAbilityPoints = (double) monster.getMaxAP();
 		if ((currentAbilityPoints / maxAbilityPoints) <= monster.getRecoverPointsRange()) {
-			double random = Math.random();
-			if (random < monster.getHealChance()) {
+			if (random.nextDouble() < monster.getHealChance()) {
 				Item item = pickAbilityPointItem();
 				if(item != null)	//If an ability point item exists, use it
 				{
-					useItem(item, monster);
-					result = new AiBattleReturnType(null,item);
+					BattleCommand used = useItem(item, monster).isSuccess() ? item : null;
+					result = new AiBattleReturnType(null,used);
 					return result;
 				}
 			}
@@ -126,10 +207,8 @@ public class AI extends Player{
 		
 
 		// Attack if Monster did not heal/recover
-		//selectCommand will select ability and target based on the Monster's sub-type
-		result = monster.selectCommand(playerParty);
-		
-		System.out.println("AI using ability: " + result.getCmd().toString());
+		//selectCommand will select ability and target based on the Monster's sub-type, unless the Monster searches for its command
+		result = monster.chooseCommand(playerParty, random);
 		
 		BattleCommand ability = result.getCmd();
 		Hero target = result.getTarget();
@@ -142,13 +221,10 @@ public class AI extends Player{
 				ability.useBattleCommand(monster, controller);
 			}
 		}
-		else
+		else if(!ability.tryUse(monster, target).isSuccess())
 		{
-			try {
-				ability.useBattleCommand(monster, target);
-			} catch (NotAfflictedWithStatusException e) {
-				e.printStackTrace();
-			}
+			// Headless battles and searches check the result rather than catch an exception, the monster loses its turn
+			return new AiBattleReturnType(null,null);
 		}
 		
 		return result;
@@ -157,22 +233,20 @@ public class AI extends Player{
 	
 	/**
 	 * A simple method which calls useBattleCommand on the specified Item instance.
-	 * If controller present animates.
+	 * If controller present animates, otherwise the item is tried without throwing.
 	 * @param Item item to use
 	 * @param Monster acting monster to use it on
-	 * @throws BattleModelException if item won't change hero's stats.
+	 * @return SUCCESS if the item was used
+	 * @throws BattleModelException if item won't change hero's stats and there is a controller to signal.
 	 */
-	private void useItem(Item item, Monster monster) throws BattleModelException {
-		System.out.println("AI using item: " + item.toString());
+	private CommandResult useItem(Item item, Monster monster) throws BattleModelException {
 		Hero target = null;
 		if(controller != null)
 		{
 			item.useBattleCommand(monster, controller);
+			return CommandResult.SUCCESS;
 		}
-		else
-		{
-			item.useBattleCommand(monster, target);
-		}
+		return item.tryUse(monster, target);
 	}
 	
 
@@ -183,13 +257,11 @@ public class AI extends Player{
 	 * @param human: enemy party to scan
 	 * AiBattleReturnType: What is this? A class specifically made so that we can return two types of values by setting them as fields in this class.
 	 * This class stores the target and AI ability used to be published to the view.
-	 * @throws BattleModelException 
-	 * @throws NotAfflictedWithStatusException 
+	 * @throws BattleModelException if a command used with a controller can't be used, so the controller can signal it.
 	 */
 	public AiBattleReturnType aiTurn(Hero monster, Player human) throws BattleModelException {
 		
 		AiBattleReturnType target = new AiBattleReturnType(null,null);
-		System.out.println("Enemy Turn!");
 		boolean AIControlled;
 		if(controller != null)
         {
@@ -201,8 +273,8 @@ public class AI extends Player{
         }
 		
 		if(!AIControlled && monster.getHealth() > 0) {		//If Monster is under a crowd control effect, or it's health is 0, do not act.
-			try	{ target = this.scan((Monster)monster, human); }
-    		catch(MaximumStatException e) { e.printStackTrace(); }
+			// Without a controller scan reports a command that can't be used as a lost turn rather than throwing
+			target = this.scan((Monster)monster, human);
 		}
 		
 		return target;
@@ -279,7 +351,7 @@ public class AI extends Player{
 			}
 		}
 		if (matches.size() == 0) { return null; }
-		return Monster.pickRandom(matches);		// Picks a random match
+		return Monster.pickRandom(matches, random);		// Picks a random match
 	}
 	
 	/**
@@ -290,4 +362,36 @@ public class AI extends Player{
 	{
 		this.controller = controller;
 	}
+	
+	/**
+	 * Set the random source the AI draws every decision from, normally the battle's seeded random source.
+	 * @param random
+	 */
+	public void setRandom(RandomGenerator random)
+	{
+		this.random = random;
+	}
+	
+	/**
+	 * Get the random source the AI draws every decision from.
+	 * @return the AI's random source
+	 */
+	public RandomGenerator getRandom()
+	{
+		return this.random;
+	}
+	
+	/**
+	 * Set the rankings of the opposing party the monsters choose their targets from, only used while scanning that party.
+	 * @param targetRankings: rankings of the opposing party, null to scan the party
+	 */
+	public void setTargetRankings(PartyRankings targetRankings)
+	{
+		this.targetRankings = targetRankings;
+	}
+	
+	public PartyRankings getTargetRankings()
+	{
+		return this.targetRankings;
+	}
 }
@@ -0,0 +1,75 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Heros.Monster;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+import PartyContainers.HumanPlayer;
+import PartyContainers.Player;
+import RPG_Exceptions.BattleModelException;
+
+/**
+ * Benchmarks of a full AI decision: AI.scan and AI.aiTurn for a Defender against a human party.
+ * Both parties are reset before every invocation because the chosen command is applied,
+ * so the reset of partySize heroes is included in the measured time.
+ * @author Kevin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AIBenchmark {
+	@Param({"4", "16", "64"})
+	public int partySize;
+
+	@Param({"0", "4", "16"})
+	public int statusLoad;
+
+	private BenchmarkParties enemies;
+	private BenchmarkParties allies;
+	private Player human;
+	private AI ai;
+	private Monster monster;
+
+	@Setup
+	public void setUp()
+	{
+		enemies = new BenchmarkParties(partySize, HumanPlayer.CONTROLLER, statusLoad);
+		allies = new BenchmarkParties(1, AI.CONTROLLER, statusLoad);
+		human = enemies.toPlayer();
+		ai = new AI();
+		monster = (Monster) allies.get(0);
+	}
+
+	@Benchmark
+	public AiBattleReturnType scan() throws BattleModelException
+	{
+		enemies.reset();
+		allies.reset();
+		return ai.scan(monster, human);
+	}
+
+	@Benchmark
+	public AiBattleReturnType aiTurn() throws BattleModelException
+	{
+		enemies.reset();
+		allies.reset();
+		return ai.aiTurn(monster, human);
+	}
+}
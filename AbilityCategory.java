@@ -0,0 +1,44 @@
+package Heros;
+
+import BattleCommands.Ability;
+import BattleCommands.CrowdControlAbility;
+import BattleCommands.DefensiveAbility;
+import BattleCommands.OffensiveAbility;
+import Statuses.StatusEffectAbility;
+
+/**
+ * The kinds of ability a Monster chooses between, matching the typing checked by Monster.getOffensiveAbility,
+ * getOffensiveStatusAbility, getDefensiveAbility and getCrowdControlAbility. An ability can be in more than one category.
+ * @author Andrew
+ *
+ */
+public enum AbilityCategory {
+	// An OffensiveAbility that isn't a StatusEffectAbility
+	OFFENSIVE,
+	// A StatusEffectAbility that isn't a DefensiveAbility
+	OFFENSIVE_STATUS,
+	DEFENSIVE,
+	CROWD_CONTROL;
+
+	/**
+	 * Is the ability in this category?
+	 * @param ability: ability to check
+	 * @return true if the ability has this category's typing
+	 */
+	public boolean matches(Ability ability)
+	{
+		switch(this)
+		{
+			case OFFENSIVE:
+				return ability instanceof OffensiveAbility && !(ability instanceof StatusEffectAbility);
+			case OFFENSIVE_STATUS:
+				return ability instanceof StatusEffectAbility && !(ability instanceof DefensiveAbility);
+			case DEFENSIVE:
+				return ability instanceof DefensiveAbility;
+			case CROWD_CONTROL:
+				return ability instanceof CrowdControlAbility;
+			default:
+				throw new IllegalArgumentException("Unknown category " + this);
+		}
+	}
+}
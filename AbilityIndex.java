@@ -0,0 +1,255 @@
+package Heros;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+import BattleCommands.Ability;
+
+/**
+ * A hero's abilities by name, also kept in one array per AbilityCategory so the AI can choose an ability with a few
+ * array reads instead of building filtered lists every decision.
+ *
+ * Ability.setAbility registers an ability by putting it in this map, and the buckets are built again there and by
+ * every other method that changes the map, so a read never finds them stale. The key, value and entry views are
+ * read-only: a change has to go through the map's own methods. Each bucket keeps the order the map iterates its
+ * abilities in, so a pick draws the same ability from the random source as filtering the map did. Affordability is
+ * checked against the ability points passed in while scanning a bucket, so no view is allocated. The buckets are
+ * published as one array, so threads sharing copied heroes always read a whole set of them.
+ * @author Andrew
+ *
+ */
+public class AbilityIndex extends HashMap<String, Ability> {
+	private static final long serialVersionUID = 1L;
+	private static final AbilityCategory[] CATEGORIES = AbilityCategory.values();
+	private static final Ability[] NONE = new Ability[0];
+	// One bucket per category in ordinal order followed by every ability, only null after deserialization
+	private transient volatile Ability[][] buckets = build();
+
+	@Override
+	public Ability put(String name, Ability ability)
+	{
+		Ability previous = super.put(name, ability);
+		buckets = build();
+		return previous;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Ability> abilities)
+	{
+		super.putAll(abilities);
+		buckets = build();
+	}
+
+	@Override
+	public Ability putIfAbsent(String name, Ability ability)
+	{
+		Ability previous = super.putIfAbsent(name, ability);
+		buckets = build();
+		return previous;
+	}
+
+	@Override
+	public Ability remove(Object name)
+	{
+		Ability removed = super.remove(name);
+		buckets = build();
+		return removed;
+	}
+
+	@Override
+	public boolean remove(Object name, Object ability)
+	{
+		boolean removed = super.remove(name, ability);
+		buckets = build();
+		return removed;
+	}
+
+	@Override
+	public Ability replace(String name, Ability ability)
+	{
+		Ability previous = super.replace(name, ability);
+		buckets = build();
+		return previous;
+	}
+
+	@Override
+	public boolean replace(String name, Ability oldAbility, Ability newAbility)
+	{
+		boolean replaced = super.replace(name, oldAbility, newAbility);
+		buckets = build();
+		return replaced;
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Ability, ? extends Ability> function)
+	{
+		super.replaceAll(function);
+		buckets = build();
+	}
+
+	@Override
+	public Ability compute(String name, BiFunction<? super String, ? super Ability, ? extends Ability> function)
+	{
+		Ability ability = super.compute(name, function);
+		buckets = build();
+		return ability;
+	}
+
+	@Override
+	public Ability computeIfAbsent(String name, Function<? super String, ? extends Ability> function)
+	{
+		Ability ability = super.computeIfAbsent(name, function);
+		buckets = build();
+		return ability;
+	}
+
+	@Override
+	public Ability computeIfPresent(String name, BiFunction<? super String, ? super Ability, ? extends Ability> function)
+	{
+		Ability ability = super.computeIfPresent(name, function);
+		buckets = build();
+		return ability;
+	}
+
+	@Override
+	public Ability merge(String name, Ability ability, BiFunction<? super Ability, ? super Ability, ? extends Ability> function)
+	{
+		Ability merged = super.merge(name, ability, function);
+		buckets = build();
+		return merged;
+	}
+
+	@Override
+	public void clear()
+	{
+		super.clear();
+		buckets = build();
+	}
+
+	@Override
+	public Set<String> keySet()
+	{
+		return Collections.unmodifiableSet(super.keySet());
+	}
+
+	@Override
+	public Collection<Ability> values()
+	{
+		return Collections.unmodifiableCollection(super.values());
+	}
+
+	@Override
+	public Set<Map.Entry<String, Ability>> entrySet()
+	{
+		// Wrapped as a map so the entries can't be set either
+		return Collections.unmodifiableMap(new AbstractMap<String, Ability>() {
+			@Override
+			public Set<Map.Entry<String, Ability>> entrySet()
+			{
+				return AbilityIndex.super.entrySet();
+			}
+		}).entrySet();
+	}
+
+	/**
+	 * Count the abilities the hero can pay for.
+	 * @param abilityPoints: the hero's ability points
+	 * @return number of abilities costing no more than abilityPoints
+	 */
+	public int countAffordable(int abilityPoints)
+	{
+		return countAffordable(buckets()[CATEGORIES.length], abilityPoints);
+	}
+
+	/**
+	 * Count the abilities of a category the hero can pay for.
+	 * @param category: category to count
+	 * @param abilityPoints: the hero's ability points
+	 * @return number of abilities of the category costing no more than abilityPoints
+	 */
+	public int countAffordable(AbilityCategory category, int abilityPoints)
+	{
+		return countAffordable(buckets()[category.ordinal()], abilityPoints);
+	}
+
+	/**
+	 * Pick a random ability of a category the hero can pay for, drawing once from the random source if there is one.
+	 * @param category: category to pick from
+	 * @param abilityPoints: the hero's ability points
+	 * @param random: the battle's random source
+	 * @return an affordable ability of the category, null if there is none
+	 */
+	public Ability pickAffordable(AbilityCategory category, int abilityPoints, RandomGenerator random)
+	{
+		Ability[] bucket = buckets()[category.ordinal()];
+		int count = countAffordable(bucket, abilityPoints);
+		if(count == 0)
+		{
+			return null;
+		}
+		int pick = random.nextInt(count);
+		for(Ability ability : bucket)
+		{
+			if(ability.getPointCost() <= abilityPoints && pick-- == 0)
+			{
+				return ability;
+			}
+		}
+		throw new IllegalStateException("Ability bucket changed while picking");
+	}
+
+	private static int countAffordable(Ability[] bucket, int abilityPoints)
+	{
+		int count = 0;
+		for(Ability ability : bucket)
+		{
+			if(ability.getPointCost() <= abilityPoints)
+			{
+				count ++;
+			}
+		}
+		return count;
+	}
+
+	private Ability[][] buckets()
+	{
+		Ability[][] current = buckets;
+		if(current == null)
+		{
+			current = build();
+			buckets = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Sort the abilities into their buckets, in the order the map iterates them.
+	 */
+	private Ability[][] build()
+	{
+		Ability[][] built = new Ability[CATEGORIES.length + 1][];
+		Ability[] all = super.values().toArray(NONE);
+		for(AbilityCategory category : CATEGORIES)
+		{
+			ArrayList<Ability> bucket = new ArrayList<Ability>();
+			for(Ability ability : all)
+			{
+				if(category.matches(ability))
+				{
+					bucket.add(ability);
+				}
+			}
+			built[category.ordinal()] = bucket.toArray(NONE);
+		}
+		built[CATEGORIES.length] = all;
+		return built;
+	}
+}
@@ -0,0 +1,80 @@
+package BattleSimulation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recycles the BattleArenas of battles of the same parties. An arena is handed back whole once every battle in it is
+ * over and handed out again as is, so off-heap memory is only allocated while more arenas are in use than ever before,
+ * and is never freed battle by battle. Safe to share between threads.
+ * @author Kevin
+ *
+ */
+public class ArenaPool {
+	private final int units;
+	private final int battlesPerArena;
+	private final ConcurrentLinkedQueue<BattleArena> free = new ConcurrentLinkedQueue<BattleArena>();
+	private final AtomicInteger allocated = new AtomicInteger();
+
+	/**
+	 * Create an empty pool of arenas for battles on a set of columns.
+	 * @param prototype: columns the battles start from
+	 * @param battlesPerArena: battle slots in each arena
+	 */
+	public ArenaPool(HeroColumns prototype, int battlesPerArena)
+	{
+		this.units = prototype.size();
+		this.battlesPerArena = battlesPerArena;
+	}
+
+	/**
+	 * Take a free arena, allocating one if none is free. Its slots hold whatever the last battles left in them.
+	 * @return the arena
+	 */
+	public BattleArena acquire()
+	{
+		BattleArena arena = free.poll();
+		if(arena == null)
+		{
+			arena = new BattleArena(units, battlesPerArena);
+			allocated.incrementAndGet();
+		}
+		return arena;
+	}
+
+	/**
+	 * Hand back an arena whose battles are all over.
+	 * @param arena: arena taken from this pool
+	 */
+	public void release(BattleArena arena)
+	{
+		if(arena.size() != units || arena.getCapacity() != battlesPerArena)
+		{
+			throw new IllegalArgumentException("Arena wasn't made by this pool");
+		}
+		free.add(arena);
+	}
+
+	public int getBattlesPerArena()
+	{
+		return battlesPerArena;
+	}
+
+	/**
+	 * Get the number of arenas the pool has allocated, in use or free.
+	 * @return arenas allocated
+	 */
+	public int getAllocated()
+	{
+		return allocated.get();
+	}
+
+	/**
+	 * Get the off-heap memory held by every arena the pool has allocated.
+	 * @return bytes allocated
+	 */
+	public long footprintBytes()
+	{
+		return (long) allocated.get() * battlesPerArena * BattleArena.battleBytes(units);
+	}
+}
@@ -0,0 +1,149 @@
+package BattleSimulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import PartyContainers.AI;
+import PartyContainers.HumanPlayer;
+
+/**
+ * Runs batches of ColumnarBattles kept off the heap. Each fork join task fills an arena from the pool with battles and
+ * steps all of them a turn at a time until every one is over, then records them and hands the arena back, so every
+ * battle in an arena is in flight at once and the heap holds nothing per battle: the battles in flight are bounded by
+ * the arena size times the pool's parallelism, and the heap used is the same whatever that comes to. Each sweep of
+ * turns leaves the battles' attacks in a ColumnarBattle.DamageLane and resolves their damage in one pass over it.
+ *
+ * Battles are seeded like BattleSimulator seeds them and play exactly as ColumnarBattle.play plays them, so a batch
+ * gives the same report as ColumnarBattle.simulate.
+ * @author Kevin
+ *
+ */
+public class ArenaSimulator {
+	private final HeroColumns prototype;
+	private final ArenaPool arenas;
+	private final ForkJoinPool pool;
+	private final int turnLimit;
+
+	/**
+	 * Create a simulator.
+	 * @param prototype: columns every battle starts from
+	 * @param arenas: pool of arenas made for the prototype, its arena size is the number of battles a task plays at once
+	 * @param pool: pool the battles are run on
+	 * @param turnLimit: turns after which a battle is called a draw
+	 */
+	public ArenaSimulator(HeroColumns prototype, ArenaPool arenas, ForkJoinPool pool, int turnLimit)
+	{
+		this.prototype = prototype;
+		this.arenas = arenas;
+		this.pool = pool;
+		this.turnLimit = turnLimit;
+	}
+
+	/**
+	 * Run a batch of battles across the pool.
+	 * @param battles: number of battles to run
+	 * @param seed: batch seed, the same seed and battle count always give the same report
+	 * @return the merged results of every battle
+	 */
+	public SimulationReport simulate(int battles, long seed)
+	{
+		return pool.invoke(new ArenaTask(seed, 0, battles));
+	}
+
+	/**
+	 * Play a range of battles, at most an arena's worth, all at once in one arena.
+	 */
+	private SimulationReport runArena(long seed, int from, int to)
+	{
+		SimulationReport report = new SimulationReport(turnLimit);
+		ColumnarBattle battle = new ColumnarBattle(prototype);
+		BattleArena arena = arenas.acquire();
+		try
+		{
+			int count = to - from;
+			for(int i = 0; i < count; i++)
+			{
+				battle.start(arena.select(i), BattleSimulator.battleSeed(seed, from + i));
+			}
+			// Each sweep steps every battle a turn, leaving the offensive commands in the lane, then resolves their damage
+			// in one pass over the lane
+			ColumnarBattle.DamageLane lane = new ColumnarBattle.DamageLane(count);
+			boolean playing = true;
+			while(playing)
+			{
+				playing = false;
+				for(int i = 0; i < count; i++)
+				{
+					playing |= battle.step(arena.select(i), turnLimit, report, lane, i);
+				}
+				battle.resolveLane(lane, arena::select, report);
+			}
+			for(int i = 0; i < count; i++)
+			{
+				arena.select(i);
+				report.recordBattle(arena.getOutcome(), arena.getTurnCount());
+			}
+		}
+		finally
+		{
+			arenas.release(arena);
+		}
+		return report;
+	}
+
+	public int getTurnLimit() {
+		return turnLimit;
+	}
+
+	/**
+	 * Simulate the default parties in arenas from the command line: battles, seed and battles per arena, defaulting to
+	 * 20000 battles in arenas of 1024.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		int battles = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+		int battlesPerArena = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+		HeroColumns prototype = HeroColumns.of(new HumanPlayer(), new AI());
+		ArenaPool arenas = new ArenaPool(prototype, battlesPerArena);
+		ArenaSimulator simulator = new ArenaSimulator(prototype, arenas, ForkJoinPool.commonPool(), BattleEngine.DEFAULT_TURN_LIMIT);
+		long start = System.nanoTime();
+		SimulationReport report = simulator.simulate(battles, seed);
+		double ms = (System.nanoTime() - start) / 1e6;
+		System.out.println(report);
+		System.out.println(String.format("%.1f ms, %d arenas, %d bytes off the heap", ms, arenas.getAllocated(),
+				arenas.footprintBytes()));
+	}
+
+	/**
+	 * Splits a range of battle indices in half until it fits in one arena.
+	 */
+	private class ArenaTask extends RecursiveTask<SimulationReport> {
+		private static final long serialVersionUID = 1L;
+		private final long seed;
+		private final int from;
+		private final int to;
+
+		ArenaTask(long seed, int from, int to)
+		{
+			this.seed = seed;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SimulationReport compute()
+		{
+			if(to - from <= arenas.getBattlesPerArena())
+			{
+				return runArena(seed, from, to);
+			}
+			int middle = (from + to) >>> 1;
+			ArenaTask left = new ArenaTask(seed, from, middle);
+			left.fork();
+			SimulationReport right = new ArenaTask(seed, middle, to).compute();
+			return right.merge(left.join());
+		}
+	}
+}
@@ -0,0 +1,356 @@
+package BattleSimulation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Off-heap storage for a fixed number of battles of the same parties, each in a slot of one direct buffer with a fixed
+ * layout, so battles in flight cost the heap nothing however many there are. The arena is a cursor: select a slot, then
+ * pass the arena to ColumnarBattle as the BattleUnits of the battle in that slot.
+ *
+ * A slot is a battle header followed by a record per unit:
+ * header: random state (long), turn count, human alive count, AI alive count (ints), outcome (byte), padded to 24 bytes
+ * unit: health, max health, ability points, max ability points, defense, speed, seat, command start, command count,
+ * round, next expiry, per turn until and crowd control until (ints), side and status count (bytes), padded to 56 bytes,
+ * then HeroColumns.STATUS_SLOTS packed statuses (longs)
+ *
+ * Arenas are made and recycled by an ArenaPool, a whole arena at a time once every battle in it is over.
+ * @author Kevin
+ *
+ */
+public final class BattleArena implements BattleUnits {
+	private static final BattleOutcome[] OUTCOMES = BattleOutcome.values();
+	// Battle header offsets
+	private static final int RANDOM_STATE = 0;
+	private static final int TURN_COUNT = 8;
+	private static final int ALIVE_COUNTS = 12;
+	private static final int OUTCOME = 20;
+	private static final int HEADER_BYTES = 24;
+	// Unit record offsets
+	private static final int HEALTH = 0;
+	private static final int MAX_HEALTH = 4;
+	private static final int ABILITY_POINTS = 8;
+	private static final int MAX_ABILITY_POINTS = 12;
+	private static final int DEFENSE = 16;
+	private static final int SPEED = 20;
+	private static final int SEAT = 24;
+	private static final int COMMAND_START = 28;
+	private static final int COMMAND_COUNT = 32;
+	private static final int ROUND = 36;
+	private static final int NEXT_EXPIRY = 40;
+	private static final int PER_TURN_UNTIL = 44;
+	private static final int CROWD_CONTROL_UNTIL = 48;
+	private static final int SIDE = 52;
+	private static final int STATUS_COUNT = 53;
+	private static final int STATUSES = 56;
+	private static final int UNIT_BYTES = STATUSES + HeroColumns.STATUS_SLOTS * Long.BYTES;
+
+	private final ByteBuffer memory;
+	private final int units;
+	private final int capacity;
+	private final int battleBytes;
+	// Offset of the selected slot
+	private int base = 0;
+
+	/**
+	 * Allocate an arena.
+	 * @param units: units in each battle
+	 * @param capacity: number of battle slots
+	 * @throws IllegalArgumentException if the arena wouldn't fit in one buffer
+	 */
+	BattleArena(int units, int capacity)
+	{
+		this.units = units;
+		this.capacity = capacity;
+		this.battleBytes = battleBytes(units);
+		if((long) battleBytes * capacity > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException(capacity + " battles of " + battleBytes + " bytes don't fit in one arena");
+		}
+		this.memory = ByteBuffer.allocateDirect(battleBytes * capacity).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Get the bytes of a battle slot.
+	 * @param units: units in the battle
+	 * @return size of the slot
+	 */
+	static int battleBytes(int units)
+	{
+		return HEADER_BYTES + units * UNIT_BYTES;
+	}
+
+	/**
+	 * Point the arena at a battle slot, every BattleUnits method reads and writes that battle until the next select.
+	 * @param battle: slot below getCapacity()
+	 * @return this arena
+	 */
+	public BattleArena select(int battle)
+	{
+		if(battle < 0 || battle >= capacity)
+		{
+			throw new IndexOutOfBoundsException("Battle " + battle + " of an arena of " + capacity);
+		}
+		base = battle * battleBytes;
+		return this;
+	}
+
+	/**
+	 * Get the number of battle slots.
+	 * @return slots in the arena
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Get the bytes of off-heap memory the arena holds.
+	 * @return size of the buffer
+	 */
+	public long footprintBytes()
+	{
+		return memory.capacity();
+	}
+
+	private int unit(int unit)
+	{
+		return base + HEADER_BYTES + unit * UNIT_BYTES;
+	}
+
+	@Override
+	public void load(HeroColumns prototype)
+	{
+		if(prototype.size() != units)
+		{
+			throw new IllegalArgumentException("Columns of " + prototype.size() + " units can't be loaded into battles of " + units);
+		}
+		memory.putLong(base + RANDOM_STATE, 0);
+		memory.putInt(base + TURN_COUNT, 0);
+		memory.putInt(base + ALIVE_COUNTS, 0);
+		memory.putInt(base + ALIVE_COUNTS + Integer.BYTES, 0);
+		memory.put(base + OUTCOME, (byte) BattleOutcome.IN_PROGRESS.ordinal());
+		for(int unit = 0; unit < units; unit++)
+		{
+			int offset = unit(unit);
+			memory.putInt(offset + HEALTH, prototype.getHealth(unit));
+			memory.putInt(offset + MAX_HEALTH, prototype.getMaxHealth(unit));
+			memory.putInt(offset + ABILITY_POINTS, prototype.getAbilityPoints(unit));
+			memory.putInt(offset + MAX_ABILITY_POINTS, prototype.getMaxAbilityPoints(unit));
+			memory.putInt(offset + DEFENSE, prototype.getDefense(unit));
+			memory.putInt(offset + SPEED, prototype.getSpeed(unit));
+			memory.putInt(offset + SEAT, prototype.getSeat(unit));
+			memory.putInt(offset + COMMAND_START, prototype.getCommandStart(unit));
+			memory.putInt(offset + COMMAND_COUNT, prototype.getCommandCount(unit));
+			memory.putInt(offset + ROUND, 0);
+			memory.putInt(offset + NEXT_EXPIRY, prototype.getNextExpiry(unit));
+			memory.putInt(offset + PER_TURN_UNTIL, prototype.getPerTurnUntil(unit));
+			memory.putInt(offset + CROWD_CONTROL_UNTIL, prototype.getCrowdControlUntil(unit));
+			memory.put(offset + SIDE, prototype.getSide(unit));
+			int count = prototype.getStatusCount(unit);
+			memory.put(offset + STATUS_COUNT, (byte) count);
+			for(int slot = 0; slot < count; slot++)
+			{
+				memory.putLong(offset + STATUSES + slot * Long.BYTES, prototype.getStatus(unit, slot));
+			}
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		return units;
+	}
+
+	@Override
+	public int getHealth(int unit)
+	{
+		return memory.getInt(unit(unit) + HEALTH);
+	}
+
+	@Override
+	public void setHealth(int unit, int health)
+	{
+		memory.putInt(unit(unit) + HEALTH, health);
+	}
+
+	@Override
+	public int getAbilityPoints(int unit)
+	{
+		return memory.getInt(unit(unit) + ABILITY_POINTS);
+	}
+
+	@Override
+	public void setAbilityPoints(int unit, int abilityPoints)
+	{
+		memory.putInt(unit(unit) + ABILITY_POINTS, abilityPoints);
+	}
+
+	@Override
+	public int getDefense(int unit)
+	{
+		return memory.getInt(unit(unit) + DEFENSE);
+	}
+
+	@Override
+	public void setDefense(int unit, int defense)
+	{
+		memory.putInt(unit(unit) + DEFENSE, defense);
+	}
+
+	@Override
+	public int getSpeed(int unit)
+	{
+		return memory.getInt(unit(unit) + SPEED);
+	}
+
+	@Override
+	public void setSpeed(int unit, int speed)
+	{
+		memory.putInt(unit(unit) + SPEED, speed);
+	}
+
+	@Override
+	public byte getSide(int unit)
+	{
+		return memory.get(unit(unit) + SIDE);
+	}
+
+	@Override
+	public int getSeat(int unit)
+	{
+		return memory.getInt(unit(unit) + SEAT);
+	}
+
+	@Override
+	public int getCommandStart(int unit)
+	{
+		return memory.getInt(unit(unit) + COMMAND_START);
+	}
+
+	@Override
+	public int getCommandCount(int unit)
+	{
+		return memory.getInt(unit(unit) + COMMAND_COUNT);
+	}
+
+	@Override
+	public int getStatusCount(int unit)
+	{
+		return memory.get(unit(unit) + STATUS_COUNT);
+	}
+
+	@Override
+	public void setStatusCount(int unit, int count)
+	{
+		memory.put(unit(unit) + STATUS_COUNT, (byte) count);
+	}
+
+	@Override
+	public long getStatus(int unit, int slot)
+	{
+		return memory.getLong(unit(unit) + STATUSES + slot * Long.BYTES);
+	}
+
+	@Override
+	public void setStatus(int unit, int slot, long status)
+	{
+		memory.putLong(unit(unit) + STATUSES + slot * Long.BYTES, status);
+	}
+
+	@Override
+	public int getRound(int unit)
+	{
+		return memory.getInt(unit(unit) + ROUND);
+	}
+
+	@Override
+	public void setRound(int unit, int round)
+	{
+		memory.putInt(unit(unit) + ROUND, round);
+	}
+
+	@Override
+	public int getNextExpiry(int unit)
+	{
+		return memory.getInt(unit(unit) + NEXT_EXPIRY);
+	}
+
+	@Override
+	public void setNextExpiry(int unit, int round)
+	{
+		memory.putInt(unit(unit) + NEXT_EXPIRY, round);
+	}
+
+	@Override
+	public int getPerTurnUntil(int unit)
+	{
+		return memory.getInt(unit(unit) + PER_TURN_UNTIL);
+	}
+
+	@Override
+	public void setPerTurnUntil(int unit, int round)
+	{
+		memory.putInt(unit(unit) + PER_TURN_UNTIL, round);
+	}
+
+	@Override
+	public int getCrowdControlUntil(int unit)
+	{
+		return memory.getInt(unit(unit) + CROWD_CONTROL_UNTIL);
+	}
+
+	@Override
+	public void setCrowdControlUntil(int unit, int round)
+	{
+		memory.putInt(unit(unit) + CROWD_CONTROL_UNTIL, round);
+	}
+
+	@Override
+	public int getTurnCount()
+	{
+		return memory.getInt(base + TURN_COUNT);
+	}
+
+	@Override
+	public void setTurnCount(int turnCount)
+	{
+		memory.putInt(base + TURN_COUNT, turnCount);
+	}
+
+	@Override
+	public int getAliveCount(int side)
+	{
+		return memory.getInt(base + ALIVE_COUNTS + side * Integer.BYTES);
+	}
+
+	@Override
+	public void setAliveCount(int side, int count)
+	{
+		memory.putInt(base + ALIVE_COUNTS + side * Integer.BYTES, count);
+	}
+
+	@Override
+	public BattleOutcome getOutcome()
+	{
+		return OUTCOMES[memory.get(base + OUTCOME)];
+	}
+
+	@Override
+	public void setOutcome(BattleOutcome outcome)
+	{
+		memory.put(base + OUTCOME, (byte) outcome.ordinal());
+	}
+
+	@Override
+	public long getRandomState()
+	{
+		return memory.getLong(base + RANDOM_STATE);
+	}
+
+	@Override
+	public void setRandomState(long state)
+	{
+		memory.putLong(base + RANDOM_STATE, state);
+	}
+}
@@ -2,6 +2,7 @@ package BattleCommands;
 
 import GridGUI.BattleController;
 import Heros.Hero;
+import RPG_Exceptions.BattleModelException;
 import RPG_Exceptions.MaximumStatException;
 import RPG_Exceptions.NotAfflictedWithStatusException;
 
@@ -20,4 +21,79 @@ public abstract class BattleCommand {
 	
 	public abstract void useBattleCommand(Hero hero, BattleController controller) throws MaximumStatException;
 	
+	/**
+	 * Check if the battle command can be used without using it or throwing. Commands that can fail override this with
+	 * the checks their useBattleCommand makes, the default says the command can always be used.
+	 * @param hero: current acting hero
+	 * @param other: target hero, can be null
+	 * @return SUCCESS if useBattleCommand would go through, otherwise the reason it would throw
+	 */
+	public CommandResult validate(Hero hero, Hero other)
+	{
+		return CommandResult.SUCCESS;
+	}
+	
+	/**
+	 * Use the battle command if it validates, for the AI, simulations and searches that check a result rather than
+	 * catch exceptions. A command whose validate misses a check still fails safely, its exception is turned into a result.
+	 * @param hero: current acting hero
+	 * @param other: target hero, can be null
+	 * @return SUCCESS if the command was used, otherwise why it wasn't and nothing was changed by the checks
+	 */
+	public CommandResult tryUse(Hero hero, Hero other)
+	{
+		CommandResult result = this.validate(hero, other);
+		if(!result.isSuccess())
+		{
+			return result;
+		}
+		try
+		{
+			this.useBattleCommand(hero, other);
+		}
+		catch(BattleModelException e)
+		{
+			return CommandResult.of(e);
+		}
+		return CommandResult.SUCCESS;
+	}
+	
+	/**
+	 * Use the battle command and log what it changed so it can be taken back with UndoRecord.unmake.
+	 * Only changes to the acting hero and the target are logged.
+	 * @param hero: current acting hero
+	 * @param other: target hero, can be null
+	 * @return a new record of the changes
+	 */
+	public UndoRecord make(Hero hero, Hero other) throws MaximumStatException, NotAfflictedWithStatusException
+	{
+		return make(hero, other, new UndoRecord());
+	}
+	
+	/**
+	 * Use the battle command and add what it changed to an existing record, so a search can reuse one record.
+	 * The changes are logged even if the command throws part way through.
+	 * @param hero: current acting hero
+	 * @param other: target hero, can be null
+	 * @param record: record to log the changes to
+	 * @return the record
+	 */
+	public UndoRecord make(Hero hero, Hero other, UndoRecord record) throws MaximumStatException, NotAfflictedWithStatusException
+	{
+		record.watch(hero);
+		if(other != null)
+		{
+			record.watch(other);
+		}
+		try
+		{
+			this.useBattleCommand(hero, other);
+		}
+		finally
+		{
+			record.unwatch();
+		}
+		return record;
+	}
+	
 }
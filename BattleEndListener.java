@@ -0,0 +1,17 @@
+package BattleSimulation;
+
+/**
+ * Listener notified once when a BattleEngine's battle ends, so the display or a simulation can finish the battle
+ * without polling the engine after every turn.
+ * @author Kevin
+ *
+ */
+public interface BattleEndListener {
+
+	/**
+	 * Called once when the battle ends, after the last turn has been journaled.
+	 * @param engine: the battle that ended
+	 * @param outcome: how it ended, never IN_PROGRESS
+	 */
+	public void battleEnded(BattleEngine engine, BattleOutcome outcome);
+}
@@ -0,0 +1,674 @@
+package BattleSimulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import BattleCommands.BattleCommand;
+import BattleCommands.Item;
+import BattleCommands.UndoRecord;
+import Heros.DamageMatrix;
+import Heros.Hero;
+import Heros.PartyRankings;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+import PartyContainers.HumanPlayer;
+import PartyContainers.Party;
+import PartyContainers.Player;
+import RPG_Exceptions.BattleModelException;
+
+/**
+ * Headless battle engine. Holds the turn queue and win condition of a battle between a human party and an AI party
+ * and steps turns synchronously, with no controller, animation pauses or view.
+ * The GUI BattleModel drives the same engine one turn at a time and adds the display on top of it,
+ * while simulations call step or run to play a battle out as fast as possible.
+ * @author Kevin
+ *
+ */
+public class BattleEngine {
+	public static final int DEFAULT_TURN_LIMIT = 1000;
+	private final Player human;
+	private final AI ai;
+	// Each party by slot, the AI's own and one made for this battle from the human player's map
+	private final Party humanParty;
+	private final Party aiParty;
+	private final TurnPolicy humanPolicy;
+	private final BattleRandom random;
+	// Every hero in the battle, the human party followed by the AI party. A hero's index is its slot in a BattleJournal
+	private final ArrayList<Hero> heroes;
+	private final TurnScheduler scheduler;
+	private final ZobristHash zobrist;
+	// Live rankings of each party, the AI chooses its targets from the human party's and the human policy from the AI's
+	private final PartyRankings humanRankings;
+	private final PartyRankings aiRankings;
+	// Made on first use, most battles never ask for it
+	private DamageMatrix damageMatrix;
+	private BattleJournal journal;
+	// Watches every hero once the first turn is marked, only logs while a TurnRecord is open
+	private UndoRecord undoLog;
+	private int openRecords = 0;
+	// Random draws taken before the current turn started
+	private long turnStartDraws = 0;
+	private BattleOutcome outcome = BattleOutcome.IN_PROGRESS;
+	private final ArrayList<BattleEndListener> endListeners = new ArrayList<BattleEndListener>();
+	private int turnCount = 0;
+
+	/**
+	 * Create an engine where the human party is played by the GreedyTurnPolicy when stepped headless.
+	 * @param human: the human player
+	 * @param ai: the AI player
+	 */
+	public BattleEngine(Player human, AI ai)
+	{
+		this(human, ai, new GreedyTurnPolicy());
+	}
+
+	/**
+	 * Create an engine with a randomly chosen seed and fill the initial turn queue.
+	 * @param human: the human player
+	 * @param ai: the AI player
+	 * @param humanPolicy: decides the commands of human controlled heroes when stepped headless
+	 */
+	public BattleEngine(Player human, AI ai, TurnPolicy humanPolicy)
+	{
+		this(human, ai, humanPolicy, new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * Create an engine whose random source is seeded so the battle can be repeated.
+	 * @param human: the human player
+	 * @param ai: the AI player
+	 * @param humanPolicy: decides the commands of human controlled heroes when stepped headless
+	 * @param seed: seed of this battle's random source
+	 */
+	public BattleEngine(Player human, AI ai, TurnPolicy humanPolicy, long seed)
+	{
+		this.human = human;
+		this.ai = ai;
+		this.humanPolicy = humanPolicy;
+		// Owned by this battle only and shared with the AI
+		this.random = new BattleRandom(seed);
+		ai.setRandom(random);
+		this.humanParty = Party.of(human);
+		this.aiParty = ai.getPartySlots();
+		this.heroes = new ArrayList<Hero>(humanParty);
+		heroes.addAll(aiParty);
+		this.scheduler = new TurnScheduler(heroes);
+		this.zobrist = new ZobristHash(heroes, scheduler, human, ai);
+		this.humanRankings = new PartyRankings(human, humanParty);
+		this.aiRankings = new PartyRankings(ai, aiParty);
+		ai.setTargetRankings(humanRankings);
+	}
+
+	/**
+	 * Create a copy of a running battle on copies of both parties, see fork.
+	 * @param other: battle to copy
+	 * @param human: copy of the other battle's human player
+	 * @param humanParty: the copy's human party by slot, the same heroes as its map
+	 * @param ai: copy of the other battle's AI player
+	 */
+	private BattleEngine(BattleEngine other, Player human, Party humanParty, AI ai)
+	{
+		this.human = human;
+		this.ai = ai;
+		this.humanParty = humanParty;
+		this.aiParty = ai.getPartySlots();
+		this.humanPolicy = other.humanPolicy;
+		this.random = new BattleRandom(other.random.getSeed());
+		random.restore(other.random.getState(), other.random.getDraws());
+		ai.setRandom(random);
+		this.heroes = new ArrayList<Hero>(humanParty);
+		heroes.addAll(aiParty);
+		this.scheduler = other.scheduler.copy(other.heroes, heroes);
+		this.zobrist = new ZobristHash(heroes, scheduler, human, ai);
+		this.humanRankings = new PartyRankings(human, humanParty);
+		this.aiRankings = new PartyRankings(ai, aiParty);
+		ai.setTargetRankings(humanRankings);
+		this.turnCount = other.turnCount;
+		this.outcome = other.outcome;
+		this.turnStartDraws = other.turnStartDraws;
+	}
+
+	/**
+	 * Copy this battle for a look-ahead search. Both parties' heroes are copied, inventories hold the same items and
+	 * the turn order, random source and counters carry on from where this battle is. The copy is headless, has no journal
+	 * and its monsters use their selectCommand ladders, so it can be played out and restored without touching this battle.
+	 * @return the copy
+	 */
+	public BattleEngine fork()
+	{
+		// Both parties are copied by slot so the copy's slots and keys match this battle's
+		Party humanCopyParty = humanParty.copy();
+		HumanPlayer humanCopy = new HumanPlayer();
+		humanCopy.getParty().clear();
+		for(int slot = 0; slot < humanCopyParty.getSlotCount(); slot++)
+		{
+			if(humanCopyParty.get(slot) != null)
+			{
+				humanCopy.getParty().put(humanCopyParty.getKey(slot), humanCopyParty.get(slot));
+			}
+		}
+		copyInventory(human, humanCopy);
+		AI aiCopy = new AI(Collections.<Hero>emptyList());
+		aiCopy.setPartySlots(aiParty.copy());
+		copyInventory(ai, aiCopy);
+		return new BattleEngine(this, humanCopy, humanCopyParty, aiCopy);
+	}
+
+	/**
+	 * Replace a player's inventory with the items of another player's.
+	 */
+	private static void copyInventory(Player from, Player to)
+	{
+		to.getInventory().clear();
+		to.getInventory().putAll(from.getInventory());
+	}
+
+	/**
+	 * Record every turn of this battle to a journal, must be called before the first turn.
+	 * @param journal: journal to write, its header is written straight away
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void setJournal(BattleJournal journal) throws IOException
+	{
+		if(turnCount > 0 || this.journal != null)
+		{
+			throw new IllegalStateException("A journal must be set before the first turn");
+		}
+		journal.begin(random.getSeed(), heroes);
+		this.journal = journal;
+	}
+
+	/**
+	 * Get the hero whose turn it is. Dead heroes are never returned, the scheduler drops them when they die.
+	 * The hero stays first in the turn order until endTurn is called for it.
+	 * @return the next hero to act, null if no hero is alive
+	 */
+	public Hero nextActor()
+	{
+		return scheduler.peek();
+	}
+
+	/**
+	 * Finish the acting hero's turn by moving it to the next round and checking if the battle is over.
+	 * @param actingHero: the hero whose turn has just finished
+	 * @return true if the battle is over
+	 */
+	public boolean endTurn(Hero actingHero)
+	{
+		return endTurn(actingHero, null, null);
+	}
+
+	/**
+	 * Finish the acting hero's turn, recording the command it used to the journal if there is one.
+	 * @param actingHero: the hero whose turn has just finished
+	 * @param command: command the hero used, null if it could not act
+	 * @param target: target of the command, null if it had none
+	 * @return true if the battle is over
+	 */
+	public boolean endTurn(Hero actingHero, BattleCommand command, Hero target)
+	{
+		scheduler.advance(actingHero);
+		if(command instanceof Item)
+		{
+			zobrist.refreshInventories();
+		}
+		turnCount ++;
+		if(journal != null)
+		{
+			try
+			{
+				journal.recordTurn(actingHero, command, target, random.getDraws() - turnStartDraws);
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+		turnStartDraws = random.getDraws();
+		return checkBattleStatus();
+	}
+
+	/**
+	 * Checks the battle status to determine if the battle is over or not. If all characters in either party are dead the battle is over.
+	 * Both parties' living heroes are counted as they die and are revived, so this costs the same for any party size.
+	 * Ending the battle happens once however often this is called afterwards.
+	 * @return true if the battle is over
+	 */
+	public boolean checkBattleStatus()
+	{
+		if(!isOver())
+		{
+			if(getHumanAliveCount() == 0)
+			{
+				finish(BattleOutcome.AI_VICTORY);
+			}
+			else if(getAIAliveCount() == 0)
+			{
+				finish(BattleOutcome.HUMAN_VICTORY);
+			}
+		}
+		return isOver();
+	}
+
+	/**
+	 * End the battle, journal the outcome and tell the end listeners. Does nothing if the battle is already over.
+	 */
+	private void finish(BattleOutcome outcome)
+	{
+		if(isOver())
+		{
+			return;
+		}
+		this.outcome = outcome;
+		if(journal != null)
+		{
+			try
+			{
+				journal.recordEnd(outcome, turnCount);
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+		// Copied so a listener can remove itself
+		for(BattleEndListener listener : new ArrayList<BattleEndListener>(endListeners))
+		{
+			listener.battleEnded(this, outcome);
+		}
+	}
+
+	/**
+	 * Tell a listener when the battle ends, it is told once however the battle is checked afterwards.
+	 * @param listener: listener to add
+	 */
+	public void addBattleEndListener(BattleEndListener listener)
+	{
+		endListeners.add(listener);
+	}
+
+	public void removeBattleEndListener(BattleEndListener listener)
+	{
+		endListeners.remove(listener);
+	}
+
+	/**
+	 * Get the number of living heroes in the human party, counted by its rankings from death and revive events.
+	 * @return living human heroes
+	 */
+	public int getHumanAliveCount()
+	{
+		return humanRankings.size();
+	}
+
+	/**
+	 * Get the number of living heroes in the AI party, counted by its rankings from death and revive events the same
+	 * way as the human party's.
+	 * @return living AI heroes
+	 */
+	public int getAIAliveCount()
+	{
+		return aiRankings.size();
+	}
+
+	/**
+	 * Take the AI's turn for the acting monster. Statuses are updated and the chosen command is used by the AI.
+	 * @param actingHero: current acting AI hero
+	 * @return AiBattleReturnType holding the target and command used, a null command if the monster could not act
+	 * @throws BattleModelException if the command chosen by the AI could not be used
+	 */
+	public AiBattleReturnType takeAITurn(Hero actingHero) throws BattleModelException
+	{
+		return ai.aiTurn(actingHero, human);
+	}
+
+	/**
+	 * Take the turn of a human controlled hero using this engine's TurnPolicy.
+	 * Statuses are updated first, a knocked out or crowd controlled hero passes its turn.
+	 * @param actingHero: current acting human hero
+	 * @return AiBattleReturnType holding the target and command used, a null command if the hero could not act
+	 * @throws BattleModelException if the command chosen by the policy could not be used
+	 */
+	public AiBattleReturnType takeHumanTurn(Hero actingHero) throws BattleModelException
+	{
+		boolean crowdControlled = actingHero.updateStatuses();
+		if(crowdControlled || actingHero.getHealth() < 1)
+		{
+			return new AiBattleReturnType(null, null);
+		}
+
+		AiBattleReturnType move = humanPolicy.selectCommand(actingHero, aiRankings, random);
+		BattleCommand command = move.getCmd();
+		if(command != null && !command.tryUse(actingHero, move.getTarget()).isSuccess())
+		{
+			// A command that can't be used costs the hero its turn
+			return new AiBattleReturnType(null, null);
+		}
+		return move;
+	}
+
+	/**
+	 * Play one full turn headless: the next living hero updates its statuses, acts and moves to the next round.
+	 * A command that fails with a BattleModelException costs the hero its turn.
+	 * @return AiBattleReturnType holding the target and command used, null if the battle is already over
+	 */
+	public AiBattleReturnType step()
+	{
+		if(isOver())
+		{
+			return null;
+		}
+		Hero actingHero = nextActor();
+		if(actingHero == null)
+		{
+			return null;
+		}
+
+		AiBattleReturnType move;
+		try
+		{
+			if(isAIControlled(actingHero))
+			{
+				move = takeAITurn(actingHero);
+			}
+			else
+			{
+				move = takeHumanTurn(actingHero);
+			}
+		}
+		catch(BattleModelException e)
+		{
+			move = new AiBattleReturnType(null, null);
+		}
+		endTurn(actingHero, move.getCmd(), move.getTarget());
+		return move;
+	}
+
+	/**
+	 * Play the battle out headless until one party is defeated or the turn limit is reached.
+	 * @param turnLimit: maximum number of turns to play before calling the battle a draw
+	 * @return the outcome of the battle
+	 */
+	public BattleOutcome run(int turnLimit)
+	{
+		while(!isOver() && turnCount < turnLimit)
+		{
+			if(step() == null)
+			{
+				break;
+			}
+		}
+		if(!isOver())
+		{
+			finish(BattleOutcome.DRAW);
+		}
+		return outcome;
+	}
+
+	/**
+	 * Play the battle out headless with the default turn limit.
+	 * @return the outcome of the battle
+	 */
+	public BattleOutcome run()
+	{
+		return run(DEFAULT_TURN_LIMIT);
+	}
+
+	/**
+	 * Save the whole state of the battle: both parties' stats and statuses, the inventories, the turn order and the random source.
+	 * @return a new snapshot
+	 */
+	public BattleSnapshot snapshot()
+	{
+		return snapshot(new BattleSnapshot());
+	}
+
+	/**
+	 * Save the whole state of the battle into an existing snapshot so a search can reuse one snapshot per depth.
+	 * @param snapshot: snapshot to overwrite
+	 * @return the snapshot
+	 */
+	public BattleSnapshot snapshot(BattleSnapshot snapshot)
+	{
+		snapshot.capture(this);
+		return snapshot;
+	}
+
+	/**
+	 * Put the battle back to a snapshot taken from this engine. A journaled battle can't be restored as the journal is append-only.
+	 * @param snapshot: snapshot taken with snapshot()
+	 */
+	public void restore(BattleSnapshot snapshot)
+	{
+		if(journal != null)
+		{
+			throw new IllegalStateException("A journaled battle can't be restored");
+		}
+		if(openRecords > 0)
+		{
+			throw new IllegalStateException("A battle can't be restored while a turn record is open");
+		}
+		snapshot.restore(this);
+	}
+
+	/**
+	 * Mark where the battle is so every change from here can be taken back with unmake, without copying the heroes.
+	 * Records can be nested and must be unmade newest first.
+	 * @param record: record to mark, reused once it has been unmade
+	 * @return the record
+	 */
+	public TurnRecord mark(TurnRecord record)
+	{
+		if(journal != null)
+		{
+			throw new IllegalStateException("A journaled battle can't be unmade");
+		}
+		if(undoLog == null)
+		{
+			undoLog = new UndoRecord();
+			for(Hero hero : heroes)
+			{
+				undoLog.watch(hero);
+			}
+		}
+		undoLog.setRecording(true);
+		record.mark(this, undoLog);
+		openRecords ++;
+		return record;
+	}
+
+	/**
+	 * Use a command for the acting hero and end its turn, marked so unmake takes both back. The hero's statuses should
+	 * already have been updated for the turn. A command that can't be used costs the hero its turn, as in step.
+	 * @param actingHero: the hero whose turn it is
+	 * @param command: command to use
+	 * @param target: target of the command, null if it has none
+	 * @param record: record to mark
+	 * @return the record
+	 */
+	public TurnRecord make(Hero actingHero, BattleCommand command, Hero target, TurnRecord record)
+	{
+		mark(record);
+		// A command that can't be used still ends the turn
+		command.tryUse(actingHero, target);
+		endTurn(actingHero, command, target);
+		return record;
+	}
+
+	/**
+	 * Take the battle back to where a record was marked.
+	 * @param record: the newest open record
+	 */
+	public void unmake(TurnRecord record)
+	{
+		record.unmake(this, undoLog);
+		openRecords --;
+		if(openRecords == 0)
+		{
+			// Nothing is left to take back, stop logging the battle
+			undoLog.clear();
+			undoLog.setRecording(false);
+		}
+	}
+
+	/**
+	 * Set the counters of the battle, used by BattleSnapshot.
+	 */
+	void restoreProgress(int turnCount, BattleOutcome outcome, long turnStartDraws)
+	{
+		this.turnCount = turnCount;
+		this.outcome = outcome;
+		this.turnStartDraws = turnStartDraws;
+	}
+
+	long getTurnStartDraws()
+	{
+		return turnStartDraws;
+	}
+
+	/**
+	 * Stop the engine's bookkeeping from listening to the parties' heroes, called once the battle is over
+	 * if the heroes are used again afterwards.
+	 */
+	public void detach()
+	{
+		scheduler.detach();
+		zobrist.detach();
+		humanRankings.detach();
+		aiRankings.detach();
+		// Made by Party.of for this battle, nothing reads it once the battle is over
+		if(!(human instanceof AI))
+		{
+			humanParty.detach();
+		}
+		if(damageMatrix != null)
+		{
+			damageMatrix.detach();
+		}
+		if(ai.getTargetRankings() == humanRankings)
+		{
+			ai.setTargetRankings(null);
+		}
+		if(undoLog != null)
+		{
+			undoLog.unwatch();
+		}
+		if(journal != null)
+		{
+			journal.detach();
+		}
+	}
+
+	/**
+	 * Is the hero controlled by the AI?
+	 * @param hero: hero to check
+	 * @return true if the AI decides this hero's commands
+	 */
+	public static boolean isAIControlled(Hero hero)
+	{
+		return AI.CONTROLLER.equals(hero.getControlledBy());
+	}
+
+	//=========================================================================================================
+	//=========================================== GETTERS AND SETTERS =========================================
+
+	public boolean isOver() {
+		return outcome != BattleOutcome.IN_PROGRESS;
+	}
+
+	public BattleOutcome getOutcome() {
+		return outcome;
+	}
+
+	public int getTurnCount() {
+		return turnCount;
+	}
+
+	public BattleRandom getRandom() {
+		return random;
+	}
+
+	public long getSeed() {
+		return random.getSeed();
+	}
+
+	public List<Hero> getHeroes() {
+		return Collections.unmodifiableList(heroes);
+	}
+
+	public BattleJournal getJournal() {
+		return journal;
+	}
+
+	public TurnScheduler getScheduler() {
+		return scheduler;
+	}
+
+	public ZobristHash getZobristHash() {
+		return zobrist;
+	}
+
+	/**
+	 * Get the human party by slot, its living heroes kept as a mask.
+	 * @return the human party's slots, in the order of its map's keys
+	 */
+	public Party getHumanParty() {
+		return humanParty;
+	}
+
+	/**
+	 * Get the AI party by slot, the AI's own.
+	 * @return the AI party's slots
+	 */
+	public Party getAIParty() {
+		return aiParty;
+	}
+
+	/**
+	 * Get the live rankings of the human party the AI chooses its targets from.
+	 * @return rankings of the human party's living heroes
+	 */
+	public PartyRankings getHumanRankings() {
+		return humanRankings;
+	}
+
+	/**
+	 * Get the live rankings of the AI party the human policy chooses its targets from.
+	 * @return rankings of the AI party's living heroes
+	 */
+	public PartyRankings getAIRankings() {
+		return aiRankings;
+	}
+
+	/**
+	 * Get the damage every offensive ability in the battle does to every opponent, kept up to date from then on.
+	 * @return the battle's damage matrix, the human party first
+	 */
+	public DamageMatrix getDamageMatrix() {
+		if(damageMatrix == null)
+		{
+			damageMatrix = new DamageMatrix(humanParty, aiParty);
+		}
+		return damageMatrix;
+	}
+
+	/**
+	 * Get the Zobrist hash of the battle as it is now, kept up to date turn by turn.
+	 * @return 64-bit hash of the battle state
+	 */
+	public long getStateHash() {
+		return zobrist.getHash();
+	}
+
+	public Player getHuman() {
+		return human;
+	}
+
+	public AI getAI() {
+		return ai;
+	}
+}
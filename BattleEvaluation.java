@@ -0,0 +1,111 @@
+package BattleSimulation;
+
+import java.util.Collection;
+
+import Heros.DamageMatrix;
+import Heros.Hero;
+
+/**
+ * Tunable score of a battle from the AI's point of view, used at the leaves of ExpectimaxSearch.
+ * Each living hero is worth its weighted health and ability points as fractions of their maximums, its weighted
+ * defense rating and a bonus for being alive, less the weighted share of its health the other side can take with one
+ * ability, looked up in the battle's DamageMatrix. The AI party counts for the AI, the human party against it.
+ * A won battle scores WIN and a lost one -WIN.
+ * @author Andrew
+ *
+ */
+public class BattleEvaluation {
+	public static final double WIN = 1000;
+	private double healthWeight = 10;
+	private double abilityPointsWeight = 2;
+	private double defenseWeight = 0.1;
+	private double aliveWeight = 5;
+	private double threatWeight = 2;
+
+	/**
+	 * Score a battle for the AI.
+	 * @param engine: battle to score
+	 * @return higher is better for the AI
+	 */
+	public double evaluate(BattleEngine engine)
+	{
+		if(engine.getOutcome() == BattleOutcome.AI_VICTORY)
+		{
+			return WIN;
+		}
+		if(engine.getOutcome() == BattleOutcome.HUMAN_VICTORY)
+		{
+			return -WIN;
+		}
+		DamageMatrix matrix = threatWeight == 0 ? null : engine.getDamageMatrix();
+		return partyScore(engine.getAIParty(), matrix)
+				- partyScore(engine.getHumanParty(), matrix);
+	}
+
+	private double partyScore(Collection<Hero> party, DamageMatrix matrix)
+	{
+		double score = 0;
+		for(Hero hero : party)
+		{
+			if(hero.getHealth() <= 0)
+			{
+				continue;
+			}
+			score += aliveWeight;
+			score += healthWeight * hero.getHealth() / hero.getMaxHealth();
+			if(hero.getMaxAP() > 0)
+			{
+				score += abilityPointsWeight * hero.getAbilityPoints() / hero.getMaxAP();
+			}
+			score += defenseWeight * hero.getDefenseRating();
+			if(matrix != null)
+			{
+				score -= threatWeight * Math.min(matrix.getThreat(hero), hero.getHealth()) / hero.getMaxHealth();
+			}
+		}
+		return score;
+	}
+
+	//=========================================================================================================
+	//=========================================== GETTERS AND SETTERS =========================================
+
+	public double getHealthWeight() {
+		return healthWeight;
+	}
+
+	public void setHealthWeight(double healthWeight) {
+		this.healthWeight = healthWeight;
+	}
+
+	public double getAbilityPointsWeight() {
+		return abilityPointsWeight;
+	}
+
+	public void setAbilityPointsWeight(double abilityPointsWeight) {
+		this.abilityPointsWeight = abilityPointsWeight;
+	}
+
+	public double getDefenseWeight() {
+		return defenseWeight;
+	}
+
+	public void setDefenseWeight(double defenseWeight) {
+		this.defenseWeight = defenseWeight;
+	}
+
+	public double getAliveWeight() {
+		return aliveWeight;
+	}
+
+	public void setAliveWeight(double aliveWeight) {
+		this.aliveWeight = aliveWeight;
+	}
+
+	public double getThreatWeight() {
+		return threatWeight;
+	}
+
+	public void setThreatWeight(double threatWeight) {
+		this.threatWeight = threatWeight;
+	}
+}
@@ -0,0 +1,277 @@
+package BattleSimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import BattleCommands.Ability;
+import BattleCommands.BattleCommand;
+import BattleCommands.Item;
+import Heros.Hero;
+import Heros.HeroListener;
+import Heros.Stat;
+
+/**
+ * Append-only binary record of a battle, written through a buffered NIO channel and read back by BattleReplayer.
+ * Attach it to an engine with BattleEngine.setJournal before the first turn.
+ *
+ * The header holds the battle's seed and the class of the hero in every slot, slots being the human party followed by the AI party.
+ * Each turn then records the acting hero, the command used and its target, the number of random draws taken and every
+ * stat change of the turn, which covers the status ticks as well as the command's effect. Numbers are unsigned varints,
+ * deltas are zigzag encoded and command names are written once and referred to by index afterwards.
+ * @author Kevin
+ *
+ */
+public class BattleJournal implements HeroListener, Closeable {
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	static final int MAGIC = 0x424A;
+	static final int VERSION = 1;
+	// Record tags
+	static final int TURN = 1;
+	static final int END = 2;
+	// Command kinds
+	static final int COMMAND_NONE = 0;
+	static final int COMMAND_ABILITY = 1;
+	static final int COMMAND_ITEM = 2;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+	private final IdentityHashMap<Hero, Integer> slots = new IdentityHashMap<Hero, Integer>();
+	// Stat changes of the current turn, three ints each: slot, stat ordinal, delta
+	private int[] effects = new int[48];
+	private int effectCount = 0;
+
+	/**
+	 * Create a journal writing to a channel with the default buffer size.
+	 * @param channel: channel the journal is written to, closed with the journal
+	 */
+	public BattleJournal(WritableByteChannel channel)
+	{
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a journal writing to a channel.
+	 * @param channel: channel the journal is written to, closed with the journal
+	 * @param bufferSize: bytes buffered before they are written to the channel
+	 */
+	public BattleJournal(WritableByteChannel channel, int bufferSize)
+	{
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Create a journal writing to a file, replacing the file if it exists.
+	 * @param path: file to write
+	 * @return the journal
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static BattleJournal open(Path path) throws IOException
+	{
+		return new BattleJournal(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	/**
+	 * Write the header and start listening to the battle's heroes.
+	 * @param seed: seed of the battle's random source
+	 * @param heroes: every hero in the battle, in slot order
+	 * @throws IOException if the channel cannot be written
+	 */
+	void begin(long seed, List<Hero> heroes) throws IOException
+	{
+		putVarint(MAGIC);
+		putVarint(VERSION);
+		ensure(Long.BYTES);
+		buffer.putLong(seed);
+		putVarint(heroes.size());
+		for(int slot = 0; slot < heroes.size(); slot++)
+		{
+			Hero hero = heroes.get(slot);
+			putString(hero.getClass().getName());
+			slots.put(hero, slot);
+			hero.addListener(this);
+		}
+	}
+
+	/**
+	 * Write one turn together with the stat changes recorded since the previous turn.
+	 * @param actor: hero that took the turn
+	 * @param command: command used, null if the hero could not act
+	 * @param target: target of the command, null if it had none
+	 * @param draws: random draws taken during the turn
+	 * @throws IOException if the channel cannot be written
+	 */
+	void recordTurn(Hero actor, BattleCommand command, Hero target, long draws) throws IOException
+	{
+		putVarint(TURN);
+		putVarint(slots.get(actor));
+		if(command instanceof Ability)
+		{
+			putVarint(COMMAND_ABILITY);
+			putString(((Ability) command).getName());
+		}
+		else if(command instanceof Item)
+		{
+			putVarint(COMMAND_ITEM);
+			putString(command.toString());
+		}
+		else
+		{
+			putVarint(COMMAND_NONE);
+		}
+		putVarint(target == null ? 0 : slots.get(target) + 1);
+		putVarint(draws);
+		putVarint(effectCount);
+		for(int i = 0; i < effectCount * 3; i += 3)
+		{
+			putVarint(effects[i]);
+			putVarint(effects[i + 1]);
+			putVarint(zigzag(effects[i + 2]));
+		}
+		effectCount = 0;
+	}
+
+	/**
+	 * Write the outcome of the battle.
+	 * @param outcome: how the battle ended
+	 * @param turnCount: number of turns played
+	 * @throws IOException if the channel cannot be written
+	 */
+	void recordEnd(BattleOutcome outcome, int turnCount) throws IOException
+	{
+		putVarint(END);
+		putVarint(outcome.ordinal());
+		putVarint(turnCount);
+	}
+
+	/**
+	 * Record a stat change of a hero in the battle for the current turn.
+	 */
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		Integer slot = slots.get(hero);
+		if(slot == null)
+		{
+			return;
+		}
+		if(effectCount * 3 == effects.length)
+		{
+			effects = Arrays.copyOf(effects, effects.length * 2);
+		}
+		int index = effectCount * 3;
+		effects[index] = slot;
+		effects[index + 1] = stat.ordinal();
+		effects[index + 2] = newValue - oldValue;
+		effectCount ++;
+	}
+
+	/**
+	 * Stop listening to the battle's heroes.
+	 */
+	public void detach()
+	{
+		for(Hero hero : slots.keySet())
+		{
+			hero.removeListener(this);
+		}
+	}
+
+	/**
+	 * Write everything buffered so far to the channel.
+	 * @throws IOException if the channel cannot be written
+	 */
+	public void flush() throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Flush the journal, stop listening to the heroes and close the channel.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		detach();
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	//=========================================================================================================
+	//============================================== ENCODING =================================================
+
+	private void ensure(int bytes) throws IOException
+	{
+		if(buffer.remaining() < bytes)
+		{
+			flush();
+		}
+	}
+
+	private void putVarint(long value) throws IOException
+	{
+		ensure(10);
+		while((value & ~0x7FL) != 0)
+		{
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Write a string the first time it is seen, afterwards only its index.
+	 */
+	private void putString(String value) throws IOException
+	{
+		Integer index = strings.get(value);
+		if(index != null)
+		{
+			putVarint(index);
+			return;
+		}
+		putVarint(strings.size());
+		strings.put(value, strings.size());
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if(bytes.length + 10 > buffer.capacity())
+		{
+			throw new IllegalArgumentException("Name too long for the journal buffer: " + value);
+		}
+		putVarint(bytes.length);
+		ensure(bytes.length);
+		buffer.put(bytes);
+	}
+
+	static long zigzag(int value)
+	{
+		return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+	}
+
+	static int unzigzag(long value)
+	{
+		int bits = (int) value;
+		return (bits >>> 1) ^ -(bits & 1);
+	}
+}
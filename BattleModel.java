@@ -3,29 +3,25 @@ package GridGUI;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.TreeMap;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import BattleCommands.Ability;
 import BattleCommands.BattleCommand;
 import BattleCommands.Item;
+import BattleCommands.OffensiveAbility;
+import BattleSimulation.BattleEngine;
 import Heros.Hero;
 import PartyContainers.AI;
 import PartyContainers.AiBattleReturnType;
 import PartyContainers.Player;
 import RPG_Exceptions.BattleModelException;
-import RPG_Exceptions.MaximumStatException;
 
 
 public class BattleModel {
 	private BattleController controller; 
 	private Player human;
 	private AI AI;
-	private Queue<Hero> gameQueue = new LinkedList<Hero>();
+	private final BattleEngine engine;
 	private final BattleState gameState = new BattleState(false);
 	private Hero currentHero; 
 	private Hero targetedChar;
@@ -45,8 +41,10 @@ public class BattleModel {
         // Begin battle 
         // Tell controller to send signal to view to add all components
         controller.sendInitializeSignal(human, AI);
-        // Fill the initial battle queue
-        this.fillInitialQueue();
+        // The engine fills the initial battle queue and tracks the win condition
+        this.engine = new BattleEngine(human, AI);
+        // The engine ends the battle once, however many times it is checked
+        engine.addBattleEndListener((battle, outcome) -> end());
         // Start the battle
         this.battle();
     }
@@ -64,76 +62,36 @@ public class BattleModel {
     /*********************************************************************************************************/
     
     /**
-     * Fills the initial battle queue when the gameState starts. 
+     * Checks the battle status to determine if the battle is over or not. If all characters in either party are dead the battle is over. 
      */
-    private void fillInitialQueue()
-    {
-    	// Add human party to array list to be sorted
-    	TreeMap<String, Hero> party = human.getParty();
-		Collection<Hero> p = party.values();
-		ArrayList<Hero> sortMe = new ArrayList<Hero>(p);
-
-		// Add AI party to array list to be sorted
-		TreeMap<String, Hero> aiParty = AI.getParty();
-		Collection<Hero> aiP = aiParty.values();
-		sortMe.addAll(aiP);
-		
-		// Sort the complete list
-		Collections.sort(sortMe);
-		// Since it sorts in ascending order 
-		// i.e lower speed first 
-		// Need to reverse the order 
-		Collections.reverse(sortMe);
-		
-		// Add to queue in sorted order 
-		for(Hero hero : sortMe)
-		{
-			gameQueue.add(hero);
-		}
-    }
+	public void checkBattleStatus()
+	{
+		engine.checkBattleStatus();
+	}
 	
 	/*********************************************************************************************************/
 	
-    /**
-     * Checks the battle status to determine if the battle is over or not. If all characters in either party are dead the battle is over. 
-     */
-	public void checkBattleStatus()
+	/**
+	 * Ends the battle on the view, called by the engine exactly once when the battle is over.
+	 */
+	private void end()
 	{
-		// Will remove characters from party when they die
-		// So if either party is empty, end battle 
-		int deadCountHuman = partyDead(human.getParty());
-		if(deadCountHuman == 4)
-		{
-			gameOver = true;
-			controller.theEnd();
-		}
-		int deadCountAI = partyDead(AI.getParty());
-		if(deadCountAI == 4)
-		{
-			gameOver = true;
-			controller.theEnd();
-		}
+		gameOver = true;
+		engine.detach();
+		controller.theEnd();
 	}
 	
 	/*********************************************************************************************************/
 	
 	/**
-	 * Computes the dead count in a party. If the dead count is 4 then the battle is over.
-	 * @param party the party whose dead you wish to count
-	 * @return deadCount an integer of how many characters have 0 or less health 
+	 * Re-adds the character whose turn has just finished to the engine's queue and ends the battle if it is over.
+	 * @param actingHero the hero whose turn has just finished
+	 * @param command the command the hero used, null if it could not act
+	 * @param target the target of the command, null if it had none
 	 */
-	private int partyDead(TreeMap<String,Hero> party)
+	private void endTurn(Hero actingHero, BattleCommand command, Hero target)
 	{
-		Collection<Hero> p = party.values();
-		int deadCount = 0;
-		for(Hero currentClass : p)
-		{
-			if(currentClass.getHealth() <= 0)
-			{
-				deadCount ++;
-			}
-		}
-		return deadCount;
+		engine.endTurn(actingHero, command, target);
 	}
 	
 	/*********************************************************************************************************/
@@ -142,13 +100,13 @@ public class BattleModel {
 	 * Updates statuses, and all display bars on the view on successful turn completion. Also readds the character whose turn has 
 	 * just finished to the queue. 
 	 * @param actingHero the hero whose bars and statuses must be updated. 
+	 * @param command the command the hero used, null if it could not act
 	 */
-    private void updateOnSuccessfulEvent(Hero actingHero)
+    private void updateOnSuccessfulEvent(Hero actingHero, BattleCommand command)
     {
     	controller.sendUpdateEndOfTurnSignal(actingHero);
     	controller.addActionListenersAI_Turn();
-		gameQueue.add(actingHero);
-		checkBattleStatus(); 	
+		endTurn(actingHero, command, command instanceof OffensiveAbility ? targetedChar : null);
     }
     
     /*********************************************************************************************************/
@@ -194,6 +152,14 @@ public class BattleModel {
 	public BattleState getGameState() {
 		return gameState;
 	}
+	
+	/**
+	 * Get the headless engine this model displays.
+	 * @return the battle engine
+	 */
+	public BattleEngine getEngine() {
+		return engine;
+	}
 
 	/**
 	 * Is it the first go?
@@ -261,7 +227,12 @@ public class BattleModel {
     			  controller.signalRemoveAbilityUsed(currentHero);
     		  }
     		  
-    		  currentHero = gameQueue.poll();
+    		  currentHero = engine.nextActor();
+    		  // The scheduler is empty once the battle is over, the end listener may have fired mid loop
+    		  if(currentHero == null || engine.isOver())
+    		  {
+    			  break;
+    		  }
     		  if(currentHero.getHealth() > 0)
     		  {
     			  // Display indicator arrow
@@ -276,11 +247,12 @@ public class BattleModel {
 	        		  
 	        		  System.out.println("****************************************************");
 	        		  System.out.println("Current AI health: " + currentHero.getHealth());
+	        		  System.out.println("Enemy Turn!");
 	        		  
 	        		  AiBattleReturnType AI_Move = null; 
 					
 					  try {
-						AI_Move = AI.aiTurn(currentHero, human);
+						AI_Move = engine.takeAITurn(currentHero);
 					} catch (BattleModelException e1) {
 						e1.printStackTrace();
 					}
@@ -288,6 +260,10 @@ public class BattleModel {
 	        		  // Extract target and ability from AiBattleReturnType
 	        		  Hero AI_target = AI_Move.getTarget();
 	        		  BattleCommand AI_ability = AI_Move.getCmd();
+	        		  if(AI_ability != null)
+	        		  {
+	        			  System.out.println("AI using: " + AI_ability.toString());
+	        		  }
 	        		  
 	        		  if(AI_target != null)
 	        		  {
@@ -311,8 +287,7 @@ public class BattleModel {
 	        		  {
 	        			  controller.signalRemoveAbilityUsed(currentHero);
 	        		  }
-	        		  checkBattleStatus();
-	        		  gameQueue.add(currentHero);
+	        		  endTurn(currentHero, AI_ability, AI_target);
 	        	  }
 	        	  else
 	        	  {
@@ -325,12 +300,12 @@ public class BattleModel {
                       if(currentHero.getHealth() < 1)
                        {
                     	  System.out.println("Knocked Out!!!");
-                          updateOnSuccessfulEvent(currentHero);
+                          updateOnSuccessfulEvent(currentHero, null);
                       }
                       else if (crowdControlled) {
                     	  
                           System.out.println("Stunned!!!");
-                          updateOnSuccessfulEvent(currentHero);
+                          updateOnSuccessfulEvent(currentHero, null);
                       }
                       else 
                       {
@@ -408,7 +383,7 @@ public class BattleModel {
     			controller.signalDisplayAbilityUsed(watchingHero, abilityToUse);
     			controller.signalUpdateStatuses();
 				// Animate Attack
-				updateOnSuccessfulEvent(watchingHero);
+				updateOnSuccessfulEvent(watchingHero, abilityToUse);
     		}
     		catch(BattleModelException battleException)
     		{
@@ -481,7 +456,7 @@ public class BattleModel {
 					item.useBattleCommand(currentHero,controller);
 		    		itemPopUp.setVisible(false);
 		    		controller.signalDisplayAbilityUsed(currentHero, item);
-		    		updateOnSuccessfulEvent(currentHero);
+		    		updateOnSuccessfulEvent(currentHero, item);
 		    		gameState.resumeThread();
 				} catch (BattleModelException itemException) {
 					itemException.sendControllerErrorSignal();				
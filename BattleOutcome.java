@@ -0,0 +1,14 @@
+package BattleSimulation;
+
+/**
+ * The possible states of a battle run by the BattleEngine.
+ * @author Kevin
+ *
+ */
+public enum BattleOutcome {
+	IN_PROGRESS,
+	HUMAN_VICTORY,
+	AI_VICTORY,
+	// The turn limit was reached before either party was defeated
+	DRAW
+}
@@ -0,0 +1,91 @@
+package BattleSimulation;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Random source of one battle. Every value is derived from nextLong, so the number of draws taken during a turn is exact
+ * and a replay can skip the draws of a decision it does not need to make again.
+ * nextLong is the SplittableRandom algorithm (SplitMix64) kept in a single long, so a BattleSnapshot can save and restore it.
+ * @author Kevin
+ *
+ */
+public class BattleRandom implements RandomGenerator {
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private final long seed;
+	private long state;
+	private long draws = 0;
+
+	/**
+	 * Create the random source of a battle.
+	 * @param seed: seed of the battle
+	 */
+	public BattleRandom(long seed)
+	{
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	/**
+	 * Draw the next value, nextInt, nextDouble and the bounded variants all go through here.
+	 */
+	@Override
+	public long nextLong()
+	{
+		draws ++;
+		return mix(state += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Turn a state into the value drawn at it, for random sources kept as a bare long stepped by GOLDEN_GAMMA.
+	 * @param z: the state after stepping
+	 * @return the drawn value
+	 */
+	static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Throw away draws, used by a replay to stay in step with the recorded battle.
+	 * @param count: number of draws to skip
+	 */
+	public void skip(long count)
+	{
+		for(long i = 0; i < count; i++)
+		{
+			nextLong();
+		}
+	}
+
+	/**
+	 * Get the number of values drawn since the battle started.
+	 * @return the draw count
+	 */
+	public long getDraws()
+	{
+		return draws;
+	}
+
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	long getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Put the generator back to a saved point.
+	 * @param state: saved state
+	 * @param draws: draw count at that point
+	 */
+	void restore(long state, long draws)
+	{
+		this.state = state;
+		this.draws = draws;
+	}
+}
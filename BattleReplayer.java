@@ -0,0 +1,346 @@
+package BattleSimulation;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import BattleCommands.Ability;
+import BattleCommands.BattleCommand;
+import BattleCommands.CommandResult;
+import BattleCommands.Item;
+import Heros.Hero;
+import Heros.HeroListener;
+import Heros.Stat;
+import PartyContainers.AI;
+import PartyContainers.Player;
+
+/**
+ * Plays a battle back from a BattleJournal. The recorded commands are applied to fresh parties in the recorded order
+ * without asking the AI or a TurnPolicy again, the random draws of each decision are skipped so the battle's random source
+ * stays in step, and every stat change is checked against the journal so the first turn where the replay differs is reported.
+ * @author Kevin
+ *
+ */
+public class BattleReplayer implements HeroListener, Closeable {
+	private final ReadableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final ArrayList<String> strings = new ArrayList<String>();
+	private final long seed;
+	private final ArrayList<String> heroClasses = new ArrayList<String>();
+	private final IdentityHashMap<Hero, Integer> slots = new IdentityHashMap<Hero, Integer>();
+	// Stat changes seen during the replayed turn, three ints each: slot, stat ordinal, delta
+	private int[] effects = new int[48];
+	private int effectCount = 0;
+
+	/**
+	 * Open a journal and read its header.
+	 * @param channel: channel holding the journal, closed with the replayer
+	 * @throws IOException if the channel cannot be read or does not hold a journal
+	 */
+	public BattleReplayer(ReadableByteChannel channel) throws IOException
+	{
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(BattleJournal.DEFAULT_BUFFER_SIZE);
+		buffer.flip();
+		if(readVarint() != BattleJournal.MAGIC)
+		{
+			throw new IOException("Not a battle journal");
+		}
+		long version = readVarint();
+		if(version != BattleJournal.VERSION)
+		{
+			throw new IOException("Unsupported battle journal version " + version);
+		}
+		this.seed = readLong();
+		int heroCount = (int) readVarint();
+		for(int i = 0; i < heroCount; i++)
+		{
+			heroClasses.add(readString());
+		}
+	}
+
+	/**
+	 * Open a journal file and read its header.
+	 * @param path: journal file
+	 * @return the replayer
+	 * @throws IOException if the file cannot be read or is not a journal
+	 */
+	public static BattleReplayer open(Path path) throws IOException
+	{
+		return new BattleReplayer(FileChannel.open(path));
+	}
+
+	/**
+	 * Replay the journal on fresh parties built the same way as the recorded ones.
+	 * @param human: the human player, in the state it started the recorded battle in
+	 * @param ai: the AI player, in the state it started the recorded battle in
+	 * @return the engine after the last recorded turn
+	 * @throws IOException if the journal cannot be read or does not match the parties
+	 * @throws IllegalStateException if the replay stops matching the journal
+	 */
+	public BattleEngine replay(Player human, AI ai) throws IOException
+	{
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), seed);
+		List<Hero> heroes = engine.getHeroes();
+		if(heroes.size() != heroClasses.size())
+		{
+			throw new IOException("Journal has " + heroClasses.size() + " heroes, the parties have " + heroes.size());
+		}
+		for(int slot = 0; slot < heroes.size(); slot++)
+		{
+			Hero hero = heroes.get(slot);
+			if(!hero.getClass().getName().equals(heroClasses.get(slot)))
+			{
+				throw new IOException("Journal slot " + slot + " holds " + heroClasses.get(slot) + ", not " + hero.getClass().getName());
+			}
+			slots.put(hero, slot);
+			hero.addListener(this);
+		}
+
+		try
+		{
+			int tag;
+			while((tag = readTag()) == BattleJournal.TURN)
+			{
+				replayTurn(engine, human, ai);
+			}
+			if(tag == BattleJournal.END)
+			{
+				BattleOutcome outcome = BattleOutcome.values()[(int) readVarint()];
+				int turnCount = (int) readVarint();
+				if(outcome == BattleOutcome.DRAW)
+				{
+					// A draw is only called by the turn limit
+					engine.run(engine.getTurnCount());
+				}
+				if(engine.getOutcome() != outcome || engine.getTurnCount() != turnCount)
+				{
+					throw new IllegalStateException("Replay ended " + engine.getOutcome() + " after " + engine.getTurnCount()
+							+ " turns, the journal ended " + outcome + " after " + turnCount);
+				}
+			}
+		}
+		finally
+		{
+			for(Hero hero : heroes)
+			{
+				hero.removeListener(this);
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * Read one recorded turn and play it.
+	 */
+	private void replayTurn(BattleEngine engine, Player human, AI ai) throws IOException
+	{
+		List<Hero> heroes = engine.getHeroes();
+		int turn = engine.getTurnCount();
+		Hero actor = heroes.get((int) readVarint());
+		int kind = (int) readVarint();
+		String commandName = kind == BattleJournal.COMMAND_NONE ? null : readString();
+		int targetSlot = (int) readVarint();
+		Hero target = targetSlot == 0 ? null : heroes.get(targetSlot - 1);
+		long draws = readVarint();
+		int recordedCount = (int) readVarint();
+		int[] recorded = new int[recordedCount * 3];
+		for(int i = 0; i < recorded.length; i += 3)
+		{
+			recorded[i] = (int) readVarint();
+			recorded[i + 1] = (int) readVarint();
+			recorded[i + 2] = BattleJournal.unzigzag(readVarint());
+		}
+
+		if(engine.nextActor() != actor)
+		{
+			throw new IllegalStateException("Turn " + turn + ": journal expects " + actor.getName() + " to act, not " + engine.nextActor().getName());
+		}
+		effectCount = 0;
+		actor.updateStatuses();
+		BattleCommand command = null;
+		if(kind == BattleJournal.COMMAND_ABILITY)
+		{
+			command = Ability.getAbility(actor, commandName);
+		}
+		else if(kind == BattleJournal.COMMAND_ITEM)
+		{
+			command = findItem(BattleEngine.isAIControlled(actor) ? ai : human, commandName);
+		}
+		if(kind != BattleJournal.COMMAND_NONE)
+		{
+			if(command == null)
+			{
+				throw new IllegalStateException("Turn " + turn + ": " + actor.getName() + " has no command " + commandName);
+			}
+			CommandResult result = command.tryUse(actor, target);
+			if(!result.isSuccess())
+			{
+				throw new IllegalStateException("Turn " + turn + ": " + commandName + " could not be used, " + result);
+			}
+		}
+		engine.getRandom().skip(draws);
+
+		if(!Arrays.equals(recorded, 0, recorded.length, effects, 0, effectCount * 3))
+		{
+			throw new IllegalStateException("Turn " + turn + ": stat changes differ from the journal");
+		}
+		engine.endTurn(actor, command, target);
+	}
+
+	private static Item findItem(Player owner, String name)
+	{
+		for(Item item : owner.getInventory().values())
+		{
+			if(item.toString().equals(name))
+			{
+				return item;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Record a stat change made by the replayed turn.
+	 */
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		Integer slot = slots.get(hero);
+		if(slot == null)
+		{
+			return;
+		}
+		if(effectCount * 3 == effects.length)
+		{
+			effects = Arrays.copyOf(effects, effects.length * 2);
+		}
+		int index = effectCount * 3;
+		effects[index] = slot;
+		effects[index + 1] = stat.ordinal();
+		effects[index + 2] = newValue - oldValue;
+		effectCount ++;
+	}
+
+	/**
+	 * Close the journal's channel.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	public List<String> getHeroClasses()
+	{
+		return Collections.unmodifiableList(heroClasses);
+	}
+
+	//=========================================================================================================
+	//============================================== DECODING =================================================
+
+	/**
+	 * Read the next record tag.
+	 * @return the tag, -1 at the end of the channel
+	 */
+	private int readTag() throws IOException
+	{
+		if(!fill(1))
+		{
+			return -1;
+		}
+		return (int) readVarint();
+	}
+
+	/**
+	 * Make sure at least the given number of bytes are buffered.
+	 * @return false if the channel ended first
+	 */
+	private boolean fill(int bytes) throws IOException
+	{
+		if(buffer.remaining() >= bytes)
+		{
+			return true;
+		}
+		buffer.compact();
+		while(buffer.position() < bytes)
+		{
+			if(channel.read(buffer) < 0)
+			{
+				break;
+			}
+		}
+		buffer.flip();
+		return buffer.remaining() >= bytes;
+	}
+
+	private byte readByte() throws IOException
+	{
+		if(!fill(1))
+		{
+			throw new EOFException("Battle journal ends mid record");
+		}
+		return buffer.get();
+	}
+
+	private long readVarint() throws IOException
+	{
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7)
+		{
+			byte b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint in battle journal");
+	}
+
+	private long readLong() throws IOException
+	{
+		if(!fill(Long.BYTES))
+		{
+			throw new EOFException("Battle journal ends mid record");
+		}
+		return buffer.getLong();
+	}
+
+	/**
+	 * Read a string written by BattleJournal, either new or an index of one already read.
+	 */
+	private String readString() throws IOException
+	{
+		int index = (int) readVarint();
+		if(index < strings.size())
+		{
+			return strings.get(index);
+		}
+		int length = (int) readVarint();
+		if(!fill(length))
+		{
+			throw new EOFException("Battle journal ends mid record");
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		String value = new String(bytes, StandardCharsets.UTF_8);
+		strings.add(value);
+		return value;
+	}
+}
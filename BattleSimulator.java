@@ -0,0 +1,144 @@
+package BattleSimulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+import PartyContainers.Player;
+
+/**
+ * Runs batches of independent headless battles in parallel on a ForkJoinPool and aggregates the results
+ * into a SimulationReport. Every battle gets fresh parties from the suppliers and its own random source,
+ * seeded from the batch seed and the battle's index, so a batch repeats exactly however the work is split.
+ * @author Kevin
+ *
+ */
+public class BattleSimulator {
+	// Battles run sequentially by a single fork join task before it stops splitting
+	private static final int BATTLES_PER_TASK = 64;
+	private final Supplier<? extends Player> humanParty;
+	private final Supplier<? extends AI> aiParty;
+	private final Supplier<? extends TurnPolicy> humanPolicy;
+	private final ForkJoinPool pool;
+	private final int turnLimit;
+
+	/**
+	 * Create a simulator of the AI's default party against the supplied human party on the common pool.
+	 * @param humanParty: creates a fresh human player for each battle
+	 */
+	public BattleSimulator(Supplier<? extends Player> humanParty)
+	{
+		this(humanParty, AI::new, GreedyTurnPolicy::new, ForkJoinPool.commonPool(), BattleEngine.DEFAULT_TURN_LIMIT);
+	}
+
+	/**
+	 * Create a simulator.
+	 * @param humanParty: creates a fresh human player for each battle
+	 * @param aiParty: creates a fresh AI player for each battle
+	 * @param humanPolicy: creates the TurnPolicy that plays the human party in each battle
+	 * @param pool: pool the battles are run on
+	 * @param turnLimit: turns after which a battle is called a draw
+	 */
+	public BattleSimulator(Supplier<? extends Player> humanParty, Supplier<? extends AI> aiParty,
+			Supplier<? extends TurnPolicy> humanPolicy, ForkJoinPool pool, int turnLimit)
+	{
+		this.humanParty = humanParty;
+		this.aiParty = aiParty;
+		this.humanPolicy = humanPolicy;
+		this.pool = pool;
+		this.turnLimit = turnLimit;
+	}
+
+	/**
+	 * Run a batch of battles across the pool.
+	 * @param battles: number of battles to run
+	 * @param seed: batch seed, the same seed and battle count always give the same report
+	 * @return the merged results of every battle
+	 */
+	public SimulationReport simulate(int battles, long seed)
+	{
+		return pool.invoke(new SimulationTask(seed, 0, battles));
+	}
+
+	/**
+	 * Run a single battle to completion and record it.
+	 * @param seed: seed of the battle's random source
+	 * @param report: report to record the battle in
+	 * @return the finished engine
+	 */
+	public BattleEngine runBattle(long seed, SimulationReport report)
+	{
+		BattleEngine engine = new BattleEngine(humanParty.get(), aiParty.get(), humanPolicy.get(), seed);
+		while(!engine.isOver() && engine.getTurnCount() < turnLimit)
+		{
+			AiBattleReturnType move = engine.step();
+			if(move == null)
+			{
+				break;
+			}
+			if(move.getCmd() != null)
+			{
+				report.recordCommand(move.getCmd());
+			}
+		}
+		report.recordBattle(engine.run(turnLimit), engine.getTurnCount());
+		return engine;
+	}
+
+	/**
+	 * Derive the seed of one battle from the batch seed. The index is scrambled so neighbouring battles
+	 * don't start on overlapping stretches of the same random sequence.
+	 * @param seed: batch seed
+	 * @param index: index of the battle in the batch
+	 * @return the battle's seed
+	 */
+	public static long battleSeed(long seed, long index)
+	{
+		long z = seed + index * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public int getTurnLimit() {
+		return turnLimit;
+	}
+
+	/**
+	 * Splits a range of battle indices in half until it is small enough to run sequentially.
+	 */
+	private class SimulationTask extends RecursiveTask<SimulationReport> {
+		private static final long serialVersionUID = 1L;
+		private final long seed;
+		private final int from;
+		private final int to;
+
+		SimulationTask(long seed, int from, int to)
+		{
+			this.seed = seed;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SimulationReport compute()
+		{
+			if(to - from <= BATTLES_PER_TASK)
+			{
+				SimulationReport report = new SimulationReport(turnLimit);
+				for(int i = from; i < to; i++)
+				{
+					runBattle(battleSeed(seed, i), report);
+				}
+				return report;
+			}
+			int middle = (from + to) >>> 1;
+			SimulationTask left = new SimulationTask(seed, from, middle);
+			left.fork();
+			SimulationReport right = new SimulationTask(seed, middle, to).compute();
+			return right.merge(left.join());
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package BattleSimulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import BattleCommands.Item;
+import Heros.Hero;
+import PartyContainers.Player;
+import Statuses.Status;
+
+/**
+ * Saved state of a battle taken with BattleEngine.snapshot and put back with BattleEngine.restore, so a search can try a
+ * command, look at the result and undo it without copying the heroes.
+ *
+ * The state is kept as flat arrays: the battle stats of every hero, the turn order, the random source and the engine's counters.
+ * Statuses are only changed in place through their duration, so the snapshot keeps references to the applied statuses and
+ * their durations instead of cloning them. Inventories are kept as their entries and only rebuilt if they changed.
+ * A snapshot can be reused for the next capture so taking one per search node does not allocate once the arrays are big enough.
+ * @author Kevin
+ *
+ */
+public class BattleSnapshot {
+	// Health, ability points, defense rating, speed and attack power
+	static final int STATS_PER_HERO = 5;
+
+	private int heroCount = 0;
+	private int[] stats = new int[0];
+	private long[] rounds = new long[0];
+	private long[] nextStatusIds = new long[0];
+	// Statuses of hero i are statuses[statusStart[i]] to statuses[statusStart[i + 1] - 1]
+	private int[] statusStart = new int[1];
+	private Status[] statuses = new Status[0];
+	private int[] durations = new int[0];
+	private final InventoryState humanInventory = new InventoryState();
+	private final InventoryState aiInventory = new InventoryState();
+	private long randomState;
+	private long randomDraws;
+	private long turnStartDraws;
+	private int turnCount;
+	private BattleOutcome outcome;
+	private long heroHash;
+	private long inventoryHash;
+
+	/**
+	 * Save the state of a battle into this snapshot, replacing what it held.
+	 * @param engine: battle to save
+	 */
+	void capture(BattleEngine engine)
+	{
+		List<Hero> heroes = engine.getHeroes();
+		TurnScheduler scheduler = engine.getScheduler();
+		heroCount = heroes.size();
+		if(rounds.length < heroCount)
+		{
+			stats = new int[heroCount * STATS_PER_HERO];
+			rounds = new long[heroCount];
+			nextStatusIds = new long[heroCount];
+			statusStart = new int[heroCount + 1];
+		}
+
+		int statusCount = 0;
+		for(int i = 0; i < heroCount; i++)
+		{
+			Hero hero = heroes.get(i);
+			int base = i * STATS_PER_HERO;
+			stats[base] = hero.getHealth();
+			stats[base + 1] = hero.getAbilityPoints();
+			stats[base + 2] = hero.getDefenseRating();
+			stats[base + 3] = hero.getSpeed();
+			stats[base + 4] = hero.getAttackPower();
+			rounds[i] = scheduler.getRound(hero);
+			nextStatusIds[i] = hero.getNextStatusId();
+
+			statusStart[i] = statusCount;
+			Map<Long, Status> heroStatuses = hero.getStatusesById();
+			if(statusCount + heroStatuses.size() > statuses.length)
+			{
+				int capacity = Math.max(statuses.length * 2, statusCount + heroStatuses.size());
+				statuses = Arrays.copyOf(statuses, capacity);
+				durations = Arrays.copyOf(durations, capacity);
+			}
+			for(Status status : heroStatuses.values())
+			{
+				statuses[statusCount] = status;
+				durations[statusCount] = status.getDuration();
+				statusCount ++;
+			}
+		}
+		statusStart[heroCount] = statusCount;
+		// Don't keep statuses from an earlier capture alive
+		Arrays.fill(statuses, statusCount, statuses.length, null);
+
+		humanInventory.capture(engine.getHuman());
+		aiInventory.capture(engine.getAI());
+		BattleRandom random = engine.getRandom();
+		randomState = random.getState();
+		randomDraws = random.getDraws();
+		turnStartDraws = engine.getTurnStartDraws();
+		turnCount = engine.getTurnCount();
+		outcome = engine.getOutcome();
+		heroHash = engine.getZobristHash().getHeroHash();
+		inventoryHash = engine.getZobristHash().getInventoryHash();
+	}
+
+	/**
+	 * Put a battle back to the state saved in this snapshot. The battle must be the one the snapshot was taken from.
+	 * @param engine: battle to restore
+	 */
+	void restore(BattleEngine engine)
+	{
+		List<Hero> heroes = engine.getHeroes();
+		if(heroes.size() != heroCount)
+		{
+			throw new IllegalArgumentException("Snapshot was taken from a different battle");
+		}
+		TurnScheduler scheduler = engine.getScheduler();
+		for(int i = 0; i < heroCount; i++)
+		{
+			Hero hero = heroes.get(i);
+			int base = i * STATS_PER_HERO;
+			// Stats are set through the setters so the turn order sees deaths, revives and speed changes
+			hero.setHealth(stats[base]);
+			hero.setAbilityPoints(stats[base + 1]);
+			hero.setDefenseRating(stats[base + 2]);
+			hero.setSpeed(stats[base + 3]);
+			hero.setAttackPower(stats[base + 4]);
+			hero.setNextStatusId(nextStatusIds[i]);
+
+			Map<Long, Status> heroStatuses = hero.getStatusesById();
+			heroStatuses.clear();
+			for(int s = statusStart[i]; s < statusStart[i + 1]; s++)
+			{
+				Status status = statuses[s];
+				status.setDuration(durations[s]);
+				heroStatuses.put(status.getId(), status);
+			}
+		}
+		// Rounds last, a revive above puts the hero back in whatever round the scheduler is on
+		for(int i = 0; i < heroCount; i++)
+		{
+			scheduler.setRound(heroes.get(i), rounds[i]);
+		}
+
+		humanInventory.restore(engine.getHuman());
+		aiInventory.restore(engine.getAI());
+		engine.getRandom().restore(randomState, randomDraws);
+		engine.restoreProgress(turnCount, outcome, turnStartDraws);
+		// Statuses and items were put back behind the hash's back, the rounds kept their own part up to date
+		engine.getZobristHash().restore(heroHash, inventoryHash);
+		engine.getHumanRankings().refresh();
+		engine.getAIRankings().refresh();
+	}
+
+	public int getTurnCount()
+	{
+		return turnCount;
+	}
+
+	public BattleOutcome getOutcome()
+	{
+		return outcome;
+	}
+
+	/**
+	 * Saved entries of a player's inventory.
+	 */
+	private static final class InventoryState {
+		private String[] keys = new String[0];
+		private Item[] items = new Item[0];
+		private int size = 0;
+
+		void capture(Player player)
+		{
+			TreeMap<String, Item> inventory = player.getInventory();
+			if(inventory.size() > keys.length)
+			{
+				keys = new String[inventory.size()];
+				items = new Item[inventory.size()];
+			}
+			size = 0;
+			for(Map.Entry<String, Item> entry : inventory.entrySet())
+			{
+				keys[size] = entry.getKey();
+				items[size] = entry.getValue();
+				size ++;
+			}
+			Arrays.fill(keys, size, keys.length, null);
+			Arrays.fill(items, size, items.length, null);
+		}
+
+		void restore(Player player)
+		{
+			TreeMap<String, Item> inventory = player.getInventory();
+			if(unchanged(inventory))
+			{
+				return;
+			}
+			inventory.clear();
+			for(int i = 0; i < size; i++)
+			{
+				inventory.put(keys[i], items[i]);
+			}
+		}
+
+		private boolean unchanged(TreeMap<String, Item> inventory)
+		{
+			if(inventory.size() != size)
+			{
+				return false;
+			}
+			int i = 0;
+			for(Map.Entry<String, Item> entry : inventory.entrySet())
+			{
+				if(!entry.getKey().equals(keys[i]) || entry.getValue() != items[i])
+				{
+					return false;
+				}
+				i ++;
+			}
+			return true;
+		}
+	}
+}
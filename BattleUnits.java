@@ -0,0 +1,127 @@
+package BattleSimulation;
+
+/**
+ * Storage of one battle's state as ColumnarBattle plays it: the fields of every unit and the battle's own turn count,
+ * alive counts, outcome and random state. HeroColumns keeps it on the heap; a BattleArena keeps it off the heap, in a
+ * slot of a buffer shared with other battles.
+ *
+ * Units are the indices of the HeroColumns the battle was loaded from and keep its commands and seats. Every setter
+ * stores the value as given; the rules, e.g. ending the battle when a unit dies, are ColumnarBattle's.
+ * @author Kevin
+ *
+ */
+public interface BattleUnits {
+	/**
+	 * Start the battle again from a set of columns: every unit takes the columns' stats and statuses, no unit has
+	 * taken a turn and the battle state is cleared.
+	 * @param prototype: columns of the same size as the battle
+	 */
+	void load(HeroColumns prototype);
+
+	int size();
+
+	int getHealth(int unit);
+
+	void setHealth(int unit, int health);
+
+	int getAbilityPoints(int unit);
+
+	void setAbilityPoints(int unit, int abilityPoints);
+
+	int getDefense(int unit);
+
+	void setDefense(int unit, int defense);
+
+	int getSpeed(int unit);
+
+	void setSpeed(int unit, int speed);
+
+	byte getSide(int unit);
+
+	int getSeat(int unit);
+
+	int getCommandStart(int unit);
+
+	int getCommandCount(int unit);
+
+	int getStatusCount(int unit);
+
+	void setStatusCount(int unit, int count);
+
+	/**
+	 * Get a status slot of a unit. Once a battle has started, the duration field of a packed status is the unit's round
+	 * the status runs out at rather than its remaining duration, see HeroColumns.getDuration.
+	 * @param unit: the unit
+	 * @param slot: slot below HeroColumns.STATUS_SLOTS
+	 * @return the packed status, read with the HeroColumns status accessors
+	 */
+	long getStatus(int unit, int slot);
+
+	void setStatus(int unit, int slot, long status);
+
+	/**
+	 * Get the number of turns a unit has taken, the unit in the earliest round acts next.
+	 * @param unit: the unit
+	 * @return the unit's round
+	 */
+	int getRound(int unit);
+
+	void setRound(int unit, int round);
+
+	/**
+	 * Get the earliest round one of a unit's statuses runs out at. A unit's round is counted up at the start of its turn,
+	 * before its statuses tick, so a status runs out on the turn that takes its unit to the status' round and the unit's
+	 * statuses needn't be visited on earlier turns unless a per turn status is acting.
+	 * @param unit: the unit
+	 * @return the round, Integer.MAX_VALUE if the unit has no status
+	 */
+	int getNextExpiry(int unit);
+
+	void setNextExpiry(int unit, int round);
+
+	/**
+	 * Get the last round a per turn status of a unit acts on.
+	 * @param unit: the unit
+	 * @return the round, below the unit's next round if no per turn status is acting
+	 */
+	int getPerTurnUntil(int unit);
+
+	void setPerTurnUntil(int unit, int round);
+
+	/**
+	 * Get the last round a crowd control status of a unit skips the unit's turn on.
+	 * @param unit: the unit
+	 * @return the round, below the unit's next round if the unit isn't crowd controlled
+	 */
+	int getCrowdControlUntil(int unit);
+
+	void setCrowdControlUntil(int unit, int round);
+
+	//=========================================================================================================
+	//============================================== BATTLE ===================================================
+
+	int getTurnCount();
+
+	void setTurnCount(int turnCount);
+
+	/**
+	 * Get the number of living units on a side.
+	 * @param side: HeroColumns.HUMAN_SIDE or HeroColumns.AI_SIDE
+	 * @return the alive count
+	 */
+	int getAliveCount(int side);
+
+	void setAliveCount(int side, int count);
+
+	BattleOutcome getOutcome();
+
+	void setOutcome(BattleOutcome outcome);
+
+	/**
+	 * Get the battle's random source, a SplitMix64 state stepped like BattleRandom's.
+	 * @return the state
+	 */
+	long getRandomState();
+
+	void setRandomState(long state);
+}
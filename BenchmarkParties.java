@@ -0,0 +1,135 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import Heros.Hero;
+import Heros.Monster;
+import Heros.SkeletonArcher;
+import Heros.SkeletonBoss;
+import Heros.SkeletonSpearMan;
+import Heros.SkeletonWarrior;
+import PartyContainers.HumanPlayer;
+import PartyContainers.Player;
+import Statuses.OffensiveStatusesPerTurn;
+import Statuses.Status;
+
+/**
+ * Builds the parties used by the benchmarks and resets them between invocations so every
+ * invocation measures the same battle state however the previous one mutated it.
+ * @author Kevin
+ *
+ */
+public final class BenchmarkParties {
+	// Long enough that a loaded status never expires during a benchmark run
+	private static final int STATUS_DURATION = 1000000000;
+	public static final String[] ARCHETYPES = {"Defender", "Punisher", "Weakener", "Controller"};
+
+	private final ArrayList<Hero> party;
+	private final int[] defenseRatings;
+	private final int[] statusCounts;
+	private final int statusLoad;
+
+	/**
+	 * Build a party of skeletons cycling through the four archetypes.
+	 * @param size: number of heroes in the party
+	 * @param controlledBy: AI or human controller constant
+	 * @param statusLoad: number of statuses every hero carries
+	 */
+	public BenchmarkParties(int size, String controlledBy, int statusLoad)
+	{
+		this.party = new ArrayList<Hero>(size);
+		this.defenseRatings = new int[size];
+		this.statusCounts = new int[size];
+		this.statusLoad = statusLoad;
+		for(int i = 0; i < size; i++)
+		{
+			Hero hero = makeMonster(ARCHETYPES[i % ARCHETYPES.length], controlledBy);
+			party.add(hero);
+			defenseRatings[i] = hero.getDefenseRating();
+			loadStatuses(hero, statusLoad);
+			statusCounts[i] = hero.getStatusesById().size();
+		}
+	}
+
+	/**
+	 * Create the skeleton that uses the given archetype's selectCommand.
+	 * @param archetype: one of ARCHETYPES
+	 * @param controlledBy: AI or human controller constant
+	 * @return a new skeleton
+	 */
+	public static Monster makeMonster(String archetype, String controlledBy)
+	{
+		switch(archetype)
+		{
+			case "Defender":
+				return new SkeletonBoss(controlledBy);
+			case "Punisher":
+				return new SkeletonSpearMan(controlledBy);
+			case "Weakener":
+				return new SkeletonArcher(controlledBy);
+			case "Controller":
+				return new SkeletonWarrior(controlledBy);
+			default:
+				throw new IllegalArgumentException("Unknown archetype " + archetype);
+		}
+	}
+
+	/**
+	 * Wrap the party in a player so it can be scanned by the AI.
+	 * @return a player holding only this party
+	 */
+	public Player toPlayer()
+	{
+		Player player = new HumanPlayer();
+		player.getParty().clear();
+		for(int i = 0; i < party.size(); i++)
+		{
+			player.getParty().put("hero" + i, party.get(i));
+		}
+		return player;
+	}
+
+	/**
+	 * Restore every hero to full health and ability points, its starting defense rating
+	 * and its loaded statuses, dropping any status applied by the benchmarked code.
+	 */
+	public void reset()
+	{
+		for(int i = 0; i < party.size(); i++)
+		{
+			Hero hero = party.get(i);
+			hero.setHealth(hero.getMaxHealth());
+			hero.setAbilityPoints(hero.getMaxAP());
+			hero.setDefenseRating(defenseRatings[i]);
+			if(hero.getStatusesById().size() != statusCounts[i])
+			{
+				hero.getStatusesById().clear();
+				loadStatuses(hero, statusLoad);
+				statusCounts[i] = hero.getStatusesById().size();
+			}
+		}
+	}
+
+	/**
+	 * Apply statuses that tick every turn without changing any stat.
+	 * @param hero: hero to apply the statuses to
+	 * @param count: number of statuses to apply
+	 */
+	public static void loadStatuses(Hero hero, int count)
+	{
+		Status harmless = new OffensiveStatusesPerTurn.Poison(0, STATUS_DURATION, STATUS_DURATION);
+		for(int i = 0; i < count; i++)
+		{
+			harmless.addStatus(hero);
+		}
+	}
+
+	public Collection<Hero> getParty() {
+		return party;
+	}
+
+	public Hero get(int index) {
+		return party.get(index);
+	}
+}
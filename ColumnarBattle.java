@@ -0,0 +1,855 @@
+package BattleSimulation;
+
+import java.util.function.IntFunction;
+import java.util.random.RandomGenerator;
+
+import BattleCommands.OffensiveAbility;
+import Heros.AbilityCategory;
+import Heros.SelectionLadder;
+import Heros.Stat;
+import PartyContainers.AI;
+import PartyContainers.HumanPlayer;
+
+/**
+ * Plays battles straight on HeroColumns, for simulating many battles of the same parties without a Hero, TurnScheduler
+ * or listener in sight. Every battle starts from a copy of the prototype columns made once from the parties, and the
+ * working columns are reused from battle to battle, so a battle allocates nothing. Every turn reads and writes the battle
+ * through BattleUnits alone, so start and step can also play battles kept somewhere else, i.e off the heap in a BattleArena.
+ *
+ * The battle follows the engine's rules where they live in this tree: the acting unit is the living unit in the
+ * earliest round, fastest first and then by seat as in TurnScheduler, offensive commands deal their damage less the
+ * target's defense and never less than 1, and a party is defeated once every unit in it is dead. Statuses tick at the
+ * start of their unit's turn by kind: crowd control skips the turn, a per turn status adds its strength to its stat every
+ * turn, and a held status adds its strength when applied and takes it back when it runs out. A status is kept with the
+ * round of its unit it runs out at and each unit with the rounds its statuses are next due at, see BattleUnits, so a turn
+ * with nothing due is a few comparisons. On a turn where something is due, a status running out or a per turn status
+ * acting, every one of the unit's STATUS_SLOTS slots is walked, which with Poison on the unit is every turn.
+ *
+ * The human side plays the GreedyTurnPolicy's choice. The AI side plays AI.scan: the item checks with its monsters'
+ * thresholds and chances, then each monster's archetype ladder from the command table, see HeroColumns.Ladder, choosing
+ * targets the way PartyRankings does. The ladders are the archetypes' own SelectionLadders and every value is drawn
+ * through RandomGenerator from the battle's random source stepped as BattleRandom steps, in the order the AI draws it,
+ * so a battle on columns takes the same turns as BattleSimulator's battle of the same seed and parties as long as every
+ * status behaves as its kind above and items are used as useItem uses them. HeroColumns.of turns down an AI side hero that
+ * isn't one of the archetypes or searches for its commands.
+ * @author Kevin
+ *
+ */
+public class ColumnarBattle {
+	// Statuses hold the round they run out at in 16 bits, a round plus a duration must fit
+	public static final int MAX_TURN_LIMIT = 0x7FFF;
+	private static final Stat[] STATS = Stat.values();
+	private final HeroColumns prototype;
+	private final HeroColumns.CommandTable commands;
+	private final HeroColumns working;
+	// The battle being played, working unless a BattleUnits was passed in
+	private BattleUnits units;
+	// Draws from the units' random state
+	private final RandomGenerator random = new UnitsRandom();
+	// Lane the offensive command of the battle being stepped is left in, null to use it at once
+	private DamageLane lane;
+	private int laneBattle;
+
+	/**
+	 * Create a battle of the parties in a set of columns.
+	 * @param prototype: the columns every battle starts from, never changed
+	 */
+	public ColumnarBattle(HeroColumns prototype)
+	{
+		this.prototype = prototype;
+		this.commands = prototype.getCommands();
+		this.working = prototype.emptyCopy();
+		this.units = working;
+	}
+
+	/**
+	 * Play one battle from the prototype columns to the end or the turn limit.
+	 * @param seed: seed of the battle's random source
+	 * @param turnLimit: turns after which the battle is called a draw
+	 * @param report: report to record the battle and its commands in, may be null
+	 * @return the outcome of the battle
+	 */
+	public BattleOutcome play(long seed, int turnLimit, SimulationReport report)
+	{
+		start(working, seed);
+		while(step(working, turnLimit, report))
+		{
+		}
+		if(report != null)
+		{
+			report.recordBattle(working.getOutcome(), working.getTurnCount());
+		}
+		return working.getOutcome();
+	}
+
+	/**
+	 * Play a batch of battles, each seeded like BattleSimulator seeds them.
+	 * @param battles: number of battles to play
+	 * @param seed: batch seed
+	 * @param turnLimit: turns after which a battle is called a draw
+	 * @return the results of every battle
+	 */
+	public SimulationReport simulate(int battles, long seed, int turnLimit)
+	{
+		SimulationReport report = new SimulationReport(turnLimit);
+		for(int i = 0; i < battles; i++)
+		{
+			play(BattleSimulator.battleSeed(seed, i), turnLimit, report);
+		}
+		return report;
+	}
+
+	/**
+	 * Start a battle from the prototype columns in a storage of the same size.
+	 * @param battle: storage to play the battle in, i.e a selected BattleArena slot
+	 * @param seed: seed of the battle's random source
+	 */
+	public void start(BattleUnits battle, long seed)
+	{
+		units = battle;
+		units.load(prototype);
+		for(int unit = 0; unit < units.size(); unit++)
+		{
+			if(units.getHealth(unit) > 0)
+			{
+				byte side = units.getSide(unit);
+				units.setAliveCount(side, units.getAliveCount(side) + 1);
+			}
+			// Every unit is in round 0, so the remaining durations the prototype holds are the rounds its statuses run out at
+			units.setNextExpiry(unit, Integer.MAX_VALUE);
+			units.setPerTurnUntil(unit, 0);
+			units.setCrowdControlUntil(unit, 0);
+			for(int slot = 0; slot < units.getStatusCount(unit); slot++)
+			{
+				schedule(unit, units.getStatus(unit, slot));
+			}
+		}
+		units.setRandomState(seed);
+		checkOutcome();
+	}
+
+	/**
+	 * Play the next turn of a started battle, or call it a draw if it has reached the turn limit. Every turn is played
+	 * from the state in the storage alone, so any number of battles can be stepped in turns.
+	 * @param battle: storage the battle was started in
+	 * @param turnLimit: turns after which the battle is called a draw, at most MAX_TURN_LIMIT
+	 * @param report: report to record the command in, may be null
+	 * @return true if a turn was played, false once the battle is over
+	 */
+	public boolean step(BattleUnits battle, int turnLimit, SimulationReport report)
+	{
+		if(turnLimit > MAX_TURN_LIMIT)
+		{
+			throw new IllegalArgumentException("Turn limit " + turnLimit + " is over " + MAX_TURN_LIMIT);
+		}
+		units = battle;
+		if(units.getOutcome() != BattleOutcome.IN_PROGRESS)
+		{
+			return false;
+		}
+		if(units.getTurnCount() >= turnLimit)
+		{
+			units.setOutcome(BattleOutcome.DRAW);
+			return false;
+		}
+		int actor = nextActor();
+		units.setRound(actor, units.getRound(actor) + 1);
+		takeTurn(actor, report);
+		units.setTurnCount(units.getTurnCount() + 1);
+		return true;
+	}
+
+	/**
+	 * Play the next turn of a started battle as step does, but leave an offensive command in a lane of battles instead
+	 * of using it, for resolveLane to resolve its damage together with the other battles'. Whatever the turn does before
+	 * the command is done here, and nothing in the battle happens after it until resolveLane.
+	 * @param battle: storage the battle was started in
+	 * @param turnLimit: turns after which the battle is called a draw, at most MAX_TURN_LIMIT
+	 * @param report: report to record the command in if it isn't offensive, may be null
+	 * @param lane: lane the offensive command is added to
+	 * @param index: index of the battle, resolveLane hands it back to find the battle's storage
+	 * @return true if a turn was played, false once the battle is over
+	 */
+	boolean step(BattleUnits battle, int turnLimit, SimulationReport report, DamageLane lane, int index)
+	{
+		this.lane = lane;
+		this.laneBattle = index;
+		try
+		{
+			return step(battle, turnLimit, report);
+		}
+		finally
+		{
+			this.lane = null;
+		}
+	}
+
+	/**
+	 * Resolve the damage of every command in a lane at once with OffensiveAbility.resolveDamage, then use each command
+	 * in its battle, and empty the lane.
+	 * @param lane: lane filled by step
+	 * @param battles: gives the storage of the battle of an index passed to step
+	 * @param report: report to record the commands in, may be null
+	 */
+	void resolveLane(DamageLane lane, IntFunction<BattleUnits> battles, SimulationReport report)
+	{
+		OffensiveAbility.resolveDamage(lane.damage, lane.defenses, lane.done, 0, lane.size);
+		for(int i = 0; i < lane.size; i++)
+		{
+			units = battles.apply(lane.battles[i]);
+			applyCommand(lane.actors[i], lane.commands[i], lane.targets[i], lane.done[i], report);
+		}
+		lane.size = 0;
+	}
+
+	/**
+	 * Find the living unit that acts next: earliest round, then fastest, then lowest seat.
+	 */
+	private int nextActor()
+	{
+		int best = -1;
+		int bestRound = 0;
+		int bestSpeed = 0;
+		for(int unit = 0; unit < units.size(); unit++)
+		{
+			if(units.getHealth(unit) <= 0)
+			{
+				continue;
+			}
+			int round = units.getRound(unit);
+			int speed = units.getSpeed(unit);
+			if(best < 0 || round < bestRound
+					|| (round == bestRound && (speed > bestSpeed
+					|| (speed == bestSpeed && units.getSeat(unit) < units.getSeat(best)))))
+			{
+				best = unit;
+				bestRound = round;
+				bestSpeed = speed;
+			}
+		}
+		return best;
+	}
+
+	private void takeTurn(int actor, SimulationReport report)
+	{
+		boolean crowdControlled = tickStatuses(actor);
+		if(crowdControlled || units.getHealth(actor) <= 0)
+		{
+			return;
+		}
+		if(units.getSide(actor) == HeroColumns.HUMAN_SIDE)
+		{
+			int command = greedyCommand(actor);
+			if(command >= 0)
+			{
+				useCommand(actor, command, weakestEnemy(actor), report);
+			}
+		}
+		else
+		{
+			aiTurn(actor, commands.ladders.get(prototype.getLadder(actor)), report);
+		}
+	}
+
+	/**
+	 * Use a command, paying for it and dealing its damage and status to the target, or its status to the user if it isn't
+	 * offensive. An offensive command without a target costs the unit its turn. Stepped in a lane, an offensive command
+	 * is left in the lane with its damage and the target's defense.
+	 */
+	private void useCommand(int actor, int command, int target, SimulationReport report)
+	{
+		if(!commands.offensive[command])
+		{
+			target = actor;
+		}
+		else if(target < 0)
+		{
+			return;
+		}
+		else if(lane != null)
+		{
+			lane.add(laneBattle, actor, command, target, commands.damage[command], units.getDefense(target));
+			return;
+		}
+		applyCommand(actor, command, target,
+				commands.offensive[command] ? Math.max(1, commands.damage[command] - units.getDefense(target)) : 0, report);
+	}
+
+	/**
+	 * Pay for a command and deal its resolved damage and status to its target.
+	 */
+	private void applyCommand(int actor, int command, int target, int damageDone, SimulationReport report)
+	{
+		units.setAbilityPoints(actor, units.getAbilityPoints(actor) - commands.costs[command]);
+		if(commands.offensive[command])
+		{
+			setHealth(target, units.getHealth(target) - damageDone);
+		}
+		if(commands.applies[command] != HeroColumns.NO_STATUS)
+		{
+			addStatus(target, commands.applies[command]);
+		}
+		if(report != null)
+		{
+			report.recordCommand(commands.names[command]);
+		}
+	}
+
+	/**
+	 * The GreedyTurnPolicy's choice: the most damaging affordable offensive command, else the first affordable other one.
+	 */
+	private int greedyCommand(int actor)
+	{
+		int best = -1;
+		int fallback = -1;
+		int abilityPoints = units.getAbilityPoints(actor);
+		int end = units.getCommandStart(actor) + units.getCommandCount(actor);
+		for(int command = units.getCommandStart(actor); command < end; command++)
+		{
+			if(commands.costs[command] > abilityPoints)
+			{
+				continue;
+			}
+			if(commands.offensive[command])
+			{
+				if(best < 0 || commands.damage[command] > commands.damage[best])
+				{
+					best = command;
+				}
+			}
+			else if(fallback < 0)
+			{
+				fallback = command;
+			}
+		}
+		return best >= 0 && weakestEnemy(actor) >= 0 ? best : fallback;
+	}
+
+	/**
+	 * AI.scan on columns: the item checks in the AI's order, then the unit's ladder. The heal and ability point checks
+	 * draw only once their threshold is met and the cure check once the unit has a status, as AI.scan's do.
+	 */
+	private void aiTurn(int actor, HeroColumns.Ladder ladder, SimulationReport report)
+	{
+		if((double) units.getHealth(actor) / prototype.getMaxHealth(actor) <= ladder.healRange
+				&& random.nextDouble() < ladder.healChance && commands.healthItem >= 0)
+		{
+			useItem(actor, commands.healthItem, report);
+			return;
+		}
+		if(units.getStatusCount(actor) != 0 && random.nextDouble() < ladder.cureChance)
+		{
+			int item = cureItem(actor);
+			if(item >= 0)
+			{
+				useItem(actor, item, report);
+				return;
+			}
+		}
+		// AI.scan checks the heal chance for ability point items as well
+		if((double) units.getAbilityPoints(actor) / prototype.getMaxAbilityPoints(actor) <= ladder.recoverRange
+				&& random.nextDouble() < ladder.healChance && commands.abilityItem >= 0)
+		{
+			useItem(actor, commands.abilityItem, report);
+			return;
+		}
+
+		int command = -1;
+		int target = -1;
+		SelectionLadder.Rung rung = countAffordable(actor, -1) < 2 ? null : ladder.selection.select(random.nextDouble());
+		if(rung != null)
+		{
+			command = pickAffordable(actor, rung.getCategory());
+			if(command < 0 && rung.getAlternative() != null)
+			{
+				command = pickAffordable(actor, rung.getAlternative());
+			}
+			if(rung.getTargetStat() != null)
+			{
+				target = rung.isCrowdControlledFirst() ? crowdControlledEnemy(actor) : -1;
+				if(target < 0)
+				{
+					target = selectEnemy(actor, rung.getTargetStat(), rung.isTargetLowest());
+				}
+			}
+		}
+		if(command < 0)
+		{
+			command = ladder.baseAttack;
+			target = selectEnemy(actor, ladder.selection.getBaseStat(), ladder.selection.isBaseLowest());
+		}
+		useCommand(actor, command, target, report);
+	}
+
+	/**
+	 * Count a unit's affordable commands of a category, or all of them for category -1.
+	 */
+	private int countAffordable(int actor, int category)
+	{
+		int affordable = 0;
+		int abilityPoints = units.getAbilityPoints(actor);
+		int mask = category < 0 ? -1 : 1 << category;
+		int end = units.getCommandStart(actor) + units.getCommandCount(actor);
+		for(int command = units.getCommandStart(actor); command < end; command++)
+		{
+			if(commands.costs[command] <= abilityPoints && (commands.categories[command] & mask) != 0)
+			{
+				affordable ++;
+			}
+		}
+		return affordable;
+	}
+
+	/**
+	 * Pick a random affordable command of a category like AbilityIndex.pickAffordable, drawing only if there is one.
+	 */
+	private int pickAffordable(int actor, AbilityCategory category)
+	{
+		int count = countAffordable(actor, category.ordinal());
+		if(count == 0)
+		{
+			return -1;
+		}
+		int pick = random.nextInt(count);
+		int abilityPoints = units.getAbilityPoints(actor);
+		int mask = 1 << category.ordinal();
+		int end = units.getCommandStart(actor) + units.getCommandCount(actor);
+		for(int command = units.getCommandStart(actor); command < end; command++)
+		{
+			if(commands.costs[command] <= abilityPoints && (commands.categories[command] & mask) != 0 && pick-- == 0)
+			{
+				return command;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The living enemy with the lowest health, the first unit on a tie.
+	 */
+	private int weakestEnemy(int actor)
+	{
+		return selectEnemy(actor, Stat.HEALTH, true);
+	}
+
+	/**
+	 * The living enemy with the lowest or highest stat, the first unit on a tie as PartyRankings.select breaks ties by
+	 * party order.
+	 */
+	private int selectEnemy(int actor, Stat stat, boolean lowest)
+	{
+		int best = -1;
+		int bestValue = 0;
+		byte side = units.getSide(actor);
+		for(int unit = 0; unit < units.size(); unit++)
+		{
+			if(units.getSide(unit) == side || units.getHealth(unit) <= 0)
+			{
+				continue;
+			}
+			int value = getStat(unit, stat);
+			if(best < 0 || (lowest ? value < bestValue : value > bestValue))
+			{
+				best = unit;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * A random living crowd controlled enemy like PartyRankings.selectByCrowdControl, drawing only if there is one.
+	 */
+	private int crowdControlledEnemy(int actor)
+	{
+		byte side = units.getSide(actor);
+		int count = 0;
+		for(int unit = 0; unit < units.size(); unit++)
+		{
+			if(units.getSide(unit) != side && units.getHealth(unit) > 0 && isCrowdControlled(unit))
+			{
+				count ++;
+			}
+		}
+		if(count == 0)
+		{
+			return -1;
+		}
+		int pick = random.nextInt(count);
+		for(int unit = 0; unit < units.size(); unit++)
+		{
+			if(units.getSide(unit) != side && units.getHealth(unit) > 0 && isCrowdControlled(unit) && pick-- == 0)
+			{
+				return unit;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Does a unit hold a crowd control status? One is held until the turn it skips last, the turn it is dropped on.
+	 */
+	private boolean isCrowdControlled(int unit)
+	{
+		return units.getCrowdControlUntil(unit) > units.getRound(unit);
+	}
+
+	private int getStat(int unit, Stat stat)
+	{
+		switch(stat)
+		{
+			case HEALTH:
+				return units.getHealth(unit);
+			case ABILITY_POINTS:
+				return units.getAbilityPoints(unit);
+			case DEFENSE_RATING:
+				return units.getDefense(unit);
+			case SPEED:
+				return units.getSpeed(unit);
+			default:
+				throw new IllegalArgumentException("Unknown stat " + stat);
+		}
+	}
+
+	/**
+	 * Pick a random item curing one of a unit's statuses like AI.setStatusCure, one match per status and item, drawing
+	 * only if there is one.
+	 */
+	private int cureItem(int unit)
+	{
+		int matches = 0;
+		for(int slot = 0; slot < units.getStatusCount(unit); slot++)
+		{
+			matches += curesOf(unit, slot, -1);
+		}
+		if(matches == 0)
+		{
+			return -1;
+		}
+		int pick = random.nextInt(matches);
+		for(int slot = 0; slot < units.getStatusCount(unit); slot++)
+		{
+			int count = curesOf(unit, slot, -1);
+			if(pick < count)
+			{
+				return curesOf(unit, slot, pick);
+			}
+			pick -= count;
+		}
+		return -1;
+	}
+
+	/**
+	 * Count the items curing a unit's status, or with nth at 0 or more find the nth of them.
+	 */
+	private int curesOf(int unit, int slot, int nth)
+	{
+		String name = prototype.statusName(units.getStatus(unit, slot));
+		int count = 0;
+		for(int item = 0; item < commands.itemNames.length; item++)
+		{
+			if(commands.itemKinds[item] == HeroColumns.STATUS_ITEM && name.equals(commands.itemCures[item]))
+			{
+				if(count == nth)
+				{
+					return item;
+				}
+				count ++;
+			}
+		}
+		return nth < 0 ? count : -1;
+	}
+
+	/**
+	 * Use an item on a unit. A health or ability point item raises its stat by the item's strength up to the unit's
+	 * maximum and can't be used at the maximum, a status item takes every status it cures off the unit. An item that
+	 * can't be used costs the unit its turn. Items stay in the inventory.
+	 */
+	private void useItem(int unit, int item, SimulationReport report)
+	{
+		switch(commands.itemKinds[item])
+		{
+			case HeroColumns.HEALTH_ITEM:
+				if(units.getHealth(unit) >= prototype.getMaxHealth(unit))
+				{
+					return;
+				}
+				setHealth(unit, Math.min(prototype.getMaxHealth(unit), units.getHealth(unit) + commands.itemStrengths[item]));
+				break;
+			case HeroColumns.ABILITY_ITEM:
+				if(units.getAbilityPoints(unit) >= prototype.getMaxAbilityPoints(unit))
+				{
+					return;
+				}
+				units.setAbilityPoints(unit, Math.min(prototype.getMaxAbilityPoints(unit),
+						units.getAbilityPoints(unit) + commands.itemStrengths[item]));
+				break;
+			default:
+				cure(unit, commands.itemCures[item]);
+				break;
+		}
+		if(report != null)
+		{
+			report.recordCommand(commands.itemNames[item]);
+		}
+	}
+
+	/**
+	 * Take every status of a name off a unit, handing back what a held one changed, and work out again the rounds its
+	 * remaining statuses are due at.
+	 */
+	private void cure(int unit, String name)
+	{
+		int kept = 0;
+		units.setNextExpiry(unit, Integer.MAX_VALUE);
+		units.setPerTurnUntil(unit, 0);
+		units.setCrowdControlUntil(unit, 0);
+		for(int slot = 0; slot < units.getStatusCount(unit); slot++)
+		{
+			long status = units.getStatus(unit, slot);
+			if(!name.equals(prototype.statusName(status)))
+			{
+				units.setStatus(unit, kept++, status);
+				schedule(unit, status);
+			}
+			else if(HeroColumns.kind(status) == HeroColumns.HELD)
+			{
+				changeStat(unit, HeroColumns.stat(status), -HeroColumns.strength(status));
+			}
+		}
+		units.setStatusCount(unit, kept);
+	}
+
+	/**
+	 * Tick the statuses of a unit whose round was just counted up. The statuses are only visited if one runs out this
+	 * turn or a per turn status is acting, then every status is ticked oldest first and those that run out are dropped,
+	 * up to STATUS_SLOTS of them; on any other turn there is nothing for them to do but be a turn closer to their round.
+	 * @return true if a crowd control status is acting
+	 */
+	private boolean tickStatuses(int unit)
+	{
+		int round = units.getRound(unit);
+		boolean crowdControlled = round <= units.getCrowdControlUntil(unit);
+		if(round < units.getNextExpiry(unit) && round > units.getPerTurnUntil(unit))
+		{
+			return crowdControlled;
+		}
+		int count = units.getStatusCount(unit);
+		int kept = 0;
+		int nextExpiry = Integer.MAX_VALUE;
+		int perTurnUntil = 0;
+		for(int i = 0; i < count; i++)
+		{
+			long status = units.getStatus(unit, i);
+			int kind = HeroColumns.kind(status);
+			int expiry = HeroColumns.duration(status);
+			if(kind == HeroColumns.PER_TURN)
+			{
+				changeStat(unit, HeroColumns.stat(status), HeroColumns.strength(status));
+			}
+			if(expiry > round)
+			{
+				units.setStatus(unit, kept++, status);
+				nextExpiry = Math.min(nextExpiry, expiry);
+				if(kind == HeroColumns.PER_TURN)
+				{
+					perTurnUntil = Math.max(perTurnUntil, expiry);
+				}
+			}
+			else if(kind == HeroColumns.HELD)
+			{
+				changeStat(unit, HeroColumns.stat(status), -HeroColumns.strength(status));
+			}
+		}
+		units.setStatusCount(unit, kept);
+		units.setNextExpiry(unit, nextExpiry);
+		units.setPerTurnUntil(unit, perTurnUntil);
+		return crowdControlled;
+	}
+
+	/**
+	 * Apply a status to a unit, dropped if the unit has no free status slot. The status is stored with the round it runs
+	 * out at instead of its duration.
+	 */
+	private void addStatus(int unit, long status)
+	{
+		int count = units.getStatusCount(unit);
+		if(count == HeroColumns.STATUS_SLOTS || units.getHealth(unit) <= 0)
+		{
+			return;
+		}
+		long applied = HeroColumns.withDuration(status, units.getRound(unit) + HeroColumns.duration(status));
+		units.setStatus(unit, count, applied);
+		units.setStatusCount(unit, count + 1);
+		schedule(unit, applied);
+		if(HeroColumns.kind(status) == HeroColumns.HELD)
+		{
+			changeStat(unit, HeroColumns.stat(status), HeroColumns.strength(status));
+		}
+	}
+
+	/**
+	 * Count a status in with the rounds its unit's statuses are next due at. Every status ticks at least once, on the
+	 * unit's next turn, however short it is.
+	 */
+	private void schedule(int unit, long status)
+	{
+		int expiry = HeroColumns.duration(status);
+		int lastRound = Math.max(expiry, units.getRound(unit) + 1);
+		units.setNextExpiry(unit, Math.min(units.getNextExpiry(unit), expiry));
+		if(HeroColumns.kind(status) == HeroColumns.PER_TURN)
+		{
+			units.setPerTurnUntil(unit, Math.max(units.getPerTurnUntil(unit), lastRound));
+		}
+		else if(HeroColumns.kind(status) == HeroColumns.CROWD_CONTROL)
+		{
+			units.setCrowdControlUntil(unit, Math.max(units.getCrowdControlUntil(unit), lastRound));
+		}
+	}
+
+	private void changeStat(int unit, int stat, int amount)
+	{
+		if(stat == HeroColumns.NO_STAT)
+		{
+			return;
+		}
+		switch(STATS[stat])
+		{
+			case HEALTH:
+				setHealth(unit, units.getHealth(unit) + amount);
+				break;
+			case ABILITY_POINTS:
+				units.setAbilityPoints(unit, units.getAbilityPoints(unit) + amount);
+				break;
+			case DEFENSE_RATING:
+				units.setDefense(unit, units.getDefense(unit) + amount);
+				break;
+			case SPEED:
+				units.setSpeed(unit, units.getSpeed(unit) + amount);
+				break;
+		}
+	}
+
+	/**
+	 * Set a unit's health, counting it out of or back into its side and ending the battle if a side is wiped out.
+	 */
+	private void setHealth(int unit, int health)
+	{
+		boolean wasAlive = units.getHealth(unit) > 0;
+		units.setHealth(unit, health);
+		if(wasAlive != health > 0)
+		{
+			byte side = units.getSide(unit);
+			units.setAliveCount(side, units.getAliveCount(side) + (wasAlive ? -1 : 1));
+			checkOutcome();
+		}
+	}
+
+	private void checkOutcome()
+	{
+		if(units.getOutcome() != BattleOutcome.IN_PROGRESS)
+		{
+			return;
+		}
+		if(units.getAliveCount(HeroColumns.HUMAN_SIDE) == 0)
+		{
+			units.setOutcome(BattleOutcome.AI_VICTORY);
+		}
+		else if(units.getAliveCount(HeroColumns.AI_SIDE) == 0)
+		{
+			units.setOutcome(BattleOutcome.HUMAN_VICTORY);
+		}
+	}
+
+	/**
+	 * The offensive commands of a sweep of battles, one a battle, laid out as columns so their damage is resolved in one
+	 * loop over the lane.
+	 */
+	static final class DamageLane {
+		private final int[] battles;
+		private final int[] actors;
+		private final int[] commands;
+		private final int[] targets;
+		private final int[] damage;
+		private final int[] defenses;
+		private final int[] done;
+		private int size = 0;
+
+		/**
+		 * Create a lane.
+		 * @param capacity: most battles stepped into it between resolves
+		 */
+		DamageLane(int capacity)
+		{
+			battles = new int[capacity];
+			actors = new int[capacity];
+			commands = new int[capacity];
+			targets = new int[capacity];
+			damage = new int[capacity];
+			defenses = new int[capacity];
+			done = new int[capacity];
+		}
+
+		private void add(int battle, int actor, int command, int target, int commandDamage, int defense)
+		{
+			battles[size] = battle;
+			actors[size] = actor;
+			commands[size] = command;
+			targets[size] = target;
+			damage[size] = commandDamage;
+			defenses[size] = defense;
+			size ++;
+		}
+	}
+
+	/**
+	 * The battle's random source as a RandomGenerator, the SplitMix64 state kept with the battle stepped the way
+	 * BattleRandom.nextLong steps its own. nextDouble and nextInt are RandomGenerator's, as BattleRandom's are, so every
+	 * value is drawn the way a monster draws it.
+	 */
+	private final class UnitsRandom implements RandomGenerator {
+		@Override
+		public long nextLong()
+		{
+			long state = units.getRandomState() + BattleRandom.GOLDEN_GAMMA;
+			units.setRandomState(state);
+			return BattleRandom.mix(state);
+		}
+	}
+
+	/**
+	 * Get the columns of the last battle played by play, as it is now or as it ended.
+	 * @return the working columns
+	 */
+	public HeroColumns getUnits()
+	{
+		return working;
+	}
+
+	public int getTurnCount()
+	{
+		return working.getTurnCount();
+	}
+
+	public BattleOutcome getOutcome()
+	{
+		return working.getOutcome();
+	}
+
+	/**
+	 * Simulate the default parties on columns from the command line: battles and seed, defaulting to 20000 battles.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		int battles = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+		HeroColumns prototype = HeroColumns.of(new HumanPlayer(), new AI());
+		ColumnarBattle battle = new ColumnarBattle(prototype);
+		long start = System.nanoTime();
+		SimulationReport report = battle.simulate(battles, seed, BattleEngine.DEFAULT_TURN_LIMIT);
+		double ms = (System.nanoTime() - start) / 1e6;
+		System.out.println(report);
+		System.out.println(String.format("%.1f ms, %d bytes of columns per battle", ms, prototype.footprintBytes()));
+	}
+}
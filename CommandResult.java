@@ -0,0 +1,56 @@
+package BattleCommands;
+
+import RPG_Exceptions.BattleModelException;
+import RPG_Exceptions.MaximumStatException;
+import RPG_Exceptions.NotAfflictedWithStatusException;
+import RPG_Exceptions.NotEnoughAbilityPointsException;
+
+/**
+ * Result of validating or trying a BattleCommand with BattleCommand.validate and BattleCommand.tryUse.
+ * The AI, simulations and searches check these codes instead of catching exceptions, which are costly to fill in
+ * when thrown every few turns of a search. The GUI keeps using useBattleCommand and its exceptions to signal errors.
+ * @author Kevin
+ *
+ */
+public enum CommandResult {
+	SUCCESS,
+	// The hero doesn't have the ability points for the command
+	NOT_ENOUGH_ABILITY_POINTS,
+	// The command would not change the stat it affects
+	MAXIMUM_STAT,
+	// The hero doesn't have the status the command cures
+	NOT_AFFLICTED_WITH_STATUS,
+	// Any other reason the command could not be used
+	FAILED;
+
+	/**
+	 * Did the command go through?
+	 * @return true for SUCCESS
+	 */
+	public boolean isSuccess()
+	{
+		return this == SUCCESS;
+	}
+
+	/**
+	 * Get the result matching an exception thrown by useBattleCommand, for commands with no validate of their own.
+	 * @param exception: exception thrown by the command
+	 * @return the matching result
+	 */
+	public static CommandResult of(BattleModelException exception)
+	{
+		if(exception instanceof NotEnoughAbilityPointsException)
+		{
+			return NOT_ENOUGH_ABILITY_POINTS;
+		}
+		if(exception instanceof MaximumStatException)
+		{
+			return MAXIMUM_STAT;
+		}
+		if(exception instanceof NotAfflictedWithStatusException)
+		{
+			return NOT_AFFLICTED_WITH_STATUS;
+		}
+		return FAILED;
+	}
+}
@@ -0,0 +1,24 @@
+package Heros;
+
+import java.util.Collection;
+import java.util.random.RandomGenerator;
+
+import PartyContainers.AiBattleReturnType;
+
+/**
+ * Search based decision a Monster can opt into with Monster.setCommandSearch, used instead of the monster's own
+ * selectCommand ladder when the AI picks its command.
+ * @author Andrew
+ *
+ */
+public interface CommandSearch {
+
+	/**
+	 * Select the command and target for the acting monster.
+	 * @param monster: current acting monster, its statuses have already been updated this turn
+	 * @param playerParty: the opposing party
+	 * @param random: the battle's random source
+	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use.
+	 */
+	public AiBattleReturnType selectCommand(Monster monster, Collection<Hero> playerParty, RandomGenerator random);
+}
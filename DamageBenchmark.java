@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import BattleCommands.OffensiveAbility;
+
+/**
+ * Benchmark of resolving one ability's damage against a batch of defense ratings, the batch loop against the scalar one.
+ * @author Kevin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DamageBenchmark {
+	@Param({"1024", "65536"})
+	public int batchSize;
+
+	private int[] defenseRatings;
+	private int[] damageDone;
+
+	@Setup
+	public void setUp()
+	{
+		SplittableRandom random = new SplittableRandom(1);
+		defenseRatings = new int[batchSize];
+		damageDone = new int[batchSize];
+		for(int i = 0; i < batchSize; i++)
+		{
+			defenseRatings[i] = random.nextInt(-5, 20);
+		}
+	}
+
+	@Benchmark
+	public int[] resolveDamage()
+	{
+		OffensiveAbility.resolveDamage(10, defenseRatings, damageDone, 0, batchSize);
+		return damageDone;
+	}
+
+	@Benchmark
+	public int[] resolveDamageScalar()
+	{
+		OffensiveAbility.resolveDamageScalar(10, defenseRatings, damageDone, 0, batchSize);
+		return damageDone;
+	}
+}
@@ -0,0 +1,18 @@
+package BattleCommands;
+
+/**
+ * Listener notified when an OffensiveAbility's damage is changed, used to keep battle bookkeeping such as the
+ * DamageMatrix up to date without reading every ability again.
+ * @author Kevin
+ *
+ */
+public interface DamageListener {
+
+	/**
+	 * Called after the ability's damage changed value.
+	 * @param ability: ability whose damage changed
+	 * @param oldDamage: damage before the change
+	 * @param newDamage: damage after the change
+	 */
+	public void damageChanged(OffensiveAbility ability, int oldDamage, int newDamage);
+}
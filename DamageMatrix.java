@@ -0,0 +1,374 @@
+package Heros;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import BattleCommands.Ability;
+import BattleCommands.DamageListener;
+import BattleCommands.OffensiveAbility;
+
+/**
+ * Damage every offensive ability of every hero in a battle does to every hero on the other side, looked up instead of
+ * worked out for each candidate target. A row is one ability of one attacker, a monster's base attack included, and a
+ * column is one target, every entry being what OffensiveAbility.evaluateDamage would give.
+ *
+ * The matrix listens to the heroes' defense ratings and to the abilities' damage: a change only marks the target's column
+ * or the ability's row stale, and a stale column or row is worked out again the next time the matrix is read, so statuses
+ * that raise and lower defense every turn cost nothing until a query needs that target.
+ *
+ * The threat to each target is kept too, and only looked for again once the target's column or the other side changed:
+ * an attacker's row damage, an attacker dying or being revived, or an attacker's ability points crossing the cost of
+ * one of its abilities. BattleEvaluation scores the threat to every hero at the leaves of a search with it.
+ * @author Kevin
+ *
+ */
+public class DamageMatrix implements HeroListener, DamageListener {
+	private final Hero[] heroes;
+	private final IdentityHashMap<Hero, Integer> units = new IdentityHashMap<Hero, Integer>();
+	private final boolean[] firstSide;
+	// The rows of a hero are rowStart[unit] to rowStart[unit + 1]
+	private final int[] rowStart;
+	// The unit each row belongs to
+	private final int[] rowUnit;
+	private final OffensiveAbility[] abilities;
+	private final int[] abilityDamage;
+	private final int[] defenseRatings;
+	// damage[row][unit] is the damage the row's ability does to the hero in the unit
+	private final int[][] damage;
+	private final long[] stale;
+	private final long[] staleRows;
+	private boolean rowsStale = false;
+	// threat[unit] is the threat to the unit as of the attackers' side version threatVersion[unit], -1 if never worked out
+	private final int[] threat;
+	private final long[] threatVersion;
+	// Bumped whenever anything the threat to the other side depends on changes, index 0 is the first side
+	private final long[] sideVersion = new long[2];
+
+	/**
+	 * Work out the damage matrix of a battle and start listening to its heroes.
+	 * @param first: one side's heroes
+	 * @param second: the other side's heroes
+	 */
+	public DamageMatrix(Collection<Hero> first, Collection<Hero> second)
+	{
+		ArrayList<Hero> all = new ArrayList<Hero>(first);
+		all.addAll(second);
+		this.heroes = all.toArray(new Hero[0]);
+		this.firstSide = new boolean[heroes.length];
+		this.rowStart = new int[heroes.length + 1];
+		this.defenseRatings = new int[heroes.length];
+		this.stale = new long[(heroes.length + 63) >>> 6];
+		this.threat = new int[heroes.length];
+		this.threatVersion = new long[heroes.length];
+		Arrays.fill(threatVersion, -1);
+		ArrayList<OffensiveAbility> rows = new ArrayList<OffensiveAbility>();
+		for(int unit = 0; unit < heroes.length; unit++)
+		{
+			Hero hero = heroes[unit];
+			units.put(hero, unit);
+			firstSide[unit] = unit < first.size();
+			defenseRatings[unit] = hero.getDefenseRating();
+			rowStart[unit] = rows.size();
+			for(Ability ability : hero.getAbilities().values())
+			{
+				if(ability instanceof OffensiveAbility)
+				{
+					rows.add((OffensiveAbility) ability);
+				}
+			}
+			if(hero instanceof Monster)
+			{
+				OffensiveAbility baseAttack = ((Monster) hero).getBaseAttack();
+				if(baseAttack != null && !hero.getAbilities().containsValue(baseAttack))
+				{
+					rows.add(baseAttack);
+				}
+			}
+			hero.addListener(this);
+		}
+		rowStart[heroes.length] = rows.size();
+		this.abilities = rows.toArray(new OffensiveAbility[0]);
+		this.rowUnit = new int[abilities.length];
+		this.abilityDamage = new int[abilities.length];
+		this.damage = new int[abilities.length][heroes.length];
+		this.staleRows = new long[(abilities.length + 63) >>> 6];
+		for(int unit = 0; unit < heroes.length; unit++)
+		{
+			Arrays.fill(rowUnit, rowStart[unit], rowStart[unit + 1], unit);
+		}
+		for(int row = 0; row < abilities.length; row++)
+		{
+			abilityDamage[row] = abilities[row].getDamage();
+			OffensiveAbility.resolveDamage(abilityDamage[row], defenseRatings, damage[row], 0, heroes.length);
+			// Copies of a hero share their abilities, so an ability can be in more than one row
+			if(firstRow(abilities[row]) == row)
+			{
+				abilities[row].addDamageListener(this);
+			}
+		}
+	}
+
+	/**
+	 * Get the damage an attacker's ability does to a target.
+	 * @param attacker: hero using the ability
+	 * @param ability: one of the attacker's offensive abilities, or a monster's base attack
+	 * @param target: hero on the other side
+	 * @return the damage done, as evaluateDamage gives it
+	 * @throws IllegalArgumentException if the ability isn't the attacker's
+	 */
+	public int getDamage(Hero attacker, OffensiveAbility ability, Hero target)
+	{
+		int unit = units.get(attacker);
+		int column = column(target);
+		for(int row = rowStart[unit]; row < rowStart[unit + 1]; row++)
+		{
+			if(abilities[row] == ability)
+			{
+				return damage[row][column];
+			}
+		}
+		throw new IllegalArgumentException(ability + " is not an offensive ability of " + attacker.getName());
+	}
+
+	/**
+	 * Get the most damage an attacker can do to a target with one ability it has the ability points for.
+	 * @param attacker: acting hero
+	 * @param target: hero on the other side
+	 * @return the damage done, 0 if the attacker can't afford any offensive ability
+	 */
+	public int getBestDamage(Hero attacker, Hero target)
+	{
+		return bestDamage(units.get(attacker), column(target));
+	}
+
+	/**
+	 * Get the most damaging ability an attacker has the ability points for against a target.
+	 * @param attacker: acting hero
+	 * @param target: hero on the other side
+	 * @return the ability, null if the attacker can't afford any offensive ability
+	 */
+	public OffensiveAbility getBestAbility(Hero attacker, Hero target)
+	{
+		int unit = units.get(attacker);
+		int column = column(target);
+		int best = -1;
+		for(int row = rowStart[unit]; row < rowStart[unit + 1]; row++)
+		{
+			if(affordable(unit, row) && (best < 0 || damage[row][column] > damage[best][column]))
+			{
+				best = row;
+			}
+		}
+		return best < 0 ? null : abilities[best];
+	}
+
+	/**
+	 * Can an attacker kill a target this turn with one ability it has the ability points for?
+	 * @param attacker: acting hero
+	 * @param target: living hero on the other side
+	 * @return true if the attacker's best damage is at least the target's health
+	 */
+	public boolean canKill(Hero attacker, Hero target)
+	{
+		return getBestDamage(attacker, target) >= target.getHealth();
+	}
+
+	/**
+	 * Get the threat to a hero: the most damage any living hero on the other side can do to it with one ability it has
+	 * the ability points for.
+	 * @param target: hero to find the threat to
+	 * @return the most damage, 0 if no living opponent can afford an offensive ability
+	 */
+	public int getThreat(Hero target)
+	{
+		int column = column(target);
+		long version = sideVersion[firstSide[column] ? 1 : 0];
+		if(threatVersion[column] != version)
+		{
+			int most = 0;
+			for(int unit = 0; unit < heroes.length; unit++)
+			{
+				if(firstSide[unit] != firstSide[column] && heroes[unit].getHealth() > 0)
+				{
+					most = Math.max(most, bestDamage(unit, column));
+				}
+			}
+			threat[column] = most;
+			threatVersion[column] = version;
+		}
+		return threat[column];
+	}
+
+	/**
+	 * Stop listening to the battle's heroes and abilities, called once the battle is over. Abilities outlive a
+	 * search's copy of the battle, so a search detaches the matrix of its copy too.
+	 */
+	public void detach()
+	{
+		for(Hero hero : heroes)
+		{
+			hero.removeListener(this);
+		}
+		for(int row = 0; row < abilities.length; row++)
+		{
+			if(firstRow(abilities[row]) == row)
+			{
+				abilities[row].removeDamageListener(this);
+			}
+		}
+	}
+
+	private int bestDamage(int unit, int column)
+	{
+		int best = 0;
+		for(int row = rowStart[unit]; row < rowStart[unit + 1]; row++)
+		{
+			if(affordable(unit, row))
+			{
+				best = Math.max(best, damage[row][column]);
+			}
+		}
+		return best;
+	}
+
+	private boolean affordable(int unit, int row)
+	{
+		return abilities[row].getPointCost() <= heroes[unit].getAbilityPoints();
+	}
+
+	private int firstRow(OffensiveAbility ability)
+	{
+		for(int row = 0; row < abilities.length; row++)
+		{
+			if(abilities[row] == ability)
+			{
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get a target's column, working the stale rows out again first and the column too if its defense changed since it
+	 * was last read.
+	 */
+	private int column(Hero target)
+	{
+		if(rowsStale)
+		{
+			refreshRows();
+		}
+		int column = units.get(target);
+		long bit = 1L << column;
+		if((stale[column >>> 6] & bit) != 0)
+		{
+			stale[column >>> 6] &= ~bit;
+			int defenseRating = defenseRatings[column];
+			for(int row = 0; row < abilities.length; row++)
+			{
+				damage[row][column] = Math.max(1, abilityDamage[row] - defenseRating);
+			}
+		}
+		return column;
+	}
+
+	private void refreshRows()
+	{
+		rowsStale = false;
+		for(int word = 0; word < staleRows.length; word++)
+		{
+			for(long bits = staleRows[word]; bits != 0; bits &= bits - 1)
+			{
+				int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+				abilityDamage[row] = abilities[row].getDamage();
+				OffensiveAbility.resolveDamage(abilityDamage[row], defenseRatings, damage[row], 0, heroes.length);
+			}
+			staleRows[word] = 0;
+		}
+	}
+
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		Integer unit = units.get(hero);
+		if(unit == null)
+		{
+			return;
+		}
+		if(stat == Stat.DEFENSE_RATING && defenseRatings[unit] != newValue)
+		{
+			defenseRatings[unit] = newValue;
+			stale[unit >>> 6] |= 1L << unit;
+			threatVersion[unit] = -1;
+		}
+		else if(stat == Stat.HEALTH && (oldValue > 0) != (newValue > 0))
+		{
+			sideVersion[firstSide[unit] ? 0 : 1]++;
+		}
+		else if(stat == Stat.ABILITY_POINTS)
+		{
+			for(int row = rowStart[unit]; row < rowStart[unit + 1]; row++)
+			{
+				int cost = abilities[row].getPointCost();
+				if((cost <= oldValue) != (cost <= newValue))
+				{
+					sideVersion[firstSide[unit] ? 0 : 1]++;
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void damageChanged(OffensiveAbility ability, int oldDamage, int newDamage)
+	{
+		for(int row = 0; row < abilities.length; row++)
+		{
+			if(abilities[row] == ability)
+			{
+				staleRows[row >>> 6] |= 1L << row;
+				rowsStale = true;
+				sideVersion[firstSide[rowUnit[row]] ? 0 : 1]++;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of rows, one per offensive ability of every hero.
+	 * @return rows in the matrix
+	 */
+	public int getRowCount()
+	{
+		return abilities.length;
+	}
+
+	/**
+	 * Get the number of targets whose column is waiting to be worked out again.
+	 * @return stale columns
+	 */
+	public int getStaleCount()
+	{
+		int count = 0;
+		for(long word : stale)
+		{
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the number of rows waiting to be worked out again after their ability's damage changed.
+	 * @return stale rows
+	 */
+	public int getStaleRowCount()
+	{
+		int count = 0;
+		for(long word : staleRows)
+		{
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+}
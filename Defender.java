@@ -1,14 +1,8 @@
 package Heros;
 
-import java.util.Collection;
-
-import BattleCommands.Ability;
-import PartyContainers.AiBattleReturnType;
-
-
 /**
  * Defender Monster type. 
- *  Defines the method selectCommand for this specific Monster type.
+ *  Defines the selectCommand ladder for this specific Monster type.
  *  Will use abilities as such:
  *  25% chance to use an OffensiveAbility
  *  	Target defined by lowest health
@@ -20,6 +14,10 @@ import PartyContainers.AiBattleReturnType;
  * @author Andrew
  */
 public abstract class Defender extends Monster {
+	private static final SelectionLadder LADDER = new SelectionLadder(Stat.HEALTH, true,
+			new SelectionLadder.Rung(0.75, AbilityCategory.OFFENSIVE, AbilityCategory.OFFENSIVE_STATUS, Stat.HEALTH, true, false), //Lowest Health
+			new SelectionLadder.Rung(0.50, AbilityCategory.CROWD_CONTROL, null, Stat.ABILITY_POINTS, false, false), //Highest abilityPoints
+			new SelectionLadder.Rung(0.20, AbilityCategory.DEFENSIVE));
 
 	/**
 	 * Constructor to create an instance of the Defender class.
@@ -43,92 +41,11 @@ public abstract class Defender extends Monster {
 	}
 
 	/**
-	 * Abstract method used by Monsters to determine actions during battle.  
-	 * This method will be used as part of the AI functionality to return an ability to use and a target (if applicable).
-	 * @param Collection<Hero> A list of the Hero instances in the player's party
-	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
-	 */
-	public AiBattleReturnType selectCommand(Collection<Hero> playerParty) {
-			
-			Hero target = null;
-			Ability ability = null;
-			
-			Collection<Ability> availableAbilities = getAvailableAbilities();
-			Collection<Hero> availableTargets = getAvailableTargets(playerParty);
-			
-			if (availableAbilities.size() < 2) {
-				ability = this.getBaseAttack();
-				target = selectByStat(availableTargets,"health",true); //Lowest Health
-				return new AiBattleReturnType(target, ability);
-			}
-			else {
-				double random = Math.random();
-				//System.out.println(random);
-				if(random > 0.75) {
-					ability = getOffensiveAbility(availableAbilities);
-					if (ability == null) {
-						ability = getOffensiveStatusAbility(availableAbilities);
-					}
-					target = selectByStat(availableTargets,"health",true); //Lowest Health
-				}
-				else if(random > 0.50) {
-					ability = getCrowdControlAbility(availableAbilities);
-					target = selectByStat(availableTargets,"abilityPoints",false); //Highest abilityPoints
-				}
-				else if(random > 0.20) {
-					ability = getDefensiveAbility(availableAbilities);
-				}
-			}
-			if (ability == null) { 
-				ability = this.getBaseAttack();
-				target = selectByStat(availableTargets,"health",true); //Lowest Health 
-			}
-			return new AiBattleReturnType(target, ability);
-		}
-	
-	/**
-	 * Abstract method used by Monsters to determine actions during battle.  
-	 * This method specifics a double value to force certain actions.
-	 * Used specifically for testing purposes.
-	 * @param Collection<Hero> A list of the Hero instances in the player's party
-	 * @param Double A value to control which type of ability will be selected.
-	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
+	 * Get the ladder selectCommand walks, see the class description.
+	 * @return SelectionLadder The Defender ladder.
 	 */
-	public AiBattleReturnType selectCommand(Collection<Hero> playerParty, double value) {
-		
-		Hero target = null;
-		Ability ability = null;
-		
-		Collection<Ability> availableAbilities = getAvailableAbilities();
-		Collection<Hero> availableTargets = getAvailableTargets(playerParty);
-		
-		if (availableAbilities.size() < 2) {
-			ability = this.getBaseAttack();
-			target = selectByStat(availableTargets,"health",true); //Lowest Health
-			return new AiBattleReturnType(target, ability);
-		}
-		else {
-			double random = value;
-			//System.out.println(random);
-			if(random > 0.75) {
-				ability = getOffensiveAbility(availableAbilities);
-				if (ability == null) {
-					ability = getOffensiveStatusAbility(availableAbilities);
-				}
-				target = selectByStat(availableTargets,"health",true); //Lowest Health
-			}
-			else if(random > 0.50) {
-				ability = getCrowdControlAbility(availableAbilities);
-				target = selectByStat(availableTargets,"abilityPoints",false); //Highest abilityPoints
-			}
-			else if(random > 0.20) {
-				ability = getDefensiveAbility(availableAbilities);
-			}
-		}
-		if (ability == null) { 
-			ability = this.getBaseAttack();
-			target = selectByStat(availableTargets,"health",true); //Lowest Health 
-		}
-		return new AiBattleReturnType(target, ability);
+	@Override
+	public SelectionLadder getLadder() {
+		return LADDER;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package BattleSimulation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import BattleSimulation.SearchMoves.Option;
+import Heros.CommandSearch;
+import Heros.Hero;
+import Heros.Monster;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+
+/**
+ * Depth-limited expectimax a Monster can opt into with Monster.setCommandSearch, or a whole AI party with attach.
+ *
+ * The search plays turns on a fork of the battle, taking each command back with a TurnRecord so nothing is copied
+ * below the fork and one record per depth is all the memory a search needs. On an AI turn the monster
+ * takes the command with the best value, on a human turn every command the hero could use is a chance outcome of
+ * equal probability, and the value is their mean. Status ticks are played as the turn starts, as they are deterministic
+ * in this game they need no chance node of their own. Leaves are scored with a BattleEvaluation.
+ *
+ * The depth is deepened one turn at a time while the time budget lasts, keeping the best command of the deepest
+ * finished search. Values are cached in a bounded TranspositionTable keyed by the battle's ZobristHash so a state
+ * reached by several orders of commands is only searched once per depth.
+ * @author Andrew
+ *
+ */
+public class ExpectimaxSearch implements CommandSearch {
+	public static final int DEFAULT_TABLE_CAPACITY = 1 << 16;
+	private final BattleEngine engine;
+	private final int maxDepth;
+	private final long timeBudgetNanos;
+	private final TranspositionTable table;
+	private BattleEvaluation evaluation = new BattleEvaluation();
+	private int lastDepth = 0;
+	private long lastNodes = 0;
+	// Per decision state
+	private BattleEngine fork;
+	private TurnRecord[] records;
+	private long start;
+	private boolean outOfTime;
+
+	/**
+	 * Create a search over a battle with the default table capacity.
+	 * @param engine: the battle the monsters using this search are in
+	 * @param maxDepth: most turns searched ahead, counting the monster's own turn
+	 * @param timeBudgetMillis: most time spent per decision in milliseconds, 0 for no limit
+	 */
+	public ExpectimaxSearch(BattleEngine engine, int maxDepth, long timeBudgetMillis)
+	{
+		this(engine, maxDepth, timeBudgetMillis, new TranspositionTable(DEFAULT_TABLE_CAPACITY));
+	}
+
+	/**
+	 * Create a search over a battle.
+	 * @param engine: the battle the monsters using this search are in
+	 * @param maxDepth: most turns searched ahead, counting the monster's own turn
+	 * @param timeBudgetMillis: most time spent per decision in milliseconds, 0 for no limit
+	 * @param table: transposition table, kept between decisions
+	 */
+	public ExpectimaxSearch(BattleEngine engine, int maxDepth, long timeBudgetMillis, TranspositionTable table)
+	{
+		if(maxDepth < 1)
+		{
+			throw new IllegalArgumentException("A search needs a depth of at least one turn");
+		}
+		this.engine = engine;
+		this.maxDepth = maxDepth;
+		this.timeBudgetNanos = timeBudgetMillis > 0 ? timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+		this.table = table;
+	}
+
+	/**
+	 * Opt every monster of an AI party into this search.
+	 * @param ai: the AI whose monsters will search
+	 */
+	public void attach(AI ai)
+	{
+		for(Hero hero : ai.getPartySlots())
+		{
+			if(hero instanceof Monster)
+			{
+				((Monster) hero).setCommandSearch(this);
+			}
+		}
+	}
+
+	/**
+	 * Search for the acting monster's command. Falls back to the monster's own selectCommand if the monster isn't in
+	 * this search's battle or it has no command to choose from.
+	 */
+	@Override
+	public AiBattleReturnType selectCommand(Monster monster, Collection<Hero> playerParty, RandomGenerator random)
+	{
+		start = System.nanoTime();
+		outOfTime = false;
+		lastDepth = 0;
+		lastNodes = 0;
+		int slot = SearchMoves.slotOf(engine.getHeroes(), monster);
+		if(slot < 0)
+		{
+			return monster.selectCommand(playerParty, random);
+		}
+		fork = engine.fork();
+		Hero actor = fork.getHeroes().get(slot);
+		List<Option> options = SearchMoves.options(fork, actor);
+		if(options.isEmpty())
+		{
+			return monster.selectCommand(playerParty, random);
+		}
+
+		records = new TurnRecord[maxDepth + 1];
+		for(int i = 0; i < records.length; i++)
+		{
+			records[i] = new TurnRecord();
+		}
+		table.newSearch();
+		Option best = options.get(0);
+		if(options.size() > 1)
+		{
+			for(int depth = 1; depth <= maxDepth; depth++)
+			{
+				Option found = searchRoot(actor, options, depth);
+				if(outOfTime)
+				{
+					break;
+				}
+				best = found;
+				lastDepth = depth;
+			}
+		}
+		// The fork's bookkeeping listens to abilities it shares with this battle
+		fork.detach();
+		fork = null;
+		records = null;
+
+		Hero target = best.targetSlot < 0 ? null : engine.getHeroes().get(best.targetSlot);
+		return new AiBattleReturnType(target, best.ability);
+	}
+
+	/**
+	 * Search every command of the acting monster to a depth.
+	 * @return the command with the best value, null if the time ran out
+	 */
+	private Option searchRoot(Hero actor, List<Option> options, int depth)
+	{
+		TurnRecord move = records[depth];
+		Option best = null;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for(Option option : options)
+		{
+			fork.mark(move);
+			SearchMoves.apply(fork, actor, option);
+			double value = value(depth - 1);
+			fork.unmake(move);
+			if(outOfTime)
+			{
+				return null;
+			}
+			if(value > bestValue)
+			{
+				bestValue = value;
+				best = option;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Value of the battle for the AI at the start of a turn, searched a number of turns deep.
+	 */
+	private double value(int depth)
+	{
+		lastNodes ++;
+		if(depth == 0 || fork.isOver())
+		{
+			return evaluation.evaluate(fork);
+		}
+		if(System.nanoTime() - start >= timeBudgetNanos)
+		{
+			outOfTime = true;
+			return 0;
+		}
+		long key = fork.getStateHash();
+		double cached = table.probe(key, depth);
+		if(!Double.isNaN(cached))
+		{
+			return cached;
+		}
+
+		double value;
+		Hero actor = SearchMoves.startTurn(fork);
+		List<Option> options = actor == null ? null : SearchMoves.options(fork, actor);
+		if(actor == null)
+		{
+			value = evaluation.evaluate(fork);
+		}
+		else if(options.isEmpty())
+		{
+			fork.endTurn(actor, null, null);
+			value = value(depth - 1);
+		}
+		else
+		{
+			TurnRecord move = records[depth];
+			boolean maximise = BattleEngine.isAIControlled(actor);
+			double best = Double.NEGATIVE_INFINITY;
+			double total = 0;
+			for(Option option : options)
+			{
+				fork.mark(move);
+				SearchMoves.apply(fork, actor, option);
+				double child = value(depth - 1);
+				fork.unmake(move);
+				if(outOfTime)
+				{
+					return 0;
+				}
+				best = Math.max(best, child);
+				total += child;
+			}
+			value = maximise ? best : total / options.size();
+		}
+		if(!outOfTime)
+		{
+			table.store(key, depth, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Set the evaluation used to score the leaves.
+	 * @param evaluation
+	 */
+	public void setEvaluation(BattleEvaluation evaluation)
+	{
+		this.evaluation = evaluation;
+	}
+
+	public BattleEvaluation getEvaluation()
+	{
+		return evaluation;
+	}
+
+	public TranspositionTable getTable()
+	{
+		return table;
+	}
+
+	/**
+	 * Get the depth of the deepest search the last decision finished.
+	 * @return turns searched ahead
+	 */
+	public int getLastDepth()
+	{
+		return lastDepth;
+	}
+
+	/**
+	 * Get the number of states the last decision visited.
+	 * @return states visited
+	 */
+	public long getLastNodes()
+	{
+		return lastNodes;
+	}
+}
@@ -0,0 +1,56 @@
+package BattleSimulation;
+
+import java.util.Collection;
+import java.util.random.RandomGenerator;
+
+import BattleCommands.Ability;
+import BattleCommands.OffensiveAbility;
+import Heros.Hero;
+import Heros.Monster;
+import Heros.Stat;
+import PartyContainers.AiBattleReturnType;
+
+/**
+ * Default TurnPolicy for heroes played without a human at the controls.
+ * Uses the most damaging OffensiveAbility the hero can afford on the opponent with the lowest health.
+ * If no OffensiveAbility can be afforded the first affordable ability is used on the hero itself.
+ * @author Kevin
+ *
+ */
+public class GreedyTurnPolicy implements TurnPolicy {
+
+	/**
+	 * Select the most damaging affordable attack on the weakest opponent.
+	 * @param hero: current acting hero
+	 * @param opponents: the opposing party
+	 * @param random: unused, the greedy choice is deterministic
+	 * @return AiBattleReturnType holding the target (if applicable) and command to use
+	 */
+	@Override
+	public AiBattleReturnType selectCommand(Hero hero, Collection<Hero> opponents, RandomGenerator random) {
+		OffensiveAbility bestAttack = null;
+		Ability fallback = null;
+		for (Ability ability : hero.getAbilities().values()) {
+			if (ability.getPointCost() > hero.getAbilityPoints()) {
+				continue;
+			}
+			if (ability instanceof OffensiveAbility) {
+				OffensiveAbility attack = (OffensiveAbility) ability;
+				if (bestAttack == null || attack.getDamage() > bestAttack.getDamage()) {
+					bestAttack = attack;
+				}
+			}
+			else if (fallback == null) {
+				fallback = ability;
+			}
+		}
+
+		if (bestAttack != null) {
+			Hero target = Monster.selectByStat(opponents, Stat.HEALTH, true);	//Lowest Health
+			if (target != null) {
+				return new AiBattleReturnType(target, bestAttack);
+			}
+		}
+		return new AiBattleReturnType(null, fallback);
+	}
+}
@@ -0,0 +1,209 @@
+package BattleSimulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import Heros.Hero;
+import Heros.Stat;
+import PartyContainers.AI;
+import PartyContainers.HumanPlayer;
+import PartyContainers.Player;
+import Statuses.Status;
+
+/**
+ * Measures how often the ZobristHash of two different battle states collide. Battles are played out headless and
+ * every state they pass through is hashed and written out in full; two states with the same hash but different
+ * descriptions are a collision. The hash can be cut down to fewer bits to see the collision rate grow as expected
+ * and compare it with the birthday bound. Every state's kept hash is also checked against one worked out from scratch.
+ * @author Andrew
+ *
+ */
+public class HashCollisionHarness {
+	private final Supplier<? extends Player> humanParty;
+	private final Supplier<? extends AI> aiParty;
+
+	/**
+	 * Create a harness over the default parties.
+	 */
+	public HashCollisionHarness()
+	{
+		this(HumanPlayer::new, AI::new);
+	}
+
+	/**
+	 * Create a harness.
+	 * @param humanParty: creates a fresh human player for each battle
+	 * @param aiParty: creates a fresh AI player for each battle
+	 */
+	public HashCollisionHarness(Supplier<? extends Player> humanParty, Supplier<? extends AI> aiParty)
+	{
+		this.humanParty = humanParty;
+		this.aiParty = aiParty;
+	}
+
+	/**
+	 * Play battles and count hash collisions between the states they pass through.
+	 * @param battles: number of battles to play
+	 * @param seed: seeds the battles so a run repeats
+	 * @param bits: number of low bits of the hash compared, 64 for the full hash
+	 * @return the states seen and the collisions found
+	 */
+	public Result run(int battles, long seed, int bits)
+	{
+		if(bits < 1 || bits > 64)
+		{
+			throw new IllegalArgumentException("Can only compare 1 to 64 bits of the hash");
+		}
+		long mask = bits == 64 ? -1L : (1L << bits) - 1;
+		HashMap<Long, String> seen = new HashMap<Long, String>();
+		HashSet<String> distinct = new HashSet<String>();
+		SplittableRandom seeds = new SplittableRandom(seed);
+		Result result = new Result(bits);
+		for(int battle = 0; battle < battles; battle++)
+		{
+			BattleEngine engine = new BattleEngine(humanParty.get(), aiParty.get(), new GreedyTurnPolicy(), seeds.nextLong());
+			do
+			{
+				long hash = engine.getStateHash();
+				if(hash != engine.getZobristHash().recompute())
+				{
+					result.mismatches ++;
+				}
+				String state = describe(engine);
+				result.states ++;
+				if(distinct.add(state))
+				{
+					String other = seen.putIfAbsent(hash & mask, state);
+					if(other != null)
+					{
+						result.collisions ++;
+					}
+				}
+			}
+			while(engine.step() != null && engine.getTurnCount() < BattleEngine.DEFAULT_TURN_LIMIT);
+			engine.detach();
+		}
+		result.distinctStates = distinct.size();
+		return result;
+	}
+
+	/**
+	 * Write out everything the hash covers, statuses sorted so their order in the map doesn't matter.
+	 */
+	static String describe(BattleEngine engine)
+	{
+		StringBuilder state = new StringBuilder();
+		for(Hero hero : engine.getHeroes())
+		{
+			for(Stat stat : Stat.values())
+			{
+				state.append(hero.getStat(stat)).append(',');
+			}
+			state.append(engine.getScheduler().getRound(hero)).append('[');
+			ArrayList<String> statuses = new ArrayList<String>();
+			for(Status status : hero.getStatusesById().values())
+			{
+				statuses.add(status.getName() + '/' + status.getStatAffected() + '/' + status.getEffectStrength() + '/' + status.getDuration());
+			}
+			Collections.sort(statuses);
+			state.append(String.join(";", statuses)).append("]|");
+		}
+		state.append(engine.getHuman().getInventory().keySet()).append(engine.getAI().getInventory().keySet());
+		return state.toString();
+	}
+
+	/**
+	 * Run the harness from the command line: battles, seed and bits, defaulting to 1000 battles on the full hash.
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		int battles = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+		int bits = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+		System.out.println(new HashCollisionHarness().run(battles, seed, bits));
+	}
+
+	/**
+	 * The states seen in a run of the harness and the collisions found between them.
+	 */
+	public static final class Result {
+		private final int bits;
+		private long states;
+		private long distinctStates;
+		private long collisions;
+		private long mismatches;
+
+		private Result(int bits)
+		{
+			this.bits = bits;
+		}
+
+		/**
+		 * Get the number of states hashed, counting repeats.
+		 * @return states hashed
+		 */
+		public long getStates()
+		{
+			return states;
+		}
+
+		/**
+		 * Get the number of different states hashed.
+		 * @return different states
+		 */
+		public long getDistinctStates()
+		{
+			return distinctStates;
+		}
+
+		/**
+		 * Get the number of different states whose hash matched an earlier different state's.
+		 * @return collisions found
+		 */
+		public long getCollisions()
+		{
+			return collisions;
+		}
+
+		/**
+		 * Get the number of states whose kept hash didn't match the hash worked out from scratch, should always be 0.
+		 * @return states with a wrong hash
+		 */
+		public long getMismatches()
+		{
+			return mismatches;
+		}
+
+		/**
+		 * Get the fraction of different states that collided.
+		 * @return collisions over different states
+		 */
+		public double getCollisionRate()
+		{
+			return distinctStates == 0 ? 0 : (double) collisions / distinctStates;
+		}
+
+		/**
+		 * Get the collisions a perfectly random hash of this many bits would be expected to give, by the birthday bound.
+		 * @return expected collisions
+		 */
+		public double getExpectedCollisions()
+		{
+			double n = distinctStates;
+			return n * (n - 1) / 2 / Math.pow(2, bits);
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%d states (%d different) on %d bits: %d collisions, rate %.3g, expected %.3g, %d wrong hashes",
+					states, distinctStates, bits, collisions, getCollisionRate(), getExpectedCollisions(), mismatches);
+		}
+	}
+}
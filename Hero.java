@@ -1,5 +1,6 @@
 package Heros;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -8,8 +9,6 @@ import BattleCommands.Ability;
 import GridGUI.BattleController;
 import RPG_Exceptions.NotEnoughAbilityPointsException;
 import Statuses.CrowdControlStatus;
-import Statuses.StatGet;
-import Statuses.StatSet;
 import Statuses.Status;
 
 /**
@@ -17,7 +16,7 @@ import Statuses.Status;
  * @author kevin
  *
  */
-public abstract class Hero implements Comparable<Hero>{
+public abstract class Hero implements Comparable<Hero>, Cloneable{
 	private int health;
 	private int abilityPoints;
 	private int defenseRating;
@@ -31,20 +30,15 @@ public abstract class Hero implements Comparable<Hero>{
 	private String name;
 	private String image;
 	private String controlledBy;
-	private HashMap<String, Status> statuses = new HashMap<String, Status>();
-	private HashMap<String, Ability> abilities = new HashMap<String,Ability>();
-	private static HashMap<String, StatGet> getStats = new HashMap<String, StatGet>();
-	private static HashMap<String, StatSet> setStats = new HashMap<String, StatSet>();
-	static
-	{
-		Hero.getStats.put("health", new StatGet() {public int statGet(Hero hero) { return hero.getHealth();}});
-		Hero.getStats.put("abilityPoints", new StatGet() {public int statGet(Hero hero) { return hero.getAbilityPoints();}});
-		Hero.getStats.put("defenseRating", new StatGet() {public int statGet(Hero hero) { return hero.getDefenseRating();}});
-		
-		Hero.setStats.put("health", new StatSet() {public void statSet(Hero hero, int val) { hero.setHealth(val);}});
-		Hero.setStats.put("abilityPoints", new StatSet() {public void statSet(Hero hero, int val) { hero.setAbilityPoints(val);}});
-		Hero.setStats.put("defenseRating", new StatSet() {public void statSet(Hero hero, int val) { hero.setDefenseRating(val);}});
-	}
+	private HashMap<Long, Status> statuses = new HashMap<Long, Status>();
+	private Map<String, Status> statusKeyView = new StatusKeyView(statuses);
+	// Id of the next status applied to this hero
+	private long nextStatusId = 1;
+	private AbilityIndex abilities = new AbilityIndex();
+	// Reused every turn to hold the statuses being ticked, grows to the most statuses this hero has carried
+	private Status[] statusTickBuffer = new Status[4];
+	private static final HeroListener[] NO_LISTENERS = new HeroListener[0];
+	private HeroListener[] listeners = NO_LISTENERS;
 	
 	/**
 	 * Constructor to create an instance of the Hero class. 
@@ -73,6 +67,33 @@ public abstract class Hero implements Comparable<Hero>{
 		this.name = name;
 	}
 	
+	/**
+	 * Copy this hero for a look-ahead battle. Stats are copied, each applied status is copied under its id and 
+	 * the abilities are shared as they aren't changed during a battle. The copy has no listeners.
+	 * @return a copy of this hero that can be changed without changing this hero
+	 */
+	public Hero copy()
+	{
+		Hero copy;
+		try
+		{
+			copy = (Hero) super.clone();
+		}
+		catch(CloneNotSupportedException e)
+		{
+			throw new AssertionError(e);
+		}
+		copy.statuses = new HashMap<Long, Status>();
+		for(Map.Entry<Long, Status> entry : this.statuses.entrySet())
+		{
+			copy.statuses.put(entry.getKey(), entry.getValue().copyApplied(copy));
+		}
+		copy.statusKeyView = new StatusKeyView(copy.statuses);
+		copy.statusTickBuffer = new Status[this.statusTickBuffer.length];
+		copy.listeners = NO_LISTENERS;
+		return copy;
+	}
+	
 	/**
 	 * Method to confirm a Hero's ability belong to that Hero's subclass. Why abstract?
 	 * Don't know the class type of the specific ability 
@@ -129,31 +150,18 @@ public abstract class Hero implements Comparable<Hero>{
 	public boolean updateStatuses()
 	{
 		boolean crowdControlled = false;
-		if(!this.statuses.isEmpty())
+		// Statuses remove themselves from the map when they expire
+		// So tick from the buffer rather than the map itself
+		int count = this.fillStatusTickBuffer();
+		for(int i = 0; i < count; i++)
 		{
-			// Make deep copy to reference from to delete from in for each loop
-			// Otherwise get error 
-			// Not using Iterator because already returning one value from this.updateStatus
-			// Don't wish to deal with an array of booleans as a return, so just make deep copy 
-			HashMap<String,Status> tmpCopyForDeletion = new HashMap<String,Status>();
-			for(Map.Entry<String, Status> entry : this.statuses.entrySet())
+			Status currentStatus = this.statusTickBuffer[i];
+			this.statusTickBuffer[i] = null;
+			// A status removed by one ticked before it this turn doesn't tick
+			if(this.statuses.get(currentStatus.getId()) == currentStatus && currentStatus.updateStatus(this))
 			{
-				tmpCopyForDeletion.put(entry.getKey(), entry.getValue().clone());
+				crowdControlled = true;
 			}
-			
-			// Operate on the characters status effects using the old keys generated 
-			// When they were applied to the character 
-			// While using the tmpCopy so the status effects can be deleted 
-			for(Map.Entry<String, Status> entry : tmpCopyForDeletion.entrySet())
-			{
-				Status currentStatus = this.statuses.get(entry.getKey());
-				boolean currentCrowd = currentStatus.updateStatus(this);
-				if(currentCrowd)
-				{
-					crowdControlled = currentCrowd;
-				}
-			}
-			
 		}
 		return crowdControlled; 
 	}
@@ -168,42 +176,59 @@ public abstract class Hero implements Comparable<Hero>{
 	public boolean updateStatuses(BattleController controller)
 	{
 		boolean crowdControlled = false;
-		if(!this.statuses.isEmpty())
+		int count = this.fillStatusTickBuffer();
+		for(int i = 0; i < count; i++)
 		{
-			// Make deep copy to reference from to delete from in for each loop
-			// Otherwise get error 
-			// Not using Iterator because already returning one value from this.updateStatus
-			// Don't wish to deal with an array of booleans as a return, so just make deep copy 
-			HashMap<String,Status> tmpCopyForDeletion = new HashMap<String,Status>();
-			for(Map.Entry<String, Status> entry : this.statuses.entrySet())
-			{
-				tmpCopyForDeletion.put(entry.getKey(), entry.getValue().clone());
-			}
-			
-			// Operate on the characters status effects using the old keys generated 
-			// When they were applied to the character 
-			// While using the tmpCopy so the status effects can be deleted 
-			for(Map.Entry<String, Status> entry : tmpCopyForDeletion.entrySet())
+			Status currentStatus = this.statusTickBuffer[i];
+			this.statusTickBuffer[i] = null;
+			// A status removed by one ticked before it this turn doesn't tick
+			if(this.statuses.get(currentStatus.getId()) == currentStatus && currentStatus.updateStatus(this, controller))
 			{
-				Status currentStatus = this.statuses.get(entry.getKey());
-				boolean currentCrowd = currentStatus.updateStatus(this, controller);
-				if(currentCrowd)
-				{
-					crowdControlled = currentCrowd;
-				}
+				crowdControlled = true;
 			}
-			
 		}
 		return crowdControlled; 
 	}
 	
+	/**
+	 * Copy references to the statuses applied at the start of the tick into the reused tick buffer.
+	 * Unlike copying the map no status is cloned, the buffer only grows when the hero carries more statuses than ever before.
+	 * Each slot is cleared as it is ticked so expired statuses aren't kept alive by the buffer, and a buffered status
+	 * is only ticked if it is still applied when its turn in the tick comes.
+	 * @return the number of statuses to tick
+	 */
+	private int fillStatusTickBuffer()
+	{
+		int count = this.statuses.size();
+		if(count > this.statusTickBuffer.length)
+		{
+			this.statusTickBuffer = new Status[Math.max(count, this.statusTickBuffer.length * 2)];
+		}
+		int i = 0;
+		for(Status status : this.statuses.values())
+		{
+			this.statusTickBuffer[i++] = status;
+		}
+		return count;
+	}
+	
+	/**
+	 * Hero checks if it has enough ability points to perform an action without throwing, used by validate.
+	 * @param ability to determine if the hero has enough ability points to perform 
+	 * @return true if the hero can pay the ability's point cost
+	 */
+	public final boolean hasEnoughAP(Ability ability)
+	{
+		return this.getAbilityPoints() >= ability.getPointCost();
+	}
+	
 	/**
 	 * Hero checks if it has enough ability points to perform an action.
 	 * @param ability to determine if the hero has enough ability points to perform 
 	 */
 	public final void checkIfEnoughAP(Ability ability) throws NotEnoughAbilityPointsException
 	{
-		if(this.getAbilityPoints() < ability.getPointCost())
+		if(!this.hasEnoughAP(ability))
 		{
 			throw new NotEnoughAbilityPointsException();
 		}
@@ -216,7 +241,7 @@ public abstract class Hero implements Comparable<Hero>{
 	 */
 	public final void checkIfEnoughAP(Ability ability, BattleController controller) throws NotEnoughAbilityPointsException
 	{
-		if(this.getAbilityPoints() < ability.getPointCost())
+		if(!this.hasEnoughAP(ability))
 		{
 			throw new NotEnoughAbilityPointsException(controller);
 		}
@@ -227,7 +252,7 @@ public abstract class Hero implements Comparable<Hero>{
 	 * @return boolean value true if the Hero is under a crowd control status 
 	 */
 	public boolean checkIfCrowdControlled() {
-		Collection<Status> status = this.getStatuses().values();
+		Collection<Status> status = this.statuses.values();
 		for(Status currentStatus : status) {
 			if (currentStatus instanceof CrowdControlStatus) {
 				return true;
@@ -245,6 +270,15 @@ public abstract class Hero implements Comparable<Hero>{
 		return this.abilities;
 	}
 	
+	/**
+	 * Returns the hero's abilities bucketed by category, the same map as getAbilities.
+	 * @return The hero's ability index
+	 */
+	public final AbilityIndex getAbilityIndex()
+	{
+		return this.abilities;
+	}
+	
 	/**
 	 * Returns an Array of names of the abilities in the heros ability set. Used to update the text for the current hero's ability buttons in the view.
 	 * @return Array of names of the abilities in the heros ability set
@@ -296,32 +330,122 @@ public abstract class Hero implements Comparable<Hero>{
 	}
 	
 	/**
-	 * Return the statuses HashMap for this character
+	 * Return the statuses for this character keyed by each status' String key, see Status.getKey.
+	 * A read-only view, statuses are added and removed through the Status methods.
+	 * @return Statuses Map for this character
+	 */
+	public final Map<String, Status> getStatuses()
+	{
+		return this.statusKeyView;
+	}
+	
+	/**
+	 * Return the statuses HashMap for this character, keyed by the id each status was given when applied.
+	 * The map the Status methods and the battle bookkeeping read and write.
 	 * @return Statuses HashMap for this character
 	 */
-	public final HashMap<String, Status> getStatuses()
+	public final HashMap<Long, Status> getStatusesById()
 	{
 		return this.statuses;
 	}
+	
+	/**
+	 * Issue the id of a status being applied to this hero. Ids only ever increase so a status applied 
+	 * twice in a row stacks rather than replacing the first application, however fast the battle runs.
+	 * The id is boxed once here and reused for every lookup of the status.
+	 * @return id for the statuses HashMap
+	 */
+	public final Long nextStatusId()
+	{
+		return Long.valueOf(this.nextStatusId++);
+	}
+	
+	/**
+	 * Get the id the next status applied to this hero will be given, saved with a battle snapshot.
+	 * @return the next status id
+	 */
+	public final long getNextStatusId()
+	{
+		return this.nextStatusId;
+	}
+	
+	/**
+	 * Set the id the next status applied to this hero will be given, used to restore a battle snapshot.
+	 * @param nextStatusId: the next status id
+	 */
+	public final void setNextStatusId(long nextStatusId)
+	{
+		this.nextStatusId = nextStatusId;
+	}
 		
 	/**
-	 * Gets the stat by using the HashMap filled with anomyous functions that call a hero's getter function based on the string entered.
+	 * Gets the stat by reading the hero field the Stat names directly.
+	 * @param Stat: stat, hero field you wish to get
+	 * @return int of whatever hero field you specified
+	 */
+	public final int getStat(Stat stat)
+	{
+		switch(stat)
+		{
+			case HEALTH:
+				return this.health;
+			case ABILITY_POINTS:
+				return this.abilityPoints;
+			case DEFENSE_RATING:
+				return this.defenseRating;
+			case SPEED:
+				return this.speed;
+			default:
+				throw new IllegalArgumentException("Unknown stat " + stat);
+		}
+	}
+	
+	/**
+	 * Sets the stat by calling the hero's setter for the field the Stat names.
+	 * @param Stat: stat, hero field you wish to set
+	 * @param Int val: value you wish to set to
+	 */
+	public final void setStat(Stat stat, int val)
+	{
+		switch(stat)
+		{
+			case HEALTH:
+				this.setHealth(val);
+				break;
+			case ABILITY_POINTS:
+				this.setAbilityPoints(val);
+				break;
+			case DEFENSE_RATING:
+				this.setDefenseRating(val);
+				break;
+			case SPEED:
+				this.setSpeed(val);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown stat " + stat);
+		}
+	}
+	
+	/**
+	 * Gets the stat by its String key, kept for statuses that name the stat they affect i.e "health".
+	 * Prefer getStat(Stat) on hot paths, this has to look the key up first.
 	 * @param String: stat, hero field you wish to get
 	 * @return int of whatever hero field you specified
 	 */
 	public final int getStat(String stat)
 	{
-		return Hero.getStats.get(stat).statGet(this);
+		return this.getStat(Stat.fromKey(stat));
 	}
 	
 	/**
-	 * Sets the stat by using the HashMap filled with anomyous functions that call a hero's getter function based on the string entered.
+	 * Sets the stat by its String key, kept for statuses that name the stat they affect i.e "health".
+	 * Prefer setStat(Stat, int) on hot paths, this has to look the key up first.
 	 * @param String: stat, hero field you wish to set
 	 * @param Int val: value you wish to set to
 	 */
 	public final void setStat(String stat, int val)
 	{
-		Hero.setStats.get(stat).statSet(this, val);
+		this.setStat(Stat.fromKey(stat), val);
 	}
 	
 	/**
@@ -330,7 +454,9 @@ public abstract class Hero implements Comparable<Hero>{
 	 */
 	public final void setHealth(int health)
 	{
+		int oldHealth = this.health;
 		this.health = health;
+		this.fireStatChanged(Stat.HEALTH, oldHealth, health);
 	}
 	
 	/**
@@ -354,7 +480,9 @@ public abstract class Hero implements Comparable<Hero>{
 	 * @param abilityPoints
 	 */
 	public final void setAbilityPoints(int abilityPoints) {
+		int oldAbilityPoints = this.abilityPoints;
 		this.abilityPoints = abilityPoints;
+		this.fireStatChanged(Stat.ABILITY_POINTS, oldAbilityPoints, abilityPoints);
 	}
 
 	/**
@@ -370,7 +498,115 @@ public abstract class Hero implements Comparable<Hero>{
 	 * @param defenseRating
 	 */
 	public final void setDefenseRating(int defenseRating) {
+		int oldDefenseRating = this.defenseRating;
 		this.defenseRating = defenseRating;
+		this.fireStatChanged(Stat.DEFENSE_RATING, oldDefenseRating, defenseRating);
+	}
+
+	/**
+	 * Get the hero's speed, faster heroes act first in each round
+	 * @return hero's current speed
+	 */
+	public final int getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Set the hero's speed, listeners such as the turn scheduler re-order the hero
+	 * @param speed
+	 */
+	public final void setSpeed(int speed) {
+		int oldSpeed = this.speed;
+		this.speed = speed;
+		this.fireStatChanged(Stat.SPEED, oldSpeed, speed);
+	}
+	
+	/**
+	 * Register a listener to be notified of changes to this hero.
+	 * @param listener
+	 */
+	public final void addListener(HeroListener listener)
+	{
+		HeroListener[] added = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		added[this.listeners.length] = listener;
+		this.listeners = added;
+	}
+	
+	/**
+	 * Stop notifying a listener of changes to this hero.
+	 * @param listener
+	 */
+	public final void removeListener(HeroListener listener)
+	{
+		for(int i = 0; i < this.listeners.length; i++)
+		{
+			if(this.listeners[i] == listener)
+			{
+				HeroListener[] removed = new HeroListener[this.listeners.length - 1];
+				System.arraycopy(this.listeners, 0, removed, 0, i);
+				System.arraycopy(this.listeners, i + 1, removed, i, removed.length - i);
+				this.listeners = removed.length == 0 ? NO_LISTENERS : removed;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Notify the listeners that a status was applied to this hero, called by Status.addStatus.
+	 * @param status: the applied status
+	 */
+	public final void fireStatusAdded(Status status)
+	{
+		for(HeroListener listener : this.listeners)
+		{
+			listener.statusAdded(this, status);
+		}
+	}
+	
+	/**
+	 * Notify the listeners that a status was removed from this hero, called by Status.removeStatus.
+	 * @param status: the removed status
+	 */
+	public final void fireStatusRemoved(Status status)
+	{
+		for(HeroListener listener : this.listeners)
+		{
+			listener.statusRemoved(this, status);
+		}
+	}
+	
+	/**
+	 * Notify the listeners that the duration of a status applied to this hero changed, called by Status.setDuration.
+	 * @param status: the status whose duration changed
+	 * @param oldDuration: duration before the change
+	 * @param newDuration: duration after the change
+	 */
+	public final void fireStatusDurationChanged(Status status, int oldDuration, int newDuration)
+	{
+		if(oldDuration != newDuration)
+		{
+			for(HeroListener listener : this.listeners)
+			{
+				listener.statusDurationChanged(this, status, oldDuration, newDuration);
+			}
+		}
+	}
+	
+	/**
+	 * Notify the listeners that a stat changed value. Nothing is sent if the value didn't change.
+	 * @param stat: the stat that changed
+	 * @param oldValue: value before the change
+	 * @param newValue: value after the change
+	 */
+	private void fireStatChanged(Stat stat, int oldValue, int newValue)
+	{
+		if(oldValue != newValue)
+		{
+			for(HeroListener listener : this.listeners)
+			{
+				listener.statChanged(this, stat, oldValue, newValue);
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Heros.Hero;
+import PartyContainers.AI;
+
+/**
+ * Benchmark of the per turn status tick, Hero.updateStatuses, under a growing number of statuses.
+ * The statuses never expire and never change a stat, so the hero needs no reset between invocations.
+ * @author Kevin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HeroBenchmark {
+	@Param({"1", "4", "16", "64"})
+	public int statusLoad;
+
+	private Hero hero;
+
+	@Setup
+	public void setUp()
+	{
+		hero = new BenchmarkParties(1, AI.CONTROLLER, statusLoad).get(0);
+	}
+
+	@Benchmark
+	public boolean updateStatuses()
+	{
+		return hero.updateStatuses();
+	}
+}
@@ -0,0 +1,789 @@
+package BattleSimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import BattleCommands.Ability;
+import BattleCommands.AbilityItem;
+import BattleCommands.HealthItem;
+import BattleCommands.Item;
+import BattleCommands.OffensiveAbility;
+import BattleCommands.StatusItem;
+import Heros.AbilityCategory;
+import Heros.Hero;
+import Heros.Monster;
+import Heros.SelectionLadder;
+import Heros.Stat;
+import PartyContainers.AI;
+import PartyContainers.Player;
+import Statuses.CrowdControlStatus;
+import Statuses.OffensiveStatusesPerTurn;
+import Statuses.Status;
+import Statuses.StatusEffectAbility;
+
+/**
+ * Both parties of a battle stored as primitive columns instead of Hero objects, for simulating battles in bulk.
+ * A unit is an index into every column: its stats are ints, its statuses are packed into a fixed number of long slots
+ * and its abilities are a range of a command table shared by every unit of the same class. A battle's worth of columns
+ * is a few hundred bytes laid out next to each other, where the heroes it is taken from hold every stat, name and
+ * image in their own objects and two HashMaps each.
+ *
+ * Columns are made from heroes with of, and written back to the heroes they were made from with writeTo. Statuses keep
+ * their name, stat, strength and remaining duration and are sorted into three kinds ColumnarBattle knows how to tick:
+ * crowd control, statuses that change their stat every turn and statuses that hold their stat changed until they run out.
+ *
+ * The AI side's monsters keep their decisions in the command table too: each class' archetype ladder, see Ladder, with
+ * its item thresholds and chances and its base attack, and the AI's inventory as items. Units of the human side have no
+ * ladder, ColumnarBattle plays them the way the GreedyTurnPolicy does.
+ *
+ * As BattleUnits the columns also hold the state of the battle being played on them: each unit's round and the battle's
+ * turn count, alive counts, outcome and random state.
+ * @author Kevin
+ *
+ */
+public final class HeroColumns implements BattleUnits {
+	public static final int STATUS_SLOTS = 8;
+	public static final byte HUMAN_SIDE = 0;
+	public static final byte AI_SIDE = 1;
+	// Status kinds
+	public static final int PER_TURN = 0;
+	public static final int HELD = 1;
+	public static final int CROWD_CONTROL = 2;
+	// Stat of a status that changes none of the columns, i.e crowd control
+	public static final int NO_STAT = 15;
+	public static final long NO_STATUS = -1L;
+	// Ladder of a unit played by the GreedyTurnPolicy
+	public static final int NO_LADDER = -1;
+	// Item kinds
+	static final int HEALTH_ITEM = 0;
+	static final int ABILITY_ITEM = 1;
+	static final int STATUS_ITEM = 2;
+	private static final Stat[] STATS = Stat.values();
+
+	final int size;
+	// One entry per unit
+	final int[] health;
+	final int[] maxHealth;
+	final int[] abilityPoints;
+	final int[] maxAbilityPoints;
+	final int[] defense;
+	final int[] speed;
+	final byte[] side;
+	// Position in the initial turn order, breaks ties between units of equal speed like TurnScheduler
+	final int[] seat;
+	// The unit's commands are commandStart[unit] to commandStart[unit] + commandCount[unit] in the command table
+	final int[] commandStart;
+	final int[] commandCount;
+	// Index of the unit's ladder in the command table, NO_LADDER on the human side
+	final int[] ladder;
+	// statuses[unit * STATUS_SLOTS + i] for i below statusCount[unit], oldest first
+	final long[] statuses;
+	final byte[] statusCount;
+	final int[] rounds;
+	// Rounds a unit's statuses are next due at, kept by ColumnarBattle, see BattleUnits
+	final int[] nextExpiry;
+	final int[] perTurnUntil;
+	final int[] crowdControlUntil;
+	final CommandTable commands;
+	private int turnCount = 0;
+	private final int[] aliveCounts = new int[2];
+	private BattleOutcome outcome = BattleOutcome.IN_PROGRESS;
+	private long randomState = 0;
+
+	private HeroColumns(int size, CommandTable commands)
+	{
+		this.size = size;
+		this.health = new int[size];
+		this.maxHealth = new int[size];
+		this.abilityPoints = new int[size];
+		this.maxAbilityPoints = new int[size];
+		this.defense = new int[size];
+		this.speed = new int[size];
+		this.side = new byte[size];
+		this.seat = new int[size];
+		this.commandStart = new int[size];
+		this.commandCount = new int[size];
+		this.ladder = new int[size];
+		this.statuses = new long[size * STATUS_SLOTS];
+		this.statusCount = new byte[size];
+		this.rounds = new int[size];
+		this.nextExpiry = new int[size];
+		this.perTurnUntil = new int[size];
+		this.crowdControlUntil = new int[size];
+		this.commands = commands;
+	}
+
+	/**
+	 * Make the columns of a battle, the human party's heroes first followed by the AI party's, each in party order.
+	 * The AI's inventory is compiled with them.
+	 * @param human: the human player
+	 * @param ai: the AI player
+	 * @return the columns
+	 * @throws IllegalArgumentException if a hero can't be made into columns, see of(List, byte[])
+	 */
+	public static HeroColumns of(Player human, AI ai)
+	{
+		ArrayList<Hero> heroes = new ArrayList<Hero>(human.getParty().values());
+		int humanCount = heroes.size();
+		heroes.addAll(ai.getPartySlots());
+		byte[] sides = new byte[heroes.size()];
+		Arrays.fill(sides, humanCount, sides.length, AI_SIDE);
+		HeroColumns columns = of(heroes, sides);
+		columns.commands.compileInventory(ai.getInventory().values());
+		return columns;
+	}
+
+	/**
+	 * Make columns from heroes, with an empty AI inventory.
+	 * @param heroes: the heroes, a hero's index is its unit
+	 * @param sides: HUMAN_SIDE or AI_SIDE of each hero
+	 * @return the columns
+	 * @throws IllegalArgumentException if a hero has more than STATUS_SLOTS statuses, or a hero of the AI side isn't a
+	 * Defender, Controller, Punisher or Weakener playing its ladder, i.e it searches for its commands
+	 */
+	public static HeroColumns of(List<Hero> heroes, byte[] sides)
+	{
+		CommandTable commands = new CommandTable();
+		HeroColumns columns = new HeroColumns(heroes.size(), commands);
+		IdentityHashMap<Class<?>, int[]> compiled = new IdentityHashMap<Class<?>, int[]>();
+		for(int unit = 0; unit < heroes.size(); unit++)
+		{
+			Hero hero = heroes.get(unit);
+			columns.health[unit] = hero.getHealth();
+			columns.maxHealth[unit] = hero.getMaxHealth();
+			columns.abilityPoints[unit] = hero.getAbilityPoints();
+			columns.maxAbilityPoints[unit] = hero.getMaxAP();
+			columns.defense[unit] = hero.getDefenseRating();
+			columns.speed[unit] = hero.getSpeed();
+			columns.side[unit] = sides[unit];
+			// Every hero of a class has the same abilities and ladder, so they are compiled once per class
+			int[] range = compiled.get(hero.getClass());
+			if(range == null)
+			{
+				range = commands.compile(hero);
+				compiled.put(hero.getClass(), range);
+			}
+			columns.commandStart[unit] = range[0];
+			columns.commandCount[unit] = range[1];
+			columns.ladder[unit] = NO_LADDER;
+			if(sides[unit] == AI_SIDE)
+			{
+				if(range[2] == NO_LADDER || ((Monster) hero).getCommandSearch() != null)
+				{
+					throw new IllegalArgumentException(hero.getClass().getName() + " doesn't play an archetype ladder");
+				}
+				columns.ladder[unit] = range[2];
+			}
+			if(hero.getStatusesById().size() > STATUS_SLOTS)
+			{
+				throw new IllegalArgumentException("A hero with " + hero.getStatusesById().size() + " statuses does not fit in "
+						+ STATUS_SLOTS + " status slots");
+			}
+			for(Status status : hero.getStatusesById().values())
+			{
+				columns.statuses[unit * STATUS_SLOTS + columns.statusCount[unit]++] = commands.pack(status);
+			}
+		}
+		// Seated the way TurnScheduler seats heroes: Hero.compareTo order reversed, fastest first
+		ArrayList<Hero> order = new ArrayList<Hero>(heroes);
+		Collections.sort(order);
+		Collections.reverse(order);
+		IdentityHashMap<Hero, Integer> seats = new IdentityHashMap<Hero, Integer>();
+		for(int i = 0; i < order.size(); i++)
+		{
+			seats.put(order.get(i), i);
+		}
+		for(int unit = 0; unit < heroes.size(); unit++)
+		{
+			columns.seat[unit] = seats.get(heroes.get(unit));
+		}
+		return columns;
+	}
+
+	/**
+	 * Make empty columns the size of these ones sharing their command table, to be filled with copyFrom.
+	 * @return the new columns
+	 */
+	public HeroColumns emptyCopy()
+	{
+		return new HeroColumns(size, commands);
+	}
+
+	/**
+	 * Overwrite every column and the battle state with another's, which must be the same size, so a battle can start
+	 * again without allocating.
+	 * @param other: columns to copy
+	 */
+	public void copyFrom(HeroColumns other)
+	{
+		if(other.size != size || other.commands != commands)
+		{
+			throw new IllegalArgumentException("Can only copy columns made from the same heroes");
+		}
+		System.arraycopy(other.health, 0, health, 0, size);
+		System.arraycopy(other.maxHealth, 0, maxHealth, 0, size);
+		System.arraycopy(other.abilityPoints, 0, abilityPoints, 0, size);
+		System.arraycopy(other.maxAbilityPoints, 0, maxAbilityPoints, 0, size);
+		System.arraycopy(other.defense, 0, defense, 0, size);
+		System.arraycopy(other.speed, 0, speed, 0, size);
+		System.arraycopy(other.side, 0, side, 0, size);
+		System.arraycopy(other.seat, 0, seat, 0, size);
+		System.arraycopy(other.commandStart, 0, commandStart, 0, size);
+		System.arraycopy(other.commandCount, 0, commandCount, 0, size);
+		System.arraycopy(other.ladder, 0, ladder, 0, size);
+		System.arraycopy(other.statuses, 0, statuses, 0, statuses.length);
+		System.arraycopy(other.statusCount, 0, statusCount, 0, size);
+		System.arraycopy(other.rounds, 0, rounds, 0, size);
+		System.arraycopy(other.nextExpiry, 0, nextExpiry, 0, size);
+		System.arraycopy(other.perTurnUntil, 0, perTurnUntil, 0, size);
+		System.arraycopy(other.crowdControlUntil, 0, crowdControlUntil, 0, size);
+		turnCount = other.turnCount;
+		aliveCounts[HUMAN_SIDE] = other.aliveCounts[HUMAN_SIDE];
+		aliveCounts[AI_SIDE] = other.aliveCounts[AI_SIDE];
+		outcome = other.outcome;
+		randomState = other.randomState;
+	}
+
+	@Override
+	public void load(HeroColumns prototype)
+	{
+		copyFrom(prototype);
+		Arrays.fill(rounds, 0);
+		turnCount = 0;
+		aliveCounts[HUMAN_SIDE] = 0;
+		aliveCounts[AI_SIDE] = 0;
+		outcome = BattleOutcome.IN_PROGRESS;
+		randomState = 0;
+	}
+
+	/**
+	 * Write the columns back to the heroes they were made from. Stats are set through the setters and every status is
+	 * applied again from the status it was packed from, with its remaining duration.
+	 * @param heroes: the heroes the columns were made from, in the same order
+	 */
+	public void writeTo(List<Hero> heroes)
+	{
+		if(heroes.size() != size)
+		{
+			throw new IllegalArgumentException("Columns of " + size + " units can't be written to " + heroes.size() + " heroes");
+		}
+		for(int unit = 0; unit < size; unit++)
+		{
+			Hero hero = heroes.get(unit);
+			for(Status status : new ArrayList<Status>(hero.getStatusesById().values()))
+			{
+				status.removeStatus(hero);
+			}
+			for(int i = 0; i < statusCount[unit]; i++)
+			{
+				long packed = statuses[unit * STATUS_SLOTS + i];
+				Status applied = commands.templates.get(template(packed)).addStatus(hero);
+				applied.setDuration(getDuration(unit, i));
+			}
+			// Stats last, so the statuses applied above leave them as the columns have them
+			hero.setHealth(health[unit]);
+			hero.setAbilityPoints(abilityPoints[unit]);
+			hero.setDefenseRating(defense[unit]);
+			hero.setSpeed(speed[unit]);
+		}
+	}
+
+	/**
+	 * Get the bytes held by one battle's columns, not counting the command table shared by every battle on the same parties.
+	 * @return bytes of column data
+	 */
+	public long footprintBytes()
+	{
+		// Fourteen int columns, two byte columns and the status slots
+		return size * (14L * Integer.BYTES + 2L) + (long) statuses.length * Long.BYTES;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public int getHealth(int unit)
+	{
+		return health[unit];
+	}
+
+	@Override
+	public void setHealth(int unit, int health)
+	{
+		this.health[unit] = health;
+	}
+
+	public int getMaxHealth(int unit)
+	{
+		return maxHealth[unit];
+	}
+
+	@Override
+	public int getAbilityPoints(int unit)
+	{
+		return abilityPoints[unit];
+	}
+
+	@Override
+	public void setAbilityPoints(int unit, int abilityPoints)
+	{
+		this.abilityPoints[unit] = abilityPoints;
+	}
+
+	public int getMaxAbilityPoints(int unit)
+	{
+		return maxAbilityPoints[unit];
+	}
+
+	@Override
+	public int getDefense(int unit)
+	{
+		return defense[unit];
+	}
+
+	@Override
+	public void setDefense(int unit, int defense)
+	{
+		this.defense[unit] = defense;
+	}
+
+	@Override
+	public int getSpeed(int unit)
+	{
+		return speed[unit];
+	}
+
+	@Override
+	public void setSpeed(int unit, int speed)
+	{
+		this.speed[unit] = speed;
+	}
+
+	@Override
+	public byte getSide(int unit)
+	{
+		return side[unit];
+	}
+
+	@Override
+	public int getSeat(int unit)
+	{
+		return seat[unit];
+	}
+
+	@Override
+	public int getCommandStart(int unit)
+	{
+		return commandStart[unit];
+	}
+
+	@Override
+	public int getCommandCount(int unit)
+	{
+		return commandCount[unit];
+	}
+
+	/**
+	 * Get the index of a unit's ladder in the command table. A battle never changes it, so ColumnarBattle reads it off the
+	 * columns the battle was loaded from.
+	 * @param unit: the unit
+	 * @return the ladder, NO_LADDER for a unit of the human side
+	 */
+	public int getLadder(int unit)
+	{
+		return ladder[unit];
+	}
+
+	@Override
+	public int getStatusCount(int unit)
+	{
+		return statusCount[unit];
+	}
+
+	@Override
+	public void setStatusCount(int unit, int count)
+	{
+		statusCount[unit] = (byte) count;
+	}
+
+	@Override
+	public long getStatus(int unit, int slot)
+	{
+		return statuses[unit * STATUS_SLOTS + slot];
+	}
+
+	@Override
+	public void setStatus(int unit, int slot, long status)
+	{
+		statuses[unit * STATUS_SLOTS + slot] = status;
+	}
+
+	/**
+	 * Get the remaining duration of a unit's status. Columns made with of hold remaining durations; once a battle is played
+	 * on them each status holds the round it runs out at, which is the same thing while the unit is in round 0.
+	 * @param unit: the unit
+	 * @param slot: slot below getStatusCount(unit)
+	 * @return turns of the unit's the status lasts for
+	 */
+	public int getDuration(int unit, int slot)
+	{
+		return duration(getStatus(unit, slot)) - rounds[unit];
+	}
+
+	@Override
+	public int getRound(int unit)
+	{
+		return rounds[unit];
+	}
+
+	@Override
+	public void setRound(int unit, int round)
+	{
+		rounds[unit] = round;
+	}
+
+	@Override
+	public int getNextExpiry(int unit)
+	{
+		return nextExpiry[unit];
+	}
+
+	@Override
+	public void setNextExpiry(int unit, int round)
+	{
+		nextExpiry[unit] = round;
+	}
+
+	@Override
+	public int getPerTurnUntil(int unit)
+	{
+		return perTurnUntil[unit];
+	}
+
+	@Override
+	public void setPerTurnUntil(int unit, int round)
+	{
+		perTurnUntil[unit] = round;
+	}
+
+	@Override
+	public int getCrowdControlUntil(int unit)
+	{
+		return crowdControlUntil[unit];
+	}
+
+	@Override
+	public void setCrowdControlUntil(int unit, int round)
+	{
+		crowdControlUntil[unit] = round;
+	}
+
+	@Override
+	public int getTurnCount()
+	{
+		return turnCount;
+	}
+
+	@Override
+	public void setTurnCount(int turnCount)
+	{
+		this.turnCount = turnCount;
+	}
+
+	@Override
+	public int getAliveCount(int side)
+	{
+		return aliveCounts[side];
+	}
+
+	@Override
+	public void setAliveCount(int side, int count)
+	{
+		aliveCounts[side] = count;
+	}
+
+	@Override
+	public BattleOutcome getOutcome()
+	{
+		return outcome;
+	}
+
+	@Override
+	public void setOutcome(BattleOutcome outcome)
+	{
+		this.outcome = outcome;
+	}
+
+	@Override
+	public long getRandomState()
+	{
+		return randomState;
+	}
+
+	@Override
+	public void setRandomState(long state)
+	{
+		randomState = state;
+	}
+
+	/**
+	 * Get the table the units' commands are ranges of.
+	 * @return the command table, shared with every copy of these columns
+	 */
+	CommandTable getCommands()
+	{
+		return commands;
+	}
+
+	//=========================================================================================================
+	//========================================== PACKED STATUSES ==============================================
+	// Bits 0-15 remaining duration, or the round it runs out at once a battle is played, 16-31 signed strength, 32-35 stat, 36-39 kind, 40-63 index of the status it came from
+
+	static long packStatus(int template, int kind, int stat, int strength, int duration)
+	{
+		return ((long) template << 40) | ((long) kind << 36) | ((long) stat << 32)
+				| ((long) (strength & 0xFFFF) << 16) | (duration & 0xFFFF);
+	}
+
+	public static int duration(long status)
+	{
+		return (int) (status & 0xFFFF);
+	}
+
+	public static int strength(long status)
+	{
+		return (short) (status >>> 16);
+	}
+
+	public static int stat(long status)
+	{
+		return (int) (status >>> 32) & 0xF;
+	}
+
+	public static int kind(long status)
+	{
+		return (int) (status >>> 36) & 0xF;
+	}
+
+	static int template(long status)
+	{
+		return (int) (status >>> 40);
+	}
+
+	static long withDuration(long status, int duration)
+	{
+		return (status & ~0xFFFFL) | (duration & 0xFFFF);
+	}
+
+	/**
+	 * Get the name of the status a packed status was made from.
+	 * @param status: packed status
+	 * @return the status name
+	 */
+	public String statusName(long status)
+	{
+		return commands.templates.get(template(status)).getName();
+	}
+
+	//=========================================================================================================
+	//============================================ COMMAND TABLE ==============================================
+
+	/**
+	 * Abilities of every class in the battle, compiled to their cost, damage, categories and the status they apply, the
+	 * ladders of the AI side's classes and the AI's items. Shared by every copy of the columns, it never changes once the
+	 * columns are made.
+	 */
+	static final class CommandTable {
+		String[] names = new String[8];
+		int[] costs = new int[8];
+		int[] damage = new int[8];
+		boolean[] offensive = new boolean[8];
+		// Bit 1 << ordinal of every AbilityCategory the command is in
+		int[] categories = new int[8];
+		// Packed status applied to the target, or to the user of a command that isn't offensive. NO_STATUS if none
+		long[] applies = new long[8];
+		int count = 0;
+		// Statuses the packed statuses were made from, to apply them again when writing columns back to heroes
+		final ArrayList<Status> templates = new ArrayList<Status>();
+		// Ladders of the classes that have one, a unit's ladder is an index into it
+		final ArrayList<Ladder> ladders = new ArrayList<Ladder>();
+		// The AI's items in inventory order, see compileInventory
+		String[] itemNames = new String[0];
+		int[] itemKinds = new int[0];
+		int[] itemStrengths = new int[0];
+		// Name of the status a STATUS_ITEM cures, null for the other kinds
+		String[] itemCures = new String[0];
+		// Items AI.scan would pick to heal health and ability points, -1 if it has none
+		int healthItem = -1;
+		int abilityItem = -1;
+
+		/**
+		 * Add a hero's abilities to the table, and the hero's ladder if it is a monster of one of the archetypes. The
+		 * ladder's base attack is added after the hero's abilities, outside their range, as Monster keeps it apart.
+		 * @return the first command, the number of commands and the ladder, NO_LADDER if the hero has none
+		 */
+		int[] compile(Hero hero)
+		{
+			int first = count;
+			for(Ability ability : hero.getAbilities().values())
+			{
+				add(ability, hero);
+			}
+			int abilities = count - first;
+			int ladder = NO_LADDER;
+			if(hero instanceof Monster && ((Monster) hero).getBaseAttack() != null)
+			{
+				Monster monster = (Monster) hero;
+				int baseAttack = count;
+				add(monster.getBaseAttack(), hero);
+				Ladder compiled = Ladder.of(monster, baseAttack);
+				if(compiled != null)
+				{
+					ladders.add(compiled);
+					ladder = ladders.size() - 1;
+				}
+			}
+			return new int[] {first, abilities, ladder};
+		}
+
+		private void add(Ability ability, Hero hero)
+		{
+			if(count == names.length)
+			{
+				names = Arrays.copyOf(names, count * 2);
+				costs = Arrays.copyOf(costs, count * 2);
+				damage = Arrays.copyOf(damage, count * 2);
+				offensive = Arrays.copyOf(offensive, count * 2);
+				categories = Arrays.copyOf(categories, count * 2);
+				applies = Arrays.copyOf(applies, count * 2);
+			}
+			names[count] = ability.toString();
+			costs[count] = ability.getPointCost();
+			offensive[count] = ability instanceof OffensiveAbility;
+			damage[count] = offensive[count] ? ((OffensiveAbility) ability).getDamage() : 0;
+			categories[count] = 0;
+			for(AbilityCategory category : AbilityCategory.values())
+			{
+				if(category.matches(ability))
+				{
+					categories[count] |= 1 << category.ordinal();
+				}
+			}
+			applies[count] = NO_STATUS;
+			if(ability instanceof StatusEffectAbility)
+			{
+				// The applied status is read off a throwaway copy so the ability's own status is never touched
+				Status applied = ((StatusEffectAbility) ability).applyAbilityStatus(hero.copy());
+				applies[count] = pack(applied);
+			}
+			count ++;
+		}
+
+		/**
+		 * Add the AI's items, picking the health and ability point items the way AI.scan does: the last of the kind in
+		 * the inventory with an effect.
+		 * @param items: the AI's inventory in order
+		 */
+		void compileInventory(Collection<Item> items)
+		{
+			int size = items.size();
+			itemNames = new String[size];
+			itemKinds = new int[size];
+			itemStrengths = new int[size];
+			itemCures = new String[size];
+			healthItem = -1;
+			abilityItem = -1;
+			int item = 0;
+			for(Item current : items)
+			{
+				itemNames[item] = current.toString();
+				itemStrengths[item] = current.getEffectStrength();
+				if(current instanceof HealthItem)
+				{
+					itemKinds[item] = HEALTH_ITEM;
+					healthItem = itemStrengths[item] > 0 ? item : healthItem;
+				}
+				else if(current instanceof AbilityItem)
+				{
+					itemKinds[item] = ABILITY_ITEM;
+					abilityItem = itemStrengths[item] > 0 ? item : abilityItem;
+				}
+				else
+				{
+					itemKinds[item] = STATUS_ITEM;
+					itemCures[item] = current instanceof StatusItem ? ((StatusItem) current).getStatusAffected() : null;
+				}
+				item ++;
+			}
+		}
+
+		long pack(Status status)
+		{
+			int kind;
+			if(status instanceof CrowdControlStatus)
+			{
+				kind = CROWD_CONTROL;
+			}
+			else if(status.getClass().getEnclosingClass() == OffensiveStatusesPerTurn.class)
+			{
+				kind = PER_TURN;
+			}
+			else
+			{
+				kind = HELD;
+			}
+			int stat = NO_STAT;
+			for(Stat candidate : STATS)
+			{
+				if(candidate.getKey().equals(status.getStatAffected()))
+				{
+					stat = candidate.ordinal();
+				}
+			}
+			templates.add(status);
+			return packStatus(templates.size() - 1, kind, stat, status.getEffectStrength(), status.getDuration());
+		}
+	}
+
+	/**
+	 * A monster's SelectionLadder compiled for the columns, with the command of its base attack and the item thresholds
+	 * and chances AI.scan checks before the ladder. The ladder is the archetype's own, ColumnarBattle walks it the way
+	 * Monster.selectCommand does and takes every draw where and when it does, so a ladder played on columns takes the
+	 * same draws as the monster.
+	 */
+	static final class Ladder {
+		final SelectionLadder selection;
+		final int baseAttack;
+		final double healRange;
+		final double healChance;
+		final double recoverRange;
+		final double cureChance;
+
+		private Ladder(Monster monster, SelectionLadder ladder, int baseAttack)
+		{
+			this.selection = ladder;
+			this.baseAttack = baseAttack;
+			this.healRange = monster.getHealRange();
+			this.healChance = monster.getHealChance();
+			this.recoverRange = monster.getRecoverPointsRange();
+			this.cureChance = monster.getCureChance();
+		}
+
+		/**
+		 * Get the ladder of a monster's archetype, with the monster's item thresholds and chances.
+		 * @return the ladder, null if the monster has none
+		 */
+		static Ladder of(Monster monster, int baseAttack)
+		{
+			SelectionLadder ladder = monster.getLadder();
+			return ladder == null ? null : new Ladder(monster, ladder, baseAttack);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package Heros;
+
+import Statuses.Status;
+
+/**
+ * Listener notified when a hero's state changes, used to keep battle bookkeeping such as the turn order
+ * up to date without rescanning the parties. Every method has an empty default so listeners only
+ * implement the events they need.
+ * @author Kevin
+ *
+ */
+public interface HeroListener {
+
+	/**
+	 * Called after one of the hero's stats changed value.
+	 * @param hero: hero whose stat changed
+	 * @param stat: the stat that changed
+	 * @param oldValue: value before the change
+	 * @param newValue: value after the change
+	 */
+	public default void statChanged(Hero hero, Stat stat, int oldValue, int newValue) {}
+
+	/**
+	 * Called after a status was applied to the hero.
+	 * @param hero: hero the status was applied to
+	 * @param status: the applied status, already in the hero's statuses
+	 */
+	public default void statusAdded(Hero hero, Status status) {}
+
+	/**
+	 * Called after a status was removed from the hero.
+	 * @param hero: hero the status was removed from
+	 * @param status: the removed status, no longer in the hero's statuses
+	 */
+	public default void statusRemoved(Hero hero, Status status) {}
+
+	/**
+	 * Called after the remaining duration of a status applied to the hero changed. Also sent for a status that has
+	 * since been removed from the hero, check the hero's statuses if that matters.
+	 * @param hero: hero the status was applied to
+	 * @param status: the status whose duration changed
+	 * @param oldDuration: duration before the change
+	 * @param newDuration: duration after the change
+	 */
+	public default void statusDurationChanged(Hero hero, Status status, int oldDuration, int newDuration) {}
+}
@@ -3,15 +3,33 @@ package JUnit_Tests;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
 import org.junit.Test;
 
+import BattleCommands.Ability;
 import BattleCommands.BaseAttack;
 import BattleCommands.DefensiveAbility;
 import BattleCommands.OffensiveAbility;
+import BattleSimulation.BattleRandom;
+import Heros.AbilityCategory;
+import Heros.DamageMatrix;
+import Heros.Hero;
+import Heros.Monster;
+import Heros.PartyRankings;
+import Heros.SelectionLadder;
+import Heros.SkeletonArcher;
 import Heros.SkeletonBoss;
+import Heros.SkeletonWarrior;
+import Heros.Stat;
 import PartyContainers.AI;
 import PartyContainers.AiBattleReturnType;
 import PartyContainers.HumanPlayer;
+import PartyContainers.Party;
 import RPG_Exceptions.BattleModelException;
 import Statuses.CrowdControlStatus;
 import Statuses.Status;
@@ -63,7 +81,7 @@ public class JUnit_Tests_AI {
 		AI ai = new AI();
 		SkeletonBoss hero = new SkeletonBoss(AI.CONTROLLER);
 		hero = (SkeletonBoss) ai.getCharacter(hero.getClass().getName());
-		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), 1.0); // Offensive Ability
+		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), 1.0, new SplittableRandom(1)); // Offensive Ability
 		boolean resultTrue = result.getCmd() instanceof OffensiveAbility;
 		assertTrue(resultTrue);
 		// The AI should select first an OffensiveAbility.
@@ -80,7 +98,7 @@ public class JUnit_Tests_AI {
 		AI ai = new AI();
 		SkeletonBoss hero = new SkeletonBoss(AI.CONTROLLER);
 		hero = (SkeletonBoss) ai.getCharacter(hero.getClass().getName());
-		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), 0.21); // Defensive Ability
+		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), 0.21, new SplittableRandom(1)); // Defensive Ability
 		boolean resultTrue = result.getCmd() instanceof DefensiveAbility;
 		assertTrue(resultTrue);
 		// The AI should select a DefensiveAbility.
@@ -98,12 +116,56 @@ public class JUnit_Tests_AI {
 		SkeletonBoss hero = new SkeletonBoss(AI.CONTROLLER);
 		hero = (SkeletonBoss) ai.getCharacter(hero.getClass().getName());
 		hero.setAbilityPoints(0);
-		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), 0.51); // Would pick Crowd Control if it had AP.
+		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), 0.51, new SplittableRandom(1)); // Would pick Crowd Control if it had AP.
 		boolean resultTrue = result.getCmd() instanceof BaseAttack;
 		assertTrue(resultTrue);
 		// The AI should select a DefensiveAbility.
 	}
 	
+	/**
+	 * Test AI ladders
+	 * Makes sure every monster of the default party picks from the rung of its archetype's ladder the value selects.
+	 * @throws BattleModelException 
+	 */
+	@Test
+	public void testAI_SelectionLadder() throws BattleModelException {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		for(Hero hero : ai.getPartySlots())
+		{
+			Monster monster = (Monster) hero;
+			for(SelectionLadder.Rung rung : monster.getLadder().getRungs())
+			{
+				AiBattleReturnType result = monster.selectCommand(human.getParty().values(), rung.getAbove() + 0.01, new SplittableRandom(3));
+				Ability command = (Ability) result.getCmd();
+				assertTrue(command == monster.getBaseAttack() || rung.getCategory().matches(command)
+						|| (rung.getAlternative() != null && rung.getAlternative().matches(command)));
+				assertEquals(rung.getTargetStat() == null && command != monster.getBaseAttack(), result.getTarget() == null);
+			}
+			AiBattleReturnType result = monster.selectCommand(human.getParty().values(), 0.0, new SplittableRandom(3));
+			assertTrue(result.getCmd() == monster.getBaseAttack());
+		}
+	}
+	
+	/**
+	 * Test AI baseAttack roll
+	 * Makes sure that a Monster with no choice to make uses its base attack without drawing from the battle's random source.
+	 * @throws BattleModelException 
+	 */
+	@Test
+	public void testAI_baseAttackDrawsNothing() throws BattleModelException {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		SkeletonArcher hero = new SkeletonArcher(AI.CONTROLLER);
+		hero = (SkeletonArcher) ai.getCharacter(hero.getClass().getName());
+		hero.setAbilityPoints(0);
+		assertTrue(hero.countAvailableAbilities() < 2);
+		BattleRandom random = new BattleRandom(1);
+		AiBattleReturnType result = hero.selectCommand(human.getParty().values(), random);
+		assertTrue(result.getCmd() instanceof BaseAttack);
+		assertEquals(0, random.getDraws());
+	}
+	
 	/**
 	 * Test AI while under crowd control
 	 * Makes sure that the Monster won't act while under a crowd control effect
@@ -139,4 +201,242 @@ public class JUnit_Tests_AI {
 		// The AI should not take any action
 	}
 	
+	/**
+	 * Test the ability index
+	 * Makes sure picking from the index draws the same ability as filtering the available abilities, for every category and AP,
+	 * and the index follows changes made to the map.
+	 */
+	@Test
+	public void testAI_AbilityIndex() {
+		AI ai = new AI();
+		SkeletonBoss hero = new SkeletonBoss(AI.CONTROLLER);
+		hero = (SkeletonBoss) ai.getCharacter(hero.getClass().getName());
+		for(int abilityPoints = 0; abilityPoints <= hero.getMaxAP(); abilityPoints++)
+		{
+			hero.setAbilityPoints(abilityPoints);
+			assertEquals(hero.getAvailableAbilities().size(), hero.countAvailableAbilities());
+			assertEquals(SkeletonBoss.getOffensiveAbility(hero.getAvailableAbilities(), new SplittableRandom(abilityPoints)),
+					hero.pickAvailableAbility(AbilityCategory.OFFENSIVE, new SplittableRandom(abilityPoints)));
+			assertEquals(SkeletonBoss.getOffensiveStatusAbility(hero.getAvailableAbilities(), new SplittableRandom(abilityPoints)),
+					hero.pickAvailableAbility(AbilityCategory.OFFENSIVE_STATUS, new SplittableRandom(abilityPoints)));
+			assertEquals(SkeletonBoss.getDefensiveAbility(hero.getAvailableAbilities(), new SplittableRandom(abilityPoints)),
+					hero.pickAvailableAbility(AbilityCategory.DEFENSIVE, new SplittableRandom(abilityPoints)));
+			assertEquals(SkeletonBoss.getCrowdControlAbility(hero.getAvailableAbilities(), new SplittableRandom(abilityPoints)),
+					hero.pickAvailableAbility(AbilityCategory.CROWD_CONTROL, new SplittableRandom(abilityPoints)));
+		}
+		// Every change to the map is in the buckets, and the views can't change it behind them
+		String name = hero.getAbilities().keySet().iterator().next();
+		hero.getAbilities().computeIfPresent(name, (key, ability) -> null);
+		assertEquals(hero.getAbilities().size(), hero.getAbilityIndex().countAffordable(Integer.MAX_VALUE));
+		boolean readOnly = false;
+		try
+		{
+			hero.getAbilities().values().clear();
+		}
+		catch(UnsupportedOperationException e)
+		{
+			readOnly = true;
+		}
+		assertTrue(readOnly);
+		assertEquals(hero.getAbilities().size(), hero.getAbilityIndex().countAffordable(Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Test the live rankings of the human party.
+	 * Makes sure the rankings pick the same targets as scanning the party as heroes are hurt, stunned, killed and revived.
+	 */
+	@Test
+	public void testAI_PartyRankings() {
+		HumanPlayer human = new HumanPlayer();
+		Collection<Hero> party = human.getParty().values();
+		PartyRankings rankings = new PartyRankings(human.getParty(), party);
+		assertTrue(rankings.ranks(human.getParty()));
+		SplittableRandom random = new SplittableRandom(18);
+		for(int change = 0; change < 200; change++)
+		{
+			Hero hero = Monster.pickRandom(new ArrayList<Hero>(party), random);
+			if(change % 7 == 0)
+			{
+				new CrowdControlStatus(null, 2, 2, 2).addStatus(hero);
+			}
+			else if(change % 11 == 0 && !hero.getStatuses().isEmpty())
+			{
+				hero.getStatuses().values().iterator().next().removeStatus(hero);
+			}
+			else
+			{
+				hero.setStat(Stat.values()[random.nextInt(Stat.values().length)], random.nextInt(-2, 10));
+			}
+			Collection<Hero> targets = Monster.getAvailableTargets(party);
+			assertEquals(new ArrayList<Hero>(targets), new ArrayList<Hero>(rankings));
+			for(Stat stat : Stat.values())
+			{
+				assertEquals(Monster.selectByStat(targets, stat, true), Monster.selectByStat(rankings, stat, true));
+				assertEquals(Monster.selectByStat(targets, stat, false), Monster.selectByStat(rankings, stat, false));
+			}
+			assertEquals(Monster.selectIfCrowdControlled(targets, new SplittableRandom(change)),
+					Monster.selectIfCrowdControlled(rankings, new SplittableRandom(change)));
+			assertEquals(Monster.selectIfNotCrowdControlled(targets, new SplittableRandom(change)),
+					Monster.selectIfNotCrowdControlled(rankings, new SplittableRandom(change)));
+			assertEquals(Monster.selectRandomTarget(targets, new SplittableRandom(change)),
+					Monster.selectRandomTarget(rankings, new SplittableRandom(change)));
+		}
+		rankings.detach();
+	}
+	
+	/**
+	 * Test an AI party of heroes of the same class.
+	 * Makes sure every hero gets its own slot and key, and the alive mask follows deaths, revives and removals.
+	 */
+	@Test
+	public void testAI_PartySlots() {
+		ArrayList<Hero> swarm = new ArrayList<Hero>();
+		for(int i = 0; i < 70; i++)
+		{
+			swarm.add(new SkeletonWarrior(AI.CONTROLLER));
+		}
+		AI ai = new AI(swarm);
+		Party party = ai.getPartySlots();
+		assertEquals(70, ai.getParty().size());
+		assertEquals(70, party.aliveCount());
+		assertEquals(swarm, new ArrayList<Hero>(party));
+		assertTrue(ai.getCharacter(SkeletonWarrior.class.getName()) == swarm.get(0));
+		assertTrue(ai.getCharacter(party.getKey(65)) == swarm.get(65));
+		
+		swarm.get(3).setHealth(0);
+		swarm.get(65).setHealth(-2);
+		assertEquals(68, party.aliveCount());
+		assertEquals(4, party.nextAlive(3));
+		assertEquals(66, party.nextAlive(65));
+		assertEquals(68, party.alive().size());
+		assertTrue(!party.alive().contains(swarm.get(65)));
+		swarm.get(3).setHealth(1);
+		assertEquals(3, party.nextAlive(3));
+		
+		assertTrue(party.removeSlot(10) == swarm.get(10));
+		assertEquals(69, party.size());
+		assertEquals(11, party.slotOf(swarm.get(11)));
+		assertEquals(-1, party.slotOf(swarm.get(10)));
+		// The map is the party's, changed either way both see it, and its keys sort in slot order
+		assertEquals(69, ai.getParty().size());
+		assertTrue(!ai.getParty().containsValue(swarm.get(10)));
+		assertEquals(new ArrayList<Hero>(party), new ArrayList<Hero>(ai.getParty().values()));
+		Hero added = new SkeletonWarrior(AI.CONTROLLER);
+		ai.getParty().put("added", added);
+		assertEquals(70, party.slotOf(added));
+		assertEquals(69, party.aliveCount());
+		ai.getParty().remove(party.getKey(11));
+		assertEquals(-1, party.slotOf(swarm.get(11)));
+		assertEquals(68, party.aliveCount());
+		// A hero put under a key already in the map takes the replaced hero's slot
+		Hero replacement = new SkeletonWarrior(AI.CONTROLLER);
+		replacement.setHealth(0);
+		assertTrue(ai.getParty().put(party.getKey(12), replacement) == swarm.get(12));
+		assertEquals(12, party.slotOf(replacement));
+		assertEquals(-1, party.slotOf(swarm.get(12)));
+		assertTrue(ai.getParty().get(party.getKey(12)) == replacement);
+		assertEquals(67, party.aliveCount());
+		assertEquals(71, party.getSlotCount());
+		swarm.get(12).setHealth(0);
+		replacement.setHealth(1);
+		assertEquals(68, party.aliveCount());
+		
+		Party copy = party.copy();
+		assertEquals(party.aliveCount(), copy.aliveCount());
+		assertEquals(party.getKey(65), copy.getKey(65));
+		copy.get(0).setHealth(0);
+		assertEquals(68, party.aliveCount());
+		assertEquals(67, copy.aliveCount());
+	}
+	
+	/**
+	 * Test the damage matrix of a battle.
+	 * Makes sure every lookup matches evaluateDamage as defenses, damage, ability points and deaths change, only changed
+	 * targets and abilities go stale and the kept threat matches the threat worked out from scratch.
+	 */
+	@Test
+	public void testAI_DamageMatrix() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		ArrayList<Hero> heroes = new ArrayList<Hero>(human.getParty().values());
+		heroes.addAll(ai.getParty().values());
+		int humanCount = human.getParty().size();
+		DamageMatrix matrix = new DamageMatrix(human.getParty().values(), ai.getParty().values());
+		assertTrue(matrix.getRowCount() > 0);
+		SplittableRandom random = new SplittableRandom(24);
+		IdentityHashMap<OffensiveAbility, Integer> damages = new IdentityHashMap<OffensiveAbility, Integer>();
+		for(int change = 0; change < 50; change++)
+		{
+			Hero changed = Monster.pickRandom(heroes, random);
+			changed.setDefenseRating(changed.getDefenseRating() + random.nextInt(-4, 5));
+			assertTrue(matrix.getStaleCount() <= 1);
+			if(change % 3 == 0)
+			{
+				ArrayList<OffensiveAbility> attacks = attacksOf(changed);
+				OffensiveAbility attack = attacks.get(random.nextInt(attacks.size()));
+				damages.putIfAbsent(attack, attack.getDamage());
+				attack.setDamage(attack.getDamage() + random.nextInt(1, 6));
+				assertTrue(matrix.getStaleRowCount() >= 1);
+				changed.setAbilityPoints(random.nextInt(0, changed.getMaxAP() + 1));
+			}
+			if(change % 10 == 5)
+			{
+				changed.setHealth(changed.getHealth() > 0 ? 0 : changed.getMaxHealth());
+			}
+			for(Hero target : heroes)
+			{
+				boolean targetHuman = heroes.indexOf(target) < humanCount;
+				int threat = 0;
+				for(Hero attacker : heroes)
+				{
+					if(targetHuman == heroes.indexOf(attacker) < humanCount)
+					{
+						continue;
+					}
+					int best = 0;
+					for(OffensiveAbility attack : attacksOf(attacker))
+					{
+						int damage = OffensiveAbility.evaluateDamage(target, attack);
+						assertEquals(damage, matrix.getDamage(attacker, attack, target));
+						if(attack.getPointCost() <= attacker.getAbilityPoints())
+						{
+							best = Math.max(best, damage);
+						}
+					}
+					assertEquals(best, matrix.getBestDamage(attacker, target));
+					assertEquals(best >= target.getHealth(), matrix.canKill(attacker, target));
+					threat = attacker.getHealth() > 0 ? Math.max(threat, best) : threat;
+				}
+				assertEquals(threat, matrix.getThreat(target));
+			}
+			assertEquals(0, matrix.getStaleCount());
+			assertEquals(0, matrix.getStaleRowCount());
+		}
+		matrix.detach();
+		for(Map.Entry<OffensiveAbility, Integer> entry : damages.entrySet())
+		{
+			entry.getKey().setDamage(entry.getValue());
+		}
+		assertEquals(0, matrix.getStaleRowCount());
+	}
+	
+	/**
+	 * Get a hero's offensive abilities, a monster's base attack included, as the damage matrix has them.
+	 */
+	private static ArrayList<OffensiveAbility> attacksOf(Hero hero)
+	{
+		ArrayList<OffensiveAbility> attacks = new ArrayList<OffensiveAbility>();
+		for(Ability ability : hero.getAbilities().values())
+		{
+			if(ability instanceof OffensiveAbility)
+			{
+				attacks.add((OffensiveAbility) ability);
+			}
+		}
+		if(hero instanceof Monster && !attacks.contains(((Monster) hero).getBaseAttack()))
+		{
+			attacks.add(((Monster) hero).getBaseAttack());
+		}
+		return attacks;
+	}
 }
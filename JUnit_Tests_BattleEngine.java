@@ -0,0 +1,740 @@
+package JUnit_Tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import BattleCommands.CommandResult;
+import BattleCommands.OffensiveAbility;
+import BattleCommands.PaladinAbility;
+import BattleCommands.UndoRecord;
+
+import org.junit.Test;
+
+import GridGUI.BattleController;
+
+import BattleSimulation.ArenaPool;
+import BattleSimulation.ArenaSimulator;
+import BattleSimulation.BattleArena;
+import BattleSimulation.BattleEngine;
+import BattleSimulation.BattleJournal;
+import BattleSimulation.BattleOutcome;
+import BattleSimulation.BattleReplayer;
+import BattleSimulation.BattleSimulator;
+import BattleSimulation.BattleSnapshot;
+import BattleSimulation.ColumnarBattle;
+import BattleSimulation.ExpectimaxSearch;
+import BattleSimulation.GreedyTurnPolicy;
+import BattleSimulation.HashCollisionHarness;
+import BattleSimulation.HeroColumns;
+import BattleSimulation.MonteCarloSearch;
+import BattleSimulation.SearchParallelism;
+import BattleSimulation.SimulationReport;
+import BattleSimulation.TranspositionTable;
+import BattleSimulation.TurnRecord;
+import BattleSimulation.TurnScheduler;
+import Heros.Hero;
+import Heros.Monster;
+import Heros.SkeletonArcher;
+import Heros.SkeletonSpearMan;
+import Heros.SkeletonWarrior;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+import PartyContainers.HumanPlayer;
+import Statuses.CrowdControlStatus;
+import Statuses.OffensiveStatusesPerTurn;
+import Statuses.Status;
+
+public class JUnit_Tests_BattleEngine {
+
+	/**
+	 * Test a headless battle
+	 * Makes sure a battle can be played out with no controller and ends with a result.
+	 */
+	@Test
+	public void testEngine_RunToCompletion() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai);
+		BattleOutcome outcome = engine.run();
+		assertTrue(outcome != BattleOutcome.IN_PROGRESS);
+		assertTrue(engine.isOver());
+		// A step after the battle is over does nothing
+		assertTrue(engine.step() == null);
+	}
+
+	/**
+	 * Test the win condition
+	 * Makes sure the AI wins as soon as the whole human party is dead.
+	 */
+	@Test
+	public void testEngine_PartyDead() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai);
+		for(Hero hero : human.getParty().values())
+		{
+			hero.setHealth(0);
+		}
+		assertTrue(engine.checkBattleStatus());
+		assertEquals(BattleOutcome.AI_VICTORY, engine.getOutcome());
+	}
+
+	/**
+	 * Test the turn limit
+	 * Makes sure a battle that cannot finish is called a draw.
+	 */
+	@Test
+	public void testEngine_TurnLimit() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai);
+		BattleOutcome outcome = engine.run(0);
+		assertEquals(BattleOutcome.DRAW, outcome);
+		assertEquals(0, engine.getTurnCount());
+	}
+	
+	/**
+	 * Test the battle simulator
+	 * Makes sure the same seed gives the same report however the battles are split across threads, and every battle
+	 * is counted once as a win, a loss or a draw.
+	 */
+	@Test
+	public void testEngine_SimulatorDeterministic() {
+		SimulationReport first = new BattleSimulator(HumanPlayer::new).simulate(200, 11L);
+		ForkJoinPool single = new ForkJoinPool(1);
+		SimulationReport second = new BattleSimulator(HumanPlayer::new, AI::new, GreedyTurnPolicy::new, single,
+				BattleEngine.DEFAULT_TURN_LIMIT).simulate(200, 11L);
+		single.shutdown();
+		assertSameReport(first, second);
+		assertEquals(200, first.getBattles());
+		assertEquals(first.getBattles(), first.getHumanWins() + first.getAIWins() + first.getDraws());
+		assertEquals(first.getBattles(), Arrays.stream(first.getTurnHistogram()).sum());
+	}
+	
+	/**
+	 * Test replaying a battle
+	 * Makes sure two battles with the same seed play out exactly the same.
+	 */
+	@Test
+	public void testEngine_ReplayFromSeed() {
+		HumanPlayer firstHuman = new HumanPlayer();
+		AI firstAI = new AI();
+		BattleEngine first = new BattleEngine(firstHuman, firstAI, new GreedyTurnPolicy(), 1234L);
+		HumanPlayer secondHuman = new HumanPlayer();
+		AI secondAI = new AI();
+		BattleEngine second = new BattleEngine(secondHuman, secondAI, new GreedyTurnPolicy(), 1234L);
+		
+		assertEquals(first.run(), second.run());
+		assertEquals(first.getTurnCount(), second.getTurnCount());
+		for(String name : firstHuman.getParty().keySet())
+		{
+			assertEquals(firstHuman.getCharacter(name).getHealth(), secondHuman.getCharacter(name).getHealth());
+		}
+		for(String name : firstAI.getParty().keySet())
+		{
+			assertEquals(firstAI.getCharacter(name).getHealth(), secondAI.getCharacter(name).getHealth());
+		}
+	}
+	
+	/**
+	 * Test the turn scheduler
+	 * Makes sure a dead hero is dropped from the turn order, a revived hero is put back and a speed buff moves a hero up.
+	 */
+	@Test
+	public void testEngine_TurnScheduler() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai);
+		TurnScheduler scheduler = engine.getScheduler();
+		int heroCount = human.getParty().size() + ai.getParty().size();
+		assertEquals(heroCount, scheduler.size());
+		
+		Hero first = engine.nextActor();
+		first.setHealth(0);
+		assertEquals(heroCount - 1, scheduler.size());
+		assertFalse(scheduler.upcoming(heroCount * 2).contains(first));
+		first.setHealth(1);
+		assertEquals(heroCount, scheduler.size());
+		
+		List<Hero> order = scheduler.upcoming(heroCount);
+		Hero last = order.get(order.size() - 1);
+		last.setSpeed(first.getSpeed() + 1000);
+		assertTrue(engine.nextActor() == last);
+		engine.endTurn(last);
+		assertFalse(engine.nextActor() == last);
+	}
+	
+	/**
+	 * Test the battle journal
+	 * Makes sure a recorded battle replays to the same result on fresh parties.
+	 */
+	@Test
+	public void testEngine_JournalReplay() throws IOException {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 99L);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BattleJournal journal = new BattleJournal(Channels.newChannel(bytes));
+		engine.setJournal(journal);
+		BattleOutcome outcome = engine.run();
+		journal.close();
+		
+		HumanPlayer replayHuman = new HumanPlayer();
+		AI replayAI = new AI();
+		BattleReplayer replayer = new BattleReplayer(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+		BattleEngine replayed = replayer.replay(replayHuman, replayAI);
+		replayer.close();
+		
+		assertEquals(outcome, replayed.getOutcome());
+		assertEquals(engine.getTurnCount(), replayed.getTurnCount());
+		assertEquals(engine.getRandom().getDraws(), replayed.getRandom().getDraws());
+		for(String name : human.getParty().keySet())
+		{
+			assertEquals(human.getCharacter(name).getHealth(), replayHuman.getCharacter(name).getHealth());
+		}
+	}
+	
+	/**
+	 * Test snapshot and restore
+	 * Makes sure a battle restored to its start plays out exactly the same again.
+	 */
+	@Test
+	public void testEngine_SnapshotRestore() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 4321L);
+		for(int i = 0; i < 3; i++)
+		{
+			engine.step();
+		}
+		BattleSnapshot snapshot = engine.snapshot();
+		
+		BattleOutcome outcome = engine.run();
+		int turns = engine.getTurnCount();
+		int[] health = new int[engine.getHeroes().size()];
+		for(int i = 0; i < health.length; i++)
+		{
+			health[i] = engine.getHeroes().get(i).getHealth();
+		}
+		
+		engine.restore(snapshot);
+		assertEquals(snapshot.getTurnCount(), engine.getTurnCount());
+		assertFalse(engine.isOver());
+		assertEquals(outcome, engine.run());
+		assertEquals(turns, engine.getTurnCount());
+		for(int i = 0; i < health.length; i++)
+		{
+			assertEquals(health[i], engine.getHeroes().get(i).getHealth());
+		}
+	}
+	
+	/**
+	 * Test the Monte Carlo search
+	 * Makes sure monsters searching under an iteration budget finish the battle and decide the same way from the same seed.
+	 */
+	@Test
+	public void testEngine_MonteCarloSearch() {
+		BattleOutcome[] outcomes = new BattleOutcome[2];
+		int[] turns = new int[2];
+		for(int i = 0; i < 2; i++)
+		{
+			HumanPlayer human = new HumanPlayer();
+			AI ai = new AI();
+			BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 2024L);
+			MonteCarloSearch search = new MonteCarloSearch(engine, 64, 0);
+			search.attach(ai);
+			outcomes[i] = engine.run();
+			turns[i] = engine.getTurnCount();
+			assertTrue(outcomes[i] != BattleOutcome.IN_PROGRESS);
+		}
+		assertEquals(outcomes[0], outcomes[1]);
+		assertEquals(turns[0], turns[1]);
+	}
+	
+	/**
+	 * Test the parallel Monte Carlo search
+	 * Makes sure both parallel modes spend exactly the iteration budget and return one of the monster's abilities.
+	 */
+	@Test
+	public void testEngine_ParallelSearch() {
+		for(SearchParallelism parallelism : SearchParallelism.values())
+		{
+			HumanPlayer human = new HumanPlayer();
+			AI ai = new AI();
+			BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 77L);
+			MonteCarloSearch search = new MonteCarloSearch(engine, 100, 0);
+			search.setParallelism(parallelism, 3);
+			Monster monster = (Monster) ai.getParty().firstEntry().getValue();
+			AiBattleReturnType move = search.selectCommand(monster, human.getParty().values(), engine.getRandom());
+			assertTrue(monster.getAbilities().containsValue(move.getCmd()) || move.getCmd() == monster.getBaseAttack());
+			assertTrue(search.getLastIterations() >= 100 && search.getLastIterations() <= 102);
+		}
+	}
+	
+	/**
+	 * Test the expectimax search
+	 * Makes sure monsters searching three turns deep finish the battle and reuse states from the transposition table.
+	 */
+	@Test
+	public void testEngine_ExpectimaxSearch() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 5L);
+		ExpectimaxSearch search = new ExpectimaxSearch(engine, 3, 0);
+		search.attach(ai);
+		assertTrue(engine.run() != BattleOutcome.DRAW);
+		assertTrue(search.getTable().getHits() > 0);
+	}
+	
+	/**
+	 * Test the transposition table
+	 * Makes sure entries are only returned for the same key at the same depth or shallower, and the table stays bounded.
+	 */
+	@Test
+	public void testEngine_TranspositionTable() {
+		TranspositionTable table = new TranspositionTable(8);
+		table.store(42L, 3, 1.5);
+		assertEquals(1.5, table.probe(42L, 2), 0);
+		assertTrue(Double.isNaN(table.probe(42L, 4)));
+		assertTrue(Double.isNaN(table.probe(43L, 1)));
+		for(long key = 0; key < 100; key++)
+		{
+			table.store(key * 31, 1, key);
+		}
+		assertEquals(8, table.getCapacity());
+		assertTrue(table.getEvictions() > 0);
+	}
+	
+	/**
+	 * Test the Zobrist hash
+	 * Makes sure the kept hash matches one worked out from scratch every turn, comes back with a restored snapshot,
+	 * is the same for a fork and doesn't collide between the states of many battles.
+	 */
+	@Test
+	public void testEngine_ZobristHash() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 14L);
+		engine.step();
+		BattleSnapshot snapshot = engine.snapshot();
+		long saved = engine.getStateHash();
+		assertEquals(saved, engine.fork().getStateHash());
+		while(engine.step() != null)
+		{
+			assertEquals(engine.getZobristHash().recompute(), engine.getStateHash());
+		}
+		assertTrue(engine.getStateHash() != saved);
+		engine.restore(snapshot);
+		assertEquals(saved, engine.getStateHash());
+		assertEquals(saved, engine.getZobristHash().recompute());
+
+		HashCollisionHarness.Result result = new HashCollisionHarness().run(200, 3L, 64);
+		assertEquals(0, result.getMismatches());
+		assertEquals(0, result.getCollisions());
+		assertTrue(result.getDistinctStates() > 1000);
+	}
+	
+	/**
+	 * Test make and unmake
+	 * Makes sure a command taken back with its undo record leaves both heroes as they were, and turns taken back with a
+	 * turn record leave the battle to play out the same as a fork taken before them.
+	 */
+	@Test
+	public void testEngine_MakeUnmake() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 77L);
+		Monster monster = (Monster) ai.getParty().values().iterator().next();
+		Hero target = human.getParty().values().iterator().next();
+		int health = target.getHealth();
+		int abilityPoints = monster.getAbilityPoints();
+		UndoRecord undo = monster.getBaseAttack().make(monster, target);
+		assertTrue(target.getHealth() < health);
+		undo.unmake();
+		assertEquals(health, target.getHealth());
+		assertEquals(abilityPoints, monster.getAbilityPoints());
+		assertEquals(0, undo.size());
+
+		engine.step();
+		BattleEngine fork = engine.fork();
+		long hash = engine.getStateHash();
+		TurnRecord record = engine.mark(new TurnRecord());
+		for(int i = 0; i < 6; i++)
+		{
+			engine.step();
+		}
+		engine.unmake(record);
+		assertEquals(hash, engine.getStateHash());
+		assertEquals(hash, engine.getZobristHash().recompute());
+		assertEquals(fork.run(), engine.run());
+		assertEquals(fork.getTurnCount(), engine.getTurnCount());
+	}
+	
+	/**
+	 * Test the result codes
+	 * Makes sure a command that can't be paid for reports why without throwing or changing either hero.
+	 */
+	@Test
+	public void testEngine_CommandResult() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		Hero hero = human.getParty().values().iterator().next();
+		Hero target = ai.getParty().values().iterator().next();
+		PaladinAbility.HolySmite smite = new PaladinAbility.HolySmite();
+		hero.setAbilityPoints(smite.getPointCost() - 1);
+		int health = target.getHealth();
+		assertEquals(CommandResult.NOT_ENOUGH_ABILITY_POINTS, smite.validate(hero, target));
+		assertEquals(CommandResult.NOT_ENOUGH_ABILITY_POINTS, smite.tryUse(hero, target));
+		assertEquals(health, target.getHealth());
+		hero.setAbilityPoints(smite.getPointCost());
+		assertEquals(CommandResult.SUCCESS, smite.tryUse(hero, target));
+		assertTrue(target.getHealth() < health);
+		assertEquals(0, hero.getAbilityPoints());
+	}
+	
+	/**
+	 * Test the end of a battle
+	 * Makes sure the end listeners are told once, however often the battle is checked, for a party of any size.
+	 */
+	@Test
+	public void testEngine_BattleEndsOnce() {
+		ArrayList<Hero> swarm = new ArrayList<Hero>();
+		for(int i = 0; i < 100; i++)
+		{
+			swarm.add(new SkeletonWarrior(AI.CONTROLLER));
+		}
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI(swarm);
+		BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 20L);
+		int[] ends = new int[1];
+		engine.addBattleEndListener((battle, outcome) -> ends[0]++);
+		assertEquals(100, engine.getAIAliveCount());
+		for(Hero hero : swarm)
+		{
+			hero.setHealth(0);
+		}
+		assertEquals(0, engine.getAIAliveCount());
+		swarm.get(42).setHealth(1);
+		assertEquals(1, engine.getAIAliveCount());
+		assertFalse(engine.checkBattleStatus());
+		swarm.get(42).setHealth(0);
+		assertTrue(engine.checkBattleStatus());
+		assertTrue(engine.checkBattleStatus());
+		assertEquals(BattleOutcome.HUMAN_VICTORY, engine.run());
+		assertEquals(1, ends[0]);
+	}
+	
+	/**
+	 * Test the alive counts
+	 * Makes sure each party's count follows a revive and a death again, and only the last death of a party ends the battle.
+	 * The engine holds both parties by slot.
+	 */
+	@Test
+	public void testEngine_AliveCounts() {
+		for(boolean humanSide : new boolean[] {true, false})
+		{
+			HumanPlayer human = new HumanPlayer();
+			AI ai = new AI();
+			BattleEngine engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 21L);
+			List<Hero> party = new ArrayList<Hero>((humanSide ? human.getParty() : ai.getParty()).values());
+			// Both sides are held by slot, the human party in the order of its map's keys
+			assertEquals(new ArrayList<Hero>(human.getParty().values()), new ArrayList<Hero>(engine.getHumanParty()));
+			assertSame(ai.getPartySlots(), engine.getAIParty());
+			for(Hero hero : party)
+			{
+				hero.setHealth(0);
+			}
+			Hero revived = party.get(party.size() - 1);
+			revived.setHealth(5);
+			assertEquals(1, humanSide ? engine.getHumanAliveCount() : engine.getAIAliveCount());
+			assertEquals(1, (humanSide ? engine.getHumanParty() : engine.getAIParty()).aliveCount());
+			assertEquals(4, humanSide ? engine.getAIAliveCount() : engine.getHumanAliveCount());
+			assertFalse(engine.checkBattleStatus());
+			revived.setHealth(-3);
+			assertEquals(0, humanSide ? engine.getHumanAliveCount() : engine.getAIAliveCount());
+			assertTrue(engine.checkBattleStatus());
+			assertEquals(humanSide ? BattleOutcome.AI_VICTORY : BattleOutcome.HUMAN_VICTORY, engine.getOutcome());
+		}
+	}
+	
+	/**
+	 * Test the columns of a battle
+	 * Makes sure heroes convert to columns and back without losing a stat or status, and a columnar battle repeats from its seed.
+	 */
+	@Test
+	public void testEngine_HeroColumns() {
+		HumanPlayer human = new HumanPlayer();
+		AI ai = new AI();
+		List<Hero> heroes = new ArrayList<Hero>(human.getParty().values());
+		heroes.addAll(ai.getPartySlots());
+		new CrowdControlStatus(null, 2, 2, 2).addStatus(heroes.get(0));
+		new OffensiveStatusesPerTurn.Poison(-2, 3, 3).addStatus(heroes.get(0));
+		HeroColumns columns = HeroColumns.of(human, ai);
+		assertEquals(heroes.size(), columns.size());
+		for(int unit = 0; unit < heroes.size(); unit++)
+		{
+			Hero hero = heroes.get(unit);
+			assertEquals(hero.getHealth(), columns.getHealth(unit));
+			assertEquals(hero.getAbilityPoints(), columns.getAbilityPoints(unit));
+			assertEquals(hero.getDefenseRating(), columns.getDefense(unit));
+			assertEquals(hero.getSpeed(), columns.getSpeed(unit));
+			assertEquals(hero.getStatuses().size(), columns.getStatusCount(unit));
+		}
+		assertEquals(HeroColumns.CROWD_CONTROL, HeroColumns.kind(columns.getStatus(0, 0)));
+		assertEquals(HeroColumns.PER_TURN, HeroColumns.kind(columns.getStatus(0, 1)));
+		assertEquals(-2, HeroColumns.strength(columns.getStatus(0, 1)));
+		assertEquals(3, HeroColumns.duration(columns.getStatus(0, 1)));
+		
+		ColumnarBattle battle = new ColumnarBattle(columns);
+		BattleOutcome outcome = battle.play(11L, BattleEngine.DEFAULT_TURN_LIMIT, null);
+		int turns = battle.getTurnCount();
+		assertTrue(outcome != BattleOutcome.IN_PROGRESS);
+		assertEquals(outcome, battle.play(11L, BattleEngine.DEFAULT_TURN_LIMIT, null));
+		assertEquals(turns, battle.getTurnCount());
+		
+		HeroColumns ended = battle.getUnits();
+		ended.writeTo(heroes);
+		for(int unit = 0; unit < heroes.size(); unit++)
+		{
+			Hero hero = heroes.get(unit);
+			assertEquals(ended.getHealth(unit), hero.getHealth());
+			assertEquals(ended.getAbilityPoints(unit), hero.getAbilityPoints());
+			assertEquals(ended.getDefense(unit), hero.getDefenseRating());
+			assertEquals(ended.getStatusCount(unit), hero.getStatuses().size());
+		}
+	}
+	
+	/**
+	 * Test columnar battles against the engine
+	 * Makes sure the columns play the AI's ladders and the human's greedy policy like the engine, so both simulators
+	 * give the same outcomes, turns and commands from the same seeds, for the default parties and for repeated classes.
+	 */
+	@Test
+	public void testEngine_ColumnarMatchesEngine() {
+		SimulationReport engine = new BattleSimulator(HumanPlayer::new).simulate(300, 17L);
+		SimulationReport columns = new ColumnarBattle(HeroColumns.of(new HumanPlayer(), new AI()))
+				.simulate(300, 17L, BattleEngine.DEFAULT_TURN_LIMIT);
+		assertSameReport(engine, columns);
+		
+		Supplier<AI> repeated = () -> new AI(Arrays.<Hero>asList(new SkeletonSpearMan(AI.CONTROLLER),
+				new SkeletonSpearMan(AI.CONTROLLER), new SkeletonArcher(AI.CONTROLLER), new SkeletonWarrior(AI.CONTROLLER)));
+		engine = new BattleSimulator(HumanPlayer::new, repeated, GreedyTurnPolicy::new, ForkJoinPool.commonPool(),
+				BattleEngine.DEFAULT_TURN_LIMIT).simulate(300, 18L);
+		columns = new ColumnarBattle(HeroColumns.of(new HumanPlayer(), repeated.get()))
+				.simulate(300, 18L, BattleEngine.DEFAULT_TURN_LIMIT);
+		assertSameReport(engine, columns);
+	}
+	
+	private static void assertSameReport(SimulationReport expected, SimulationReport actual) {
+		assertEquals(expected.getBattles(), actual.getBattles());
+		assertEquals(expected.getHumanWins(), actual.getHumanWins());
+		assertEquals(expected.getAIWins(), actual.getAIWins());
+		assertEquals(expected.getDraws(), actual.getDraws());
+		assertArrayEquals(expected.getTurnHistogram(), actual.getTurnHistogram());
+		assertEquals(expected.getCommandUsage(), actual.getCommandUsage());
+	}
+	
+	/**
+	 * Test battles played off the heap
+	 * Makes sure battles in arenas give the same results as on columns, and arenas are handed out again once released.
+	 */
+	@Test
+	public void testEngine_ArenaSimulator() {
+		HeroColumns prototype = HeroColumns.of(new HumanPlayer(), new AI());
+		SimulationReport columns = new ColumnarBattle(prototype).simulate(300, 5L, BattleEngine.DEFAULT_TURN_LIMIT);
+		ArenaPool arenas = new ArenaPool(prototype, 64);
+		SimulationReport arena = new ArenaSimulator(prototype, arenas, ForkJoinPool.commonPool(),
+				BattleEngine.DEFAULT_TURN_LIMIT).simulate(300, 5L);
+		assertEquals(columns.getBattles(), arena.getBattles());
+		assertEquals(columns.getHumanWins(), arena.getHumanWins());
+		assertEquals(columns.getAIWins(), arena.getAIWins());
+		assertEquals(columns.getDraws(), arena.getDraws());
+		assertArrayEquals(columns.getTurnHistogram(), arena.getTurnHistogram());
+		assertEquals(columns.getCommandUsage(), arena.getCommandUsage());
+		
+		ArenaPool recycled = new ArenaPool(prototype, 8);
+		BattleArena first = recycled.acquire();
+		recycled.release(first);
+		assertSame(first, recycled.acquire());
+		assertEquals(1, recycled.getAllocated());
+	}
+	
+	/**
+	 * Test batch damage resolution
+	 * Makes sure the batch and lane loops give exactly the scalar formula's damage, including defenses that overflow the subtraction.
+	 */
+	@Test
+	public void testEngine_ResolveDamage() {
+		SplittableRandom random = new SplittableRandom(23);
+		int[] damages = {Integer.MIN_VALUE, -1, 0, 1, 2, 10, Integer.MAX_VALUE};
+		int[] defenseRatings = new int[1000];
+		for(int i = 0; i < defenseRatings.length; i++)
+		{
+			defenseRatings[i] = i < damages.length ? damages[i] : i % 2 == 0 ? random.nextInt(-50, 50) : random.nextInt();
+		}
+		int[] batch = new int[defenseRatings.length];
+		int[] scalar = new int[defenseRatings.length];
+		for(int damage : damages)
+		{
+			OffensiveAbility.resolveDamage(damage, defenseRatings, batch, 0, batch.length);
+			OffensiveAbility.resolveDamageScalar(damage, defenseRatings, scalar, 0, scalar.length);
+			assertArrayEquals(scalar, batch);
+			for(int i = 0; i < batch.length; i++)
+			{
+				assertEquals(Math.max(1, damage - defenseRatings[i]), batch[i]);
+			}
+		}
+		// A lane of attacks, each with its own damage
+		int[] laneDamage = new int[defenseRatings.length];
+		for(int i = 0; i < laneDamage.length; i++)
+		{
+			laneDamage[i] = damages[i % damages.length];
+		}
+		OffensiveAbility.resolveDamage(laneDamage, defenseRatings, batch, 0, batch.length);
+		for(int i = 0; i < batch.length; i++)
+		{
+			assertEquals(Math.max(1, laneDamage[i] - defenseRatings[i]), batch[i]);
+		}
+	}
+	
+	/**
+	 * Test columnar statuses running out by round
+	 * Makes sure a unit's statuses count down one a turn of its own, however rarely they are visited, and run out at 0.
+	 */
+	@Test
+	public void testEngine_ColumnarStatusRounds() {
+		HumanPlayer human = new HumanPlayer();
+		Hero stunned = human.getParty().values().iterator().next();
+		new CrowdControlStatus(null, 2, 2, 2).addStatus(stunned);
+		new OffensiveStatusesPerTurn.Poison(-1, 4, 4).addStatus(stunned);
+		HeroColumns prototype = HeroColumns.of(human, new AI());
+		ColumnarBattle battle = new ColumnarBattle(prototype);
+		HeroColumns units = battle.getUnits();
+		// Seeded so the AI's ladders don't stun or poison the unit again in its first rounds
+		battle.start(units, 3L);
+		int abilityPoints = units.getAbilityPoints(0);
+		int round = 0;
+		while(units.getRound(0) < 5 && battle.step(units, BattleEngine.DEFAULT_TURN_LIMIT, null))
+		{
+			if(units.getRound(0) == round)
+			{
+				continue;
+			}
+			round = units.getRound(0);
+			if(round <= 2)
+			{
+				// Stunned, so no command was paid for
+				assertEquals(abilityPoints, units.getAbilityPoints(0));
+			}
+			int expected = (round < 2 ? 1 : 0) + (round < 4 ? 1 : 0);
+			assertEquals(expected, units.getStatusCount(0));
+			if(round < 4)
+			{
+				assertEquals(4 - round, units.getDuration(0, expected - 1));
+			}
+		}
+	}
+	
+	/**
+	 * Test a status removed mid tick
+	 * Makes sure a status removed by a status ticked before it in the same turn isn't ticked after its removal.
+	 */
+	@Test
+	public void testEngine_RemovedStatusDoesNotTick() {
+		Hero hero = new HumanPlayer().getParty().values().iterator().next();
+		CountingStatus remover = (CountingStatus) new CountingStatus(3).addStatus(hero);
+		CountingStatus removed = (CountingStatus) new CountingStatus(3).addStatus(hero);
+		remover.removes = removed;
+		hero.updateStatuses();
+		assertEquals(1, remover.ticks);
+		assertEquals(0, removed.ticks);
+		assertEquals(1, hero.getStatuses().size());
+	}
+	
+	/**
+	 * Test status keys
+	 * Makes sure two applications of a status stack under their own ids and are found by their String keys.
+	 */
+	@Test
+	public void testEngine_StatusKeys() {
+		Hero hero = new HumanPlayer().getParty().values().iterator().next();
+		CountingStatus template = new CountingStatus(3);
+		Status first = template.addStatus(hero);
+		Status second = template.addStatus(hero);
+		assertTrue(first.getId() < second.getId());
+		assertEquals("Counting_" + first.getId(), first.getKey());
+		assertSame(first, hero.getStatuses().get(first.getKey()));
+		assertSame(second, hero.getStatuses().get(second.getKey()));
+		assertSame(second, hero.getStatusesById().get(second.getId()));
+		assertEquals(null, hero.getStatuses().get("Counting_x"));
+		first.removeStatus(hero);
+		assertEquals(null, hero.getStatuses().get(first.getKey()));
+		assertEquals(1, hero.getStatuses().size());
+	}
+	
+	/**
+	 * Status counting its own ticks, removing another status first when it is given one.
+	 */
+	private static class CountingStatus extends Status {
+		private Status removes;
+		private int ticks = 0;
+
+		CountingStatus(int duration)
+		{
+			super("Counting", "health", 0, duration, duration, null);
+		}
+
+		CountingStatus(CountingStatus other)
+		{
+			super(other);
+			this.removes = other.removes;
+		}
+
+		@Override
+		public void applyStatusEffect(Hero hero)
+		{
+		}
+
+		@Override
+		public boolean updateStatus(Hero hero)
+		{
+			ticks++;
+			if(removes != null)
+			{
+				removes.removeStatus(hero);
+			}
+			setDuration(getDuration() - 1);
+			if(getDuration() <= 0)
+			{
+				removeStatus(hero);
+			}
+			return false;
+		}
+
+		@Override
+		public boolean updateStatus(Hero hero, BattleController controller)
+		{
+			return updateStatus(hero);
+		}
+
+		@Override
+		public Status clone()
+		{
+			return new CountingStatus(this);
+		}
+	}
+}
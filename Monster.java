@@ -2,12 +2,15 @@ package Heros;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import BattleCommands.Ability;
 import BattleCommands.BaseAttack;
 import BattleCommands.CrowdControlAbility;
 import BattleCommands.DefensiveAbility;
 import BattleCommands.OffensiveAbility;
 import PartyContainers.AiBattleReturnType;
+import PartyContainers.Party;
 import Statuses.StatusEffectAbility;
 
 /**
@@ -26,11 +29,12 @@ public abstract class Monster extends Hero {
 	protected int strengthItemBonus;
 	protected int attackPower;
 	protected BaseAttack baseAttack;
-	private static double healRange;		// Checks if HP is below this percentage to determine if it should run a heal chance
-	private static double healChance;		// Percentage change the AI will use a healing item
-	private static double recoverRange;	// Checks if AP is below this percentage to determine if it should run a heal chance
-	private static double recoverChance;	// Percentage change the AI will use an ability points item
-	private static double cureChance;	// Percentage change the AI will use a status item
+	private double healRange;		// Checks if HP is below this percentage to determine if it should run a heal chance
+	private double healChance;		// Percentage change the AI will use a healing item
+	private double recoverRange;	// Checks if AP is below this percentage to determine if it should run a heal chance
+	private double recoverChance;	// Percentage change the AI will use an ability points item
+	private double cureChance;	// Percentage change the AI will use a status item
+	private CommandSearch commandSearch;	// Used instead of selectCommand when set
 
 	
 	/**
@@ -49,25 +53,93 @@ public abstract class Monster extends Hero {
 	}
 	
 	/**
-	 * Abstract method used by Monsters to determine actions during battle.  
+	 * Method used by Monsters to determine actions during battle, drawing from the calling thread's random source.
+	 * Use selectCommand(Collection<Hero>, RandomGenerator) inside a battle so the decision can be replayed from its seed.
+	 * @param Collection<Hero> A list of the Hero instances in the player's party
+	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
+	 */
+	public AiBattleReturnType selectCommand(Collection<Hero> playerParty) {
+		return selectCommand(playerParty, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Method used by Monsters to determine actions during battle.  
 	 * This method will be used as part of the AI functionality to return an ability to use and a target (if applicable).
+	 * The value selecting the ability type is only drawn when the Monster has a choice to make, with fewer than two
+	 * abilities available it always uses its base attack.
+	 * @param Collection<Hero> A list of the Hero instances in the player's party
+	 * @param RandomGenerator The battle's random source, every random choice is drawn from it.
+	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
+	 */
+	public AiBattleReturnType selectCommand(Collection<Hero> playerParty, RandomGenerator random) {
+		double value = countAvailableAbilities() < 2 ? 0 : random.nextDouble();
+		return selectCommand(playerParty, value, random);
+	}
+	
+	/**
+	 * Method used by the AI to determine the Monster's action during battle.
+	 * Uses the Monster's CommandSearch if it has opted into one, otherwise its selectCommand ladder.
 	 * @param Collection<Hero> A list of the Hero instances in the player's party
+	 * @param RandomGenerator The battle's random source, every random choice is drawn from it.
 	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
 	 */
-	public abstract AiBattleReturnType selectCommand(Collection<Hero> playerParty);
+	public AiBattleReturnType chooseCommand(Collection<Hero> playerParty, RandomGenerator random) {
+		if (commandSearch != null) {
+			return commandSearch.selectCommand(this, playerParty, random);
+		}
+		return selectCommand(playerParty, random);
+	}
+	
+	/**
+	 * Copy this Monster for a look-ahead battle.  The copy does not keep the CommandSearch so a search
+	 * played out on copies uses the selectCommand ladders.
+	 * @return Monster A copy of this Monster.
+	 */
+	@Override
+	public Monster copy() {
+		Monster copy = (Monster) super.copy();
+		copy.commandSearch = null;
+		return copy;
+	}
 	
 	/**
-	 * Abstract method used by Monsters to determine actions during battle.  
-	 * This method specifics a double value to force certain actions.
-	 * Used specifically for testing purposes.
+	 * Method used by Monsters to determine actions during battle.  
+	 * This method specifics a double value to force certain actions, and walks the Monster's ladder with it.
+	 * Used by selectCommand(Collection<Hero>, RandomGenerator) once it has drawn the value, and for testing purposes.
 	 * @param Collection<Hero> A list of the Hero instances in the player's party
 	 * @param Double A value to control which type of ability will be selected.
+	 * @param RandomGenerator The battle's random source, used to pick between abilities and targets of the selected type.
 	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
 	 */
-	public AiBattleReturnType selectCommand(Collection<Hero> playerParty, double value){
-		return null;
+	public AiBattleReturnType selectCommand(Collection<Hero> playerParty, double value, RandomGenerator random) {
+		SelectionLadder ladder = getLadder();
+		Hero target = null;
+		Ability ability = null;
+		Collection<Hero> availableTargets = getAvailableTargets(playerParty);
+		SelectionLadder.Rung rung = countAvailableAbilities() < 2 ? null : ladder.select(value);
+		if (rung != null) {
+			ability = pickAvailableAbility(rung.getCategory(), random);
+			if (ability == null && rung.getAlternative() != null) {
+				ability = pickAvailableAbility(rung.getAlternative(), random);
+			}
+			if (rung.getTargetStat() != null) {
+				if (rung.isCrowdControlledFirst()) { target = selectIfCrowdControlled(availableTargets, random); }
+				if (target == null) { target = selectByStat(availableTargets, rung.getTargetStat(), rung.isTargetLowest()); }
+			}
+		}
+		if (ability == null) {
+			ability = this.getBaseAttack();
+			target = selectByStat(availableTargets, ladder.getBaseStat(), ladder.isBaseLowest());
+		}
+		return new AiBattleReturnType(target, ability);
 	}
 	
+	/**
+	 * Abstract method giving the ladder of the Monster's archetype, which selectCommand walks.
+	 * @return SelectionLadder The rungs and base target of the Monster's type.
+	 */
+	public abstract SelectionLadder getLadder();
+	
 	/**
 	 * Selects a target by determining which character has the highest or lowest of the specified stat.
 	 * Requires the Collection<Hero> argument to contain at least one instance or the method will return null.
@@ -77,6 +149,20 @@ public abstract class Monster extends Hero {
 	 * @return Hero A character which has the highest or lowest stat.
 	 */
 	public static Hero selectByStat(Collection<Hero> playerParty, String stat, boolean lower) {
+		return selectByStat(playerParty, Stat.fromKey(stat), lower);
+	}
+	
+	/**
+	 * Selects a target by determining which character has the highest or lowest of the specified stat.
+	 * Requires the Collection<Hero> argument to contain at least one instance or the method will return null.
+	 * Given PartyRankings the character is read off the rankings instead of searched for, ties still go to the first in the party.
+	 * @param Collection<Hero> Collection of characters to be looked at.
+	 * @param Stat The stat to be evaluated.
+	 * @param Boolean A boolean value.  If true the method will look for the character which has the lowest stat, else it will find the highest.
+	 * @return Hero A character which has the highest or lowest stat.
+	 */
+	public static Hero selectByStat(Collection<Hero> playerParty, Stat stat, boolean lower) {
+		if (playerParty instanceof PartyRankings) { return ((PartyRankings) playerParty).select(stat, lower); }
 		Hero target = null;
 		int statValue;
 		if (lower) { statValue = Integer.MAX_VALUE; }
@@ -110,13 +196,25 @@ public abstract class Monster extends Hero {
 	 * @return Hero A random character which is under a Crown Control effect.
 	 */
 	public static Hero selectIfCrowdControlled(Collection<Hero> playerParty) {
+		return selectIfCrowdControlled(playerParty, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Selects a target by determining which character is under a Crowd Control effect.
+	 * Requires the Collection<Hero> argument to contain at least one instance or the method will return null.
+	 * @param Collection<Hero> Collection of characters to be looked at.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Hero A random character which is under a Crown Control effect.
+	 */
+	public static Hero selectIfCrowdControlled(Collection<Hero> playerParty, RandomGenerator random) {
+		if (playerParty instanceof PartyRankings) { return ((PartyRankings) playerParty).selectByCrowdControl(true, random); }
 		Hero target = null;
 		ArrayList<Hero> options = new ArrayList<>();
 		for(Hero currentTarget : playerParty) {
 			if (currentTarget.checkIfCrowdControlled()) { options.add(currentTarget); }
 		}
 		if (options.size() != 0) {
-			target = pickRandom(options);
+			target = pickRandom(options, random);
 		}
 		return target;
 	}
@@ -128,13 +226,25 @@ public abstract class Monster extends Hero {
 	 * @return Hero A random character which is not under a Crown Control effect.
 	 */
 	public static Hero selectIfNotCrowdControlled(Collection<Hero> playerParty) {
+		return selectIfNotCrowdControlled(playerParty, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Selects a target by determining which character is not under a Crowd Control effect.
+	 * Requires the Collection<Hero> argument to contain at least one instance or the method will return null.
+	 * @param Collection<Hero> Collection of characters to be looked at.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Hero A random character which is not under a Crown Control effect.
+	 */
+	public static Hero selectIfNotCrowdControlled(Collection<Hero> playerParty, RandomGenerator random) {
+		if (playerParty instanceof PartyRankings) { return ((PartyRankings) playerParty).selectByCrowdControl(false, random); }
 		Hero target = null;
 		ArrayList<Hero> options = new ArrayList<>();
 		for(Hero currentTarget : playerParty) {
 			if (!currentTarget.checkIfCrowdControlled()) { options.add(currentTarget); }
 		}
 		if (options.size() != 0) {
-			target = pickRandom(options);
+			target = pickRandom(options, random);
 		}
 		return target;
 	}
@@ -146,20 +256,69 @@ public abstract class Monster extends Hero {
 	 * @return Hero A random character which is under a Crown Control effect.
 	 */
 	public static Hero selectRandomTarget(Collection<Hero> playerParty) {
+		return selectRandomTarget(playerParty, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Selects a target by randomly choosing from a collection.
+	 * Requires the Collection<Hero> argument to contain at least one instance or the method will return null.
+	 * @param Collection<Hero> Collection of characters to be looked at.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Hero A random character from the collection.
+	 */
+	public static Hero selectRandomTarget(Collection<Hero> playerParty, RandomGenerator random) {
+		if (playerParty instanceof PartyRankings) { return ((PartyRankings) playerParty).selectRandom(random); }
 		Hero target = null;
 		ArrayList<Hero> options = new ArrayList<>();
 		for(Hero currentTarget : playerParty) {
 			options.add(currentTarget);
 		}
 		if (options.size() != 0) {
-			target = pickRandom(options);
+			target = pickRandom(options, random);
 		}
 		return target;
 	}
 
+	/**
+	 * Opt this Monster into a search based decision instead of its selectCommand ladder.
+	 * @param CommandSearch The search to use, null to go back to selectCommand.
+	 */
+	public void setCommandSearch(CommandSearch commandSearch) {
+		this.commandSearch = commandSearch;
+	}
+	
+	/**
+	 * Returns the search this Monster uses to decide its actions.
+	 * @return CommandSearch The search, null if the Monster uses selectCommand.
+	 */
+	public CommandSearch getCommandSearch() {
+		return this.commandSearch;
+	}
+	
+	/**
+	 * Returns the number of Ability which can be used by the Monster, without building a collection of them.
+	 * An Ability is usable if the Monster has enough Ability Points (AP >= Cost).
+	 * @return int The number of usable Ability
+	 */
+	public int countAvailableAbilities() {
+		return this.getAbilityIndex().countAffordable(this.getAbilityPoints());
+	}
+	
+	/**
+	 * Returns a random usable ability of a category from the Monster's ability index.
+	 * Draws the same ability as the static get methods would from getAvailableAbilities, without building any list.
+	 * @param AbilityCategory The category of ability to pick.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Ability A randomly selected usable Ability of the category, null if there is none.
+	 */
+	public Ability pickAvailableAbility(AbilityCategory category, RandomGenerator random) {
+		return this.getAbilityIndex().pickAffordable(category, this.getAbilityPoints(), random);
+	}
+	
 	/**
 	 * Returns a collection of Ability which can be used by the Monster.
 	 * An Ability is usable if the Monster has enough Ability Points (AP >= Cost).
+	 * Selection should prefer countAvailableAbilities and pickAvailableAbility, which don't allocate.
 	 * @return Collection<Ability> A collection of usable Ability
 	 */
 	public Collection<Ability> getAvailableAbilities() {
@@ -176,9 +335,13 @@ public abstract class Monster extends Hero {
 	/**
 	 * Returns a collection of Hero which can be targetted by the Monster.
 	 * A Hero is targetable if it is not considered dead (health > 0). 
+	 * PartyRankings already only hold the living members and are returned as they are, so the select methods can use them.
+	 * A Party's living members are read off its alive mask slot by slot, without building a collection.
 	 * @return Collection<Hero> A collection of usable Ability
 	 */
 	public static Collection<Hero> getAvailableTargets(Collection<Hero> party) {
+		if (party instanceof PartyRankings) { return party; }
+		if (party instanceof Party) { return ((Party) party).alive(); }
 		Collection<Hero> availableTargets = new ArrayList<>();
 		for (Hero currentTarget : party) {
 			if (currentTarget.getHealth() > 0) {
@@ -194,13 +357,23 @@ public abstract class Monster extends Hero {
 	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
 	 */
 	public static Ability getOffensiveAbility(Collection<Ability> abilities) {
+		return getOffensiveAbility(abilities, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Returns a random ability that matches the type OffensiveAbility and not one of StatusEffectAbility.
+	 * @param Collection<Ability> A collection of Ability to be considered.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
+	 */
+	public static Ability getOffensiveAbility(Collection<Ability> abilities, RandomGenerator random) {
 		ArrayList<Ability> options = new ArrayList<>();
 		for(Ability currentAbility : abilities) {
 			if (currentAbility instanceof OffensiveAbility && !(currentAbility instanceof StatusEffectAbility)) 
 				options.add(currentAbility);
 		}
 		if (options.size() != 0) {
-			return pickRandom(options);
+			return pickRandom(options, random);
 		}
 		return null;
 	}
@@ -211,13 +384,23 @@ public abstract class Monster extends Hero {
 	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
 	 */
 	public static Ability getOffensiveStatusAbility(Collection<Ability> abilities) {
+		return getOffensiveStatusAbility(abilities, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Returns a random ability that matches the type StatusEffectAbility and not one of DefensiveAbility.
+	 * @param Collection<Ability> A collection of Ability to be considered.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
+	 */
+	public static Ability getOffensiveStatusAbility(Collection<Ability> abilities, RandomGenerator random) {
 		ArrayList<Ability> options = new ArrayList<>();
 		for(Ability currentAbility : abilities) {
 			if (currentAbility instanceof StatusEffectAbility && !(currentAbility instanceof DefensiveAbility)) 
 				options.add(currentAbility);
 				}
 			if (options.size() != 0) {
-				return pickRandom(options);
+				return pickRandom(options, random);
 			}
 		return null;
 	}
@@ -228,13 +411,23 @@ public abstract class Monster extends Hero {
 	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
 	 */
 	public static Ability getDefensiveAbility(Collection<Ability> abilities) {
+		return getDefensiveAbility(abilities, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Returns a random ability that matches the type DefensiveAbility.
+	 * @param Collection<Ability> A collection of Ability to be considered.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
+	 */
+	public static Ability getDefensiveAbility(Collection<Ability> abilities, RandomGenerator random) {
 		ArrayList<Ability> options = new ArrayList<>();
 		for(Ability currentAbility : abilities) {
 			if (currentAbility instanceof DefensiveAbility) 
 				options.add(currentAbility);
 				}
 			if (options.size() != 0) {
-				return pickRandom(options);
+				return pickRandom(options, random);
 			}
 		return null;
 	}
@@ -245,13 +438,23 @@ public abstract class Monster extends Hero {
 	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
 	 */
 	public static Ability getCrowdControlAbility(Collection<Ability> abilities) {
+		return getCrowdControlAbility(abilities, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Returns a random ability that matches the type CrowdControlAbility.
+	 * @param Collection<Ability> A collection of Ability to be considered.
+	 * @param RandomGenerator The battle's random source.
+	 * @return Ability A randomly selected Ability from the Ability that match the specified typing.
+	 */
+	public static Ability getCrowdControlAbility(Collection<Ability> abilities, RandomGenerator random) {
 		ArrayList<Ability> options = new ArrayList<>();
 		for(Ability currentAbility : abilities) {
 			if (currentAbility instanceof CrowdControlAbility) 
 				options.add(currentAbility);
 				}
 			if (options.size() != 0) {
-				return pickRandom(options);
+				return pickRandom(options, random);
 			}
 		return null;
 	}
@@ -262,7 +465,17 @@ public abstract class Monster extends Hero {
 	 * @return An element from options.
 	 */
 	public static <T> T pickRandom(ArrayList<T> options) {
-		int pick = (int) Math.floor(Math.random() * options.size());
+		return pickRandom(options, ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Picks a random element from an ArrayList
+	 * @param options An ArrayList to choose an element from.
+	 * @param random The battle's random source.
+	 * @return An element from options.
+	 */
+	public static <T> T pickRandom(ArrayList<T> options, RandomGenerator random) {
+		int pick = random.nextInt(options.size());
 		T choice = options.get(pick);
 		return choice;
 	}
@@ -0,0 +1,98 @@
+package Benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import BattleCommands.Ability;
+import Heros.AbilityCategory;
+import Heros.Hero;
+import Heros.Monster;
+import Heros.PartyRankings;
+import Heros.Stat;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+import PartyContainers.HumanPlayer;
+
+/**
+ * Benchmarks of the Monster target and ability selection used by every AI decision.
+ * None of these mutate the battle so no reset is needed between invocations.
+ * @author Kevin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MonsterBenchmark {
+	@Param({"Defender", "Punisher", "Weakener", "Controller"})
+	public String archetype;
+
+	@Param({"4", "16", "64"})
+	public int partySize;
+
+	@Param({"0", "4", "16"})
+	public int statusLoad;
+
+	private Collection<Hero> enemies;
+	private PartyRankings rankings;
+	private Monster monster;
+
+	@Setup
+	public void setUp()
+	{
+		enemies = new BenchmarkParties(partySize, HumanPlayer.CONTROLLER, statusLoad).getParty();
+		monster = BenchmarkParties.makeMonster(archetype, AI.CONTROLLER);
+		rankings = new PartyRankings(enemies, enemies);
+	}
+
+	@Benchmark
+	public AiBattleReturnType selectCommand()
+	{
+		return monster.selectCommand(enemies);
+	}
+
+	@Benchmark
+	public Hero selectByStat()
+	{
+		return Monster.selectByStat(enemies, Stat.HEALTH, true);
+	}
+
+	@Benchmark
+	public Hero selectByStatRanked()
+	{
+		return Monster.selectByStat(rankings, Stat.HEALTH, true);
+	}
+
+	@Benchmark
+	public AiBattleReturnType selectCommandRanked()
+	{
+		return monster.selectCommand(rankings);
+	}
+
+	@Benchmark
+	public Collection<Ability> getAvailableAbilities()
+	{
+		return monster.getAvailableAbilities();
+	}
+
+	@Benchmark
+	public Ability pickAvailableAbility()
+	{
+		return monster.pickAvailableAbility(AbilityCategory.OFFENSIVE, ThreadLocalRandom.current());
+	}
+}
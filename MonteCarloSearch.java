@@ -0,0 +1,535 @@
+package BattleSimulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+import BattleSimulation.SearchMoves.Option;
+import Heros.CommandSearch;
+import Heros.Hero;
+import Heros.Monster;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+
+/**
+ * Monte Carlo Tree Search a Monster can opt into with Monster.setCommandSearch, or a whole AI party with attach.
+ *
+ * Each decision forks the live battle once and snapshots the fork. Every iteration restores the snapshot, walks the tree
+ * choosing commands with UCT for whichever hero acts (monsters maximise the AI's result, heroes the human's), adds one
+ * node and then plays the battle on with the engine's own policies, the monsters' selectCommand ladders and the human
+ * TurnPolicy, for up to rolloutDepth turns. The tree is open-loop: a node is a sequence of commands rather than a state,
+ * and each iteration reseeds the fork's random source so repeated visits sample different outcomes.
+ *
+ * The search stops at whichever comes first of the iteration budget and the time budget, so a turn never waits longer
+ * than the time budget plus one iteration. The command visited most at the root is used.
+ *
+ * With setParallelism the playouts run on several threads of a ForkJoinPool, each thread playing on its own fork.
+ * ROOT parallelism grows one tree per thread and sums the root statistics, TREE parallelism shares one tree whose
+ * nodes are locked while they are read or updated and adds a virtual loss to every node on a path still being played.
+ * getPlayoutsPerSecond reports the throughput of the last decision so the modes can be compared per thread count.
+ * @author Andrew
+ *
+ */
+public class MonteCarloSearch implements CommandSearch {
+	public static final int DEFAULT_ROLLOUT_DEPTH = 24;
+	public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+	private final BattleEngine engine;
+	private final int maxIterations;
+	private final long timeBudgetNanos;
+	private int rolloutDepth = DEFAULT_ROLLOUT_DEPTH;
+	private double exploration = DEFAULT_EXPLORATION;
+	private SearchParallelism parallelism = SearchParallelism.ROOT;
+	private int threads = 1;
+	private int virtualLoss = 1;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int lastIterations = 0;
+	private long lastElapsedNanos = 0;
+
+	/**
+	 * Create a search over a battle.
+	 * @param engine: the battle the monsters using this search are in
+	 * @param maxIterations: most playouts per decision, 0 for no limit
+	 * @param timeBudgetMillis: most time spent per decision in milliseconds, 0 for no limit
+	 */
+	public MonteCarloSearch(BattleEngine engine, int maxIterations, long timeBudgetMillis)
+	{
+		if(maxIterations <= 0 && timeBudgetMillis <= 0)
+		{
+			throw new IllegalArgumentException("A search needs an iteration or a time budget");
+		}
+		this.engine = engine;
+		this.maxIterations = maxIterations > 0 ? maxIterations : Integer.MAX_VALUE;
+		this.timeBudgetNanos = timeBudgetMillis > 0 ? timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Opt every monster of an AI party into this search.
+	 * @param ai: the AI whose monsters will search
+	 */
+	public void attach(AI ai)
+	{
+		for(Hero hero : ai.getPartySlots())
+		{
+			if(hero instanceof Monster)
+			{
+				((Monster) hero).setCommandSearch(this);
+			}
+		}
+	}
+
+	/**
+	 * Search for the acting monster's command. Falls back to the monster's own selectCommand if the monster isn't in
+	 * this search's battle or no iteration finished in time.
+	 */
+	@Override
+	public AiBattleReturnType selectCommand(Monster monster, Collection<Hero> playerParty, RandomGenerator random)
+	{
+		long start = System.nanoTime();
+		lastIterations = 0;
+		lastElapsedNanos = 0;
+		int slot = SearchMoves.slotOf(engine.getHeroes(), monster);
+		if(slot < 0)
+		{
+			return monster.selectCommand(playerParty, random);
+		}
+
+		BattleEngine[] forks = new BattleEngine[threads];
+		forks[0] = engine.fork();
+		List<Option> rootOptions = SearchMoves.options(forks[0], forks[0].getHeroes().get(slot));
+		if(rootOptions.isEmpty())
+		{
+			return monster.selectCommand(playerParty, random);
+		}
+		if(rootOptions.size() == 1)
+		{
+			return toMove(rootOptions.get(0));
+		}
+		// Forked on this thread, the live battle is only read
+		for(int i = 1; i < threads; i++)
+		{
+			forks[i] = engine.fork();
+		}
+
+		SplittableRandom searchRandom = new SplittableRandom(random.nextLong());
+		Node rootNode = new Node(null, null, true);
+		ArrayList<Worker> workers = new ArrayList<Worker>(threads);
+		if(parallelism == SearchParallelism.TREE)
+		{
+			AtomicInteger remaining = new AtomicInteger(maxIterations);
+			for(int i = 0; i < threads; i++)
+			{
+				workers.add(new Worker(forks[i], slot, rootNode, searchRandom.split(), remaining, start, virtualLoss));
+			}
+		}
+		else
+		{
+			int share = (int) Math.min(Integer.MAX_VALUE, ((long) maxIterations + threads - 1) / threads);
+			for(int i = 0; i < threads; i++)
+			{
+				Node workerRoot = threads == 1 ? rootNode : new Node(null, null, true);
+				workers.add(new Worker(forks[i], slot, workerRoot, searchRandom.split(), new AtomicInteger(share), start, 0));
+			}
+		}
+		lastIterations = runWorkers(workers);
+		if(parallelism == SearchParallelism.ROOT && threads > 1)
+		{
+			for(Worker worker : workers)
+			{
+				rootNode.merge(worker.root);
+			}
+		}
+		lastElapsedNanos = System.nanoTime() - start;
+
+		Node best = rootNode.mostVisited();
+		if(best == null)
+		{
+			return monster.selectCommand(playerParty, random);
+		}
+		return toMove(best.option);
+	}
+
+	/**
+	 * Run the workers, on the calling thread if there is only one.
+	 * @return the total number of playouts
+	 */
+	private int runWorkers(List<Worker> workers)
+	{
+		if(workers.size() == 1)
+		{
+			return workers.get(0).call();
+		}
+		int iterations = 0;
+		try
+		{
+			for(Future<Integer> result : pool.invokeAll(workers))
+			{
+				iterations += result.get();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e)
+		{
+			throw new IllegalStateException("Search worker failed", e.getCause());
+		}
+		return iterations;
+	}
+
+	/**
+	 * Plays out iterations on one fork until the shared budget is spent or the time is up.
+	 */
+	private final class Worker implements Callable<Integer> {
+		private final BattleEngine fork;
+		private final int slot;
+		private final Node root;
+		private final SplittableRandom random;
+		private final AtomicInteger remaining;
+		private final long start;
+		private final int virtualLoss;
+
+		Worker(BattleEngine fork, int slot, Node root, SplittableRandom random, AtomicInteger remaining, long start, int virtualLoss)
+		{
+			this.fork = fork;
+			this.slot = slot;
+			this.root = root;
+			this.random = random;
+			this.remaining = remaining;
+			this.start = start;
+			this.virtualLoss = virtualLoss;
+		}
+
+		@Override
+		public Integer call()
+		{
+			BattleSnapshot snapshot = fork.snapshot();
+			Hero actor = fork.getHeroes().get(slot);
+			int iterations = 0;
+			while(System.nanoTime() - start < timeBudgetNanos && remaining.getAndDecrement() > 0)
+			{
+				fork.restore(snapshot);
+				fork.getRandom().restore(random.nextLong(), fork.getRandom().getDraws());
+				iterate(root, fork, actor, virtualLoss);
+				iterations ++;
+			}
+			return iterations;
+		}
+	}
+
+	/**
+	 * One playout: select and expand down the tree, play on with the engine's policies, back the result up.
+	 * @param root: root of the tree, its children are the acting monster's commands
+	 * @param fork: the forked battle, restored to the decision point
+	 * @param rootActor: the acting monster in the fork, its statuses already updated
+	 * @param virtualLoss: losses added to each node on the path until the playout is backed up, 0 for a tree of one thread
+	 */
+	private void iterate(Node root, BattleEngine fork, Hero rootActor, int virtualLoss)
+	{
+		Node node = root;
+		Hero actor = rootActor;
+		while(true)
+		{
+			List<Option> legal = SearchMoves.options(fork, actor);
+			if(legal.isEmpty())
+			{
+				fork.endTurn(actor, null, null);
+			}
+			else
+			{
+				Node child = node.expand(legal, BattleEngine.isAIControlled(actor), virtualLoss);
+				boolean added = child != null;
+				if(!added)
+				{
+					child = node.select(legal, exploration, virtualLoss);
+				}
+				SearchMoves.apply(fork, actor, child.option);
+				node = child;
+				// The tree grows by one node per playout
+				if(added)
+				{
+					break;
+				}
+			}
+			if(fork.isOver())
+			{
+				break;
+			}
+			actor = SearchMoves.startTurn(fork);
+			if(actor == null)
+			{
+				break;
+			}
+		}
+
+		for(int turn = 0; turn < rolloutDepth && !fork.isOver(); turn++)
+		{
+			if(fork.step() == null)
+			{
+				break;
+			}
+		}
+
+		double value = evaluate(fork);
+		for(Node current = node; current != null; current = current.parent)
+		{
+			current.update(current.aiChose ? value : 1 - value, current.parent == null ? 0 : virtualLoss);
+		}
+	}
+
+	/**
+	 * Score a battle for the AI: 1 for an AI victory, 0 for a human victory, otherwise the AI's share of the
+	 * remaining health, each hero counted as a fraction of its maximum health.
+	 */
+	static double evaluate(BattleEngine engine)
+	{
+		if(engine.getOutcome() == BattleOutcome.AI_VICTORY)
+		{
+			return 1;
+		}
+		if(engine.getOutcome() == BattleOutcome.HUMAN_VICTORY)
+		{
+			return 0;
+		}
+		double ai = partyHealth(engine.getAIParty());
+		double human = partyHealth(engine.getHumanParty());
+		return ai + human == 0 ? 0.5 : ai / (ai + human);
+	}
+
+	private static double partyHealth(Collection<Hero> party)
+	{
+		double health = 0;
+		for(Hero hero : party)
+		{
+			if(hero.getHealth() > 0)
+			{
+				health += (double) hero.getHealth() / hero.getMaxHealth();
+			}
+		}
+		return health;
+	}
+
+	/**
+	 * Turn an option found in the fork into a move in the live battle. Abilities are shared between a hero and its copy.
+	 */
+	private AiBattleReturnType toMove(Option option)
+	{
+		Hero target = option.targetSlot < 0 ? null : engine.getHeroes().get(option.targetSlot);
+		return new AiBattleReturnType(target, option.ability);
+	}
+
+	/**
+	 * Set how many turns a playout continues past the tree before the battle is scored.
+	 * @param rolloutDepth
+	 */
+	public void setRolloutDepth(int rolloutDepth)
+	{
+		this.rolloutDepth = rolloutDepth;
+	}
+
+	/**
+	 * Set the UCT exploration constant.
+	 * @param exploration
+	 */
+	public void setExploration(double exploration)
+	{
+		this.exploration = exploration;
+	}
+
+	/**
+	 * Spread each decision's playouts over several threads.
+	 * @param parallelism: ROOT for a tree per thread, TREE for one shared tree
+	 * @param threads: number of threads, 1 to search on the calling thread
+	 */
+	public void setParallelism(SearchParallelism parallelism, int threads)
+	{
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("A search needs at least one thread");
+		}
+		this.parallelism = parallelism;
+		this.threads = threads;
+	}
+
+	/**
+	 * Set the virtual loss added to each node on a path being played under TREE parallelism.
+	 * @param virtualLoss
+	 */
+	public void setVirtualLoss(int virtualLoss)
+	{
+		this.virtualLoss = virtualLoss;
+	}
+
+	/**
+	 * Set the pool parallel searches run on, the common pool by default.
+	 * @param pool
+	 */
+	public void setPool(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Get the number of playouts the last decision ran, over all threads.
+	 * @return playouts of the last decision
+	 */
+	public int getLastIterations()
+	{
+		return lastIterations;
+	}
+
+	/**
+	 * Get the playout throughput of the last decision, including the time taken to fork the battle.
+	 * @return playouts per second
+	 */
+	public double getPlayoutsPerSecond()
+	{
+		return lastElapsedNanos == 0 ? 0 : lastIterations * 1e9 / lastElapsedNanos;
+	}
+
+	/**
+	 * A command in the tree, reached by the commands of its parents. The reward is from the point of view of the side that chose it.
+	 * A node's children and their statistics are guarded by the node's lock so a tree can be shared between threads.
+	 */
+	private static final class Node {
+		private final Node parent;
+		private final Option option;
+		private final boolean aiChose;
+		private final ArrayList<Node> children = new ArrayList<Node>();
+		private int visits = 0;
+		private double reward = 0;
+		// Playouts through this node that haven't been backed up yet, counted as losses
+		private int pendingLosses = 0;
+
+		Node(Node parent, Option option, boolean aiChose)
+		{
+			this.parent = parent;
+			this.option = option;
+			this.aiChose = aiChose;
+		}
+
+		/**
+		 * Add a child for the first legal option not tried yet.
+		 * @param legal: commands the acting hero can use
+		 * @param aiChoosing: is the acting hero controlled by the AI
+		 * @param virtualLoss: pending losses to add to the new child
+		 * @return the new child, null if every legal option has a child
+		 */
+		synchronized Node expand(List<Option> legal, boolean aiChoosing, int virtualLoss)
+		{
+			for(Option option : legal)
+			{
+				if(child(option) == null)
+				{
+					Node child = new Node(this, option, aiChoosing);
+					child.pendingLosses = virtualLoss;
+					children.add(child);
+					return child;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Pick the legal child with the best UCT score. Pending losses count as visits with no reward.
+		 * A node's statistics are guarded by its own monitor, the children list by its parent's, so the children's
+		 * statistics are read and the virtual loss added under each child's lock.
+		 * @param legal: commands the acting hero can use, each has a child
+		 * @param exploration: UCT exploration constant
+		 * @param virtualLoss: pending losses to add to the chosen child
+		 */
+		synchronized Node select(List<Option> legal, double exploration, int virtualLoss)
+		{
+			Node best = null;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			double logVisits = Math.log(Math.max(1, visits + pendingLosses));
+			for(Option option : legal)
+			{
+				Node child = child(option);
+				double score = child.score(logVisits, exploration);
+				if(score > bestScore)
+				{
+					bestScore = score;
+					best = child;
+				}
+			}
+			best.addPendingLosses(virtualLoss);
+			return best;
+		}
+
+		/**
+		 * Get the UCT score of this node as a child of a node with logVisits.
+		 */
+		private synchronized double score(double logVisits, double exploration)
+		{
+			int count = visits + pendingLosses;
+			return count == 0 ? Double.POSITIVE_INFINITY : reward / count + exploration * Math.sqrt(logVisits / count);
+		}
+
+		private synchronized void addPendingLosses(int virtualLoss)
+		{
+			pendingLosses += virtualLoss;
+		}
+
+		/**
+		 * Back up one playout, taking back the virtual loss it added.
+		 */
+		synchronized void update(double value, int virtualLoss)
+		{
+			visits ++;
+			reward += value;
+			pendingLosses -= virtualLoss;
+		}
+
+		/**
+		 * Add the root statistics of another tree of the same decision to this one.
+		 */
+		void merge(Node other)
+		{
+			visits += other.visits;
+			for(Node otherChild : other.children)
+			{
+				Node child = child(otherChild.option);
+				if(child == null)
+				{
+					child = new Node(this, otherChild.option, otherChild.aiChose);
+					children.add(child);
+				}
+				child.visits += otherChild.visits;
+				child.reward += otherChild.reward;
+			}
+		}
+
+		private Node child(Option option)
+		{
+			for(Node child : children)
+			{
+				if(child.option.sameAs(option))
+				{
+					return child;
+				}
+			}
+			return null;
+		}
+
+		Node mostVisited()
+		{
+			Node best = null;
+			for(Node child : children)
+			{
+				if(best == null || child.visits > best.visits)
+				{
+					best = child;
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package BattleCommands;
 
 import java.awt.Image;
+import java.util.Arrays;
 
 import GridGUI.BattleController;
 import Heros.Hero;
@@ -14,8 +15,11 @@ import Heros.Hero;
  */
 public abstract class OffensiveAbility extends Ability{
 
+	private static final DamageListener[] NO_LISTENERS = new DamageListener[0];
 	private int damage;
 	private Image animationImage;
+	// Abilities are shared between copies of a hero, so the listeners are swapped as a whole for other threads to read
+	private volatile DamageListener[] listeners = NO_LISTENERS;
 	
 	/**
 	 * OffensiveAbility two parameter constructor, sets ability point cost and damage.
@@ -48,6 +52,18 @@ public abstract class OffensiveAbility extends Ability{
 	 */
 	public abstract String getClassOwner();
 	
+	/**
+	 * An offensive ability can be used if the hero has the ability points for it.
+	 * @param hero: current acting hero
+	 * @param target: target hero
+	 * @return SUCCESS or NOT_ENOUGH_ABILITY_POINTS
+	 */
+	@Override
+	public CommandResult validate(Hero hero, Hero target)
+	{
+		return hero.hasEnoughAP(this) ? CommandResult.SUCCESS : CommandResult.NOT_ENOUGH_ABILITY_POINTS;
+	}
+	
 	/**
 	 * All offensive abilities will be applying damage to a target. This this method computes
 	 * the damage done to the target by taking the difference between their defense rating and the 
@@ -68,10 +84,8 @@ public abstract class OffensiveAbility extends Ability{
         }
         int otherHealth = target.getHealth();
         int newHealth = otherHealth - damageDone;
-        System.out.println("AI" + " health change: " + target.getHealth());
         hero.setAbilityPoints(hero.getAbilityPoints() - this.getPointCost());
         target.setHealth(newHealth);
-        System.out.println("AI" + " health Change: " + target.getHealth());
 	}
 	
 	/**
@@ -127,11 +141,121 @@ public abstract class OffensiveAbility extends Ability{
 	}
 	
 	/**
-	 * Set the damage done by this ability
+	 * Evaluate the damage done by this ability against a batch of targets at once, i.e the same target in thousands of
+	 * simulated battles. Every target takes the damage evaluateDamage would give it.
+	 * @param defenseRatings: defense rating of each target
+	 * @param damageDone: filled with the damage done to each target
+	 * @param count: number of targets, from the start of both arrays
+	 */
+	public void evaluateDamage(int[] defenseRatings, int[] damageDone, int count)
+	{
+		resolveDamage(this.getDamage(), defenseRatings, damageDone, 0, count);
+	}
+	
+	/**
+	 * Resolve an ability's damage against a range of defense ratings, giving exactly what resolveDamageScalar gives.
+	 * The loop has no branch or Math.max, which the JIT won't vectorize, only int arithmetic on plain arrays, so it is
+	 * compiled to SIMD instructions on CPUs that have them and runs as a plain scalar loop on those that don't.
+	 * @param damage: damage done by the ability
+	 * @param defenseRatings: defense rating of each target
+	 * @param damageDone: filled with the damage done to each target
+	 * @param from: first target
+	 * @param to: end of the range, exclusive
+	 */
+	public static void resolveDamage(int damage, int[] defenseRatings, int[] damageDone, int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			int potentialDamage = damage - defenseRatings[i];
+			// All ones if potentialDamage <= 0, or'ing in potentialDamage - 1 catches 0 and keeps the sign of MIN_VALUE
+			int blocked = ((potentialDamage - 1) | potentialDamage) >> 31;
+			damageDone[i] = (potentialDamage & ~blocked) | (blocked & 1);
+		}
+	}
+	
+	/**
+	 * Resolve a lane of attacks, each damage against the defense rating at the same index, i.e one attack from each of a
+	 * batch of battles stepped together. Each attack does what resolveDamage gives for its damage, with the same loop.
+	 * @param damage: damage done by each attack
+	 * @param defenseRatings: defense rating of each attack's target
+	 * @param damageDone: filled with the damage done by each attack
+	 * @param from: first attack
+	 * @param to: end of the range, exclusive
+	 */
+	public static void resolveDamage(int[] damage, int[] defenseRatings, int[] damageDone, int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			int potentialDamage = damage[i] - defenseRatings[i];
+			int blocked = ((potentialDamage - 1) | potentialDamage) >> 31;
+			damageDone[i] = (potentialDamage & ~blocked) | (blocked & 1);
+		}
+	}
+	
+	/**
+	 * Resolve an ability's damage against a range of defense ratings one target at a time, the way evaluateDamage does.
+	 * The reference resolveDamage is checked against.
+	 * @param damage: damage done by the ability
+	 * @param defenseRatings: defense rating of each target
+	 * @param damageDone: filled with the damage done to each target
+	 * @param from: first target
+	 * @param to: end of the range, exclusive
+	 */
+	public static void resolveDamageScalar(int damage, int[] defenseRatings, int[] damageDone, int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			int done = 1;
+			int potentialDamage = damage - defenseRatings[i];
+			if (potentialDamage > 0) { done = potentialDamage; }
+			damageDone[i] = done;
+		}
+	}
+	
+	/**
+	 * Set the damage done by this ability, the listeners are told if it changed.
 	 * @param damage: damage done by this ability,
 	 */
 	public final void setDamage(int damage) {
+		int oldDamage = this.damage;
 		this.damage = damage;
+		if(oldDamage != damage)
+		{
+			for(DamageListener listener : this.listeners)
+			{
+				listener.damageChanged(this, oldDamage, damage);
+			}
+		}
+	}
+	
+	/**
+	 * Register a listener to be notified when this ability's damage changes.
+	 * @param listener
+	 */
+	public final synchronized void addDamageListener(DamageListener listener)
+	{
+		DamageListener[] added = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		added[this.listeners.length] = listener;
+		this.listeners = added;
+	}
+	
+	/**
+	 * Stop notifying a listener of changes to this ability's damage.
+	 * @param listener
+	 */
+	public final synchronized void removeDamageListener(DamageListener listener)
+	{
+		for(int i = 0; i < this.listeners.length; i++)
+		{
+			if(this.listeners[i] == listener)
+			{
+				DamageListener[] removed = new DamageListener[this.listeners.length - 1];
+				System.arraycopy(this.listeners, 0, removed, 0, i);
+				System.arraycopy(this.listeners, i + 1, removed, i, removed.length - i);
+				this.listeners = removed.length == 0 ? NO_LISTENERS : removed;
+				return;
+			}
+		}
 	}
 	
 	/**
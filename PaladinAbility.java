@@ -172,20 +172,28 @@ public abstract class PaladinAbility{
 		public void useBattleCommand(Hero hero, Hero other) throws MaximumStatException
 		{
 			hero.checkIfEnoughAP(this);
-			if(hero.getHealth() < (hero.getMaxHealth() + this.getEffectStrength()))
-			{
-				hero.setHealth(hero.getHealth() + this.getEffectStrength());
-				hero.setAbilityPoints(hero.getAbilityPoints() - this.getPointCost());
-			}
-			else if((hero.getHealth()  + this.getEffectStrength()) >= hero.getMaxHealth())
+			int healedHealth = this.healedHealth(hero);
+			if(healedHealth < 0)
 			{
-				hero.setHealth(hero.getMaxHealth());
-				hero.setAbilityPoints(hero.getAbilityPoints() - this.getPointCost());
+				throw new MaximumStatException();
 			}
-			else
+			this.heal(hero, healedHealth);
+		}
+		
+		/**
+		 * Check the hero can pay for the heal and has health to gain, without throwing.
+		 * @param hero: current acting hero
+		 * @param other: target, should always be null as can only use on self
+		 * @return SUCCESS, NOT_ENOUGH_ABILITY_POINTS or MAXIMUM_STAT
+		 */
+		@Override
+		public CommandResult validate(Hero hero, Hero other)
+		{
+			if(!hero.hasEnoughAP(this))
 			{
-				throw new MaximumStatException();
+				return CommandResult.NOT_ENOUGH_ABILITY_POINTS;
 			}
+			return this.healedHealth(hero) < 0 ? CommandResult.MAXIMUM_STAT : CommandResult.SUCCESS;
 		}
 		
 		/**
@@ -200,22 +208,40 @@ public abstract class PaladinAbility{
 		public void useBattleCommand(Hero hero, BattleController controller) throws MaximumStatException
 		{
 			hero.checkIfEnoughAP(this);
-			if(hero.getHealth() < (hero.getMaxHealth() + this.getEffectStrength()))
+			int healedHealth = this.healedHealth(hero);
+			if(healedHealth < 0)
 			{
-				hero.setHealth(hero.getHealth() + this.getEffectStrength());
-				hero.setAbilityPoints(hero.getAbilityPoints() - this.getPointCost());
-				controller.animateBattleCommand(hero, this.getAnimationImage(),false);
+				throw new MaximumStatException();
 			}
-			else if((hero.getHealth()  + this.getEffectStrength()) >= hero.getMaxHealth())
+			this.heal(hero, healedHealth);
+			controller.animateBattleCommand(hero, this.getAnimationImage(),false);
+		}
+		
+		/**
+		 * Work out the hero's health after the heal.
+		 * @param hero: current acting hero
+		 * @return health after the heal, -1 if the hero can't be healed
+		 */
+		private int healedHealth(Hero hero)
+		{
+			if(hero.getHealth() < (hero.getMaxHealth() + this.getEffectStrength()))
 			{
-				hero.setHealth(hero.getMaxHealth());
-				hero.setAbilityPoints(hero.getAbilityPoints() - this.getPointCost());
-				controller.animateBattleCommand(hero, this.getAnimationImage(),false);
+				return hero.getHealth() + this.getEffectStrength();
 			}
-			else
+			else if((hero.getHealth()  + this.getEffectStrength()) >= hero.getMaxHealth())
 			{
-				throw new MaximumStatException();
+				return hero.getMaxHealth();
 			}
+			return -1;
+		}
+		
+		/**
+		 * Set the hero's healed health and pay the ability points.
+		 */
+		private void heal(Hero hero, int healedHealth)
+		{
+			hero.setHealth(healedHealth);
+			hero.setAbilityPoints(hero.getAbilityPoints() - this.getPointCost());
 		}
 	}
 }
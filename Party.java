@@ -0,0 +1,507 @@
+package PartyContainers;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import Heros.Hero;
+import Heros.HeroListener;
+import Heros.Stat;
+
+/**
+ * Dense party of heroes addressed by slot. A hero keeps the slot it was added in until it is removed, slots are never
+ * reused, so a slot can stand for a hero in arrays kept alongside the party. Any number of heroes of the same class can
+ * be held, each under its own key. The keys of heroes of the same class sort in slot order, so the party's map,
+ * asMap, iterates them in the order they were added.
+ *
+ * Whether each slot's hero is alive is kept as a bit mask, updated from the heroes' health events, so iterating the
+ * living heroes or checking if the party is defeated skips the dead without looking at them. Index loops can walk the
+ * living heroes with nextAlive:
+ *
+ * for(int slot = party.nextAlive(0); slot >= 0; slot = party.nextAlive(slot + 1)) { Hero hero = party.get(slot); }
+ *
+ * As a Collection the party is every hero it holds, dead or alive, in slot order.
+ * @author Kevin
+ *
+ */
+public class Party extends AbstractCollection<Hero> implements HeroListener {
+	private Hero[] heroes = new Hero[4];
+	private String[] keys = new String[4];
+	private long[] alive = new long[1];
+	private final IdentityHashMap<Hero, Integer> slots = new IdentityHashMap<Hero, Integer>();
+	private final HashMap<String, Integer> keySlots = new HashMap<String, Integer>();
+	// Classes a hero has been keyed by the class name alone for, the later heroes of the class get their slot too
+	private final HashSet<String> namedClasses = new HashSet<String>();
+	// The party by key, made the first time it is asked for
+	private PartyMap map;
+	// Slots handed out so far, removed slots included
+	private int slotCount = 0;
+	private int count = 0;
+	private int aliveCount = 0;
+
+	/**
+	 * Add a hero to the party in the next slot. The first hero of a class is keyed by its class name, every later one
+	 * by its class name and zero padded slot, so they sort after it in slot order.
+	 * @param hero: hero to add
+	 * @return the hero's slot
+	 */
+	public int addHero(Hero hero)
+	{
+		String key = hero.getClass().getName();
+		if(!namedClasses.add(key) || keySlots.containsKey(key))
+		{
+			key = String.format("%s#%010d", key, slotCount);
+		}
+		return addHero(hero, key);
+	}
+
+	/**
+	 * Add a hero to the party in the next slot under a key of the caller's, used when a hero is put in the party's map.
+	 * @param hero: hero to add
+	 * @param key: key no other hero in the party has
+	 * @return the hero's slot
+	 */
+	public int addHero(Hero hero, String key)
+	{
+		if(slots.containsKey(hero))
+		{
+			throw new IllegalArgumentException("Hero is already in the party at slot " + slots.get(hero));
+		}
+		if(keySlots.containsKey(key))
+		{
+			throw new IllegalArgumentException("Key " + key + " is already the key of slot " + keySlots.get(key));
+		}
+		int slot = slotCount++;
+		if(slot == heroes.length)
+		{
+			heroes = Arrays.copyOf(heroes, slot * 2);
+			keys = Arrays.copyOf(keys, slot * 2);
+		}
+		if((slot >>> 6) == alive.length)
+		{
+			alive = Arrays.copyOf(alive, alive.length * 2);
+		}
+		heroes[slot] = hero;
+		keys[slot] = key;
+		slots.put(hero, slot);
+		keySlots.put(key, slot);
+		count ++;
+		if(hero.getHealth() > 0)
+		{
+			setAlive(slot, true);
+		}
+		hero.addListener(this);
+		if(map != null)
+		{
+			map.added(key, hero);
+		}
+		return slot;
+	}
+
+	/**
+	 * Take the hero out of a slot, leaving the slot empty. Other heroes keep their slots.
+	 * @param slot: slot to empty
+	 * @return the hero that was in the slot
+	 */
+	public Hero removeSlot(int slot)
+	{
+		Hero hero = get(slot);
+		if(hero == null)
+		{
+			throw new IllegalArgumentException("Slot " + slot + " is empty");
+		}
+		hero.removeListener(this);
+		if(isAlive(slot))
+		{
+			setAlive(slot, false);
+		}
+		heroes[slot] = null;
+		slots.remove(hero);
+		keySlots.remove(keys[slot]);
+		if(map != null)
+		{
+			map.removed(keys[slot]);
+		}
+		keys[slot] = null;
+		count --;
+		return hero;
+	}
+
+	/**
+	 * Put a hero in the slot of the hero it replaces, so arrays kept alongside the party still stand for the same seat.
+	 * @param slot: slot of the hero to replace
+	 * @param hero: hero to put in the slot, not in the party yet
+	 * @return the hero that was in the slot
+	 */
+	public Hero replaceSlot(int slot, Hero hero)
+	{
+		Hero previous = get(slot);
+		if(previous == null)
+		{
+			throw new IllegalArgumentException("Slot " + slot + " is empty");
+		}
+		if(slots.containsKey(hero))
+		{
+			throw new IllegalArgumentException("Hero is already in the party at slot " + slots.get(hero));
+		}
+		previous.removeListener(this);
+		slots.remove(previous);
+		if(isAlive(slot))
+		{
+			setAlive(slot, false);
+		}
+		heroes[slot] = hero;
+		slots.put(hero, slot);
+		if(hero.getHealth() > 0)
+		{
+			setAlive(slot, true);
+		}
+		hero.addListener(this);
+		if(map != null)
+		{
+			map.added(keys[slot], hero);
+		}
+		return previous;
+	}
+
+	/**
+	 * Get the hero in a slot.
+	 * @param slot: slot of the hero
+	 * @return the hero, null if the slot is empty or was never handed out
+	 */
+	public Hero get(int slot)
+	{
+		return slot >= 0 && slot < slotCount ? heroes[slot] : null;
+	}
+
+	/**
+	 * Get the hero held under a key.
+	 * @param key: the key the hero was added under, see getKey
+	 * @return the hero, null if no hero has the key
+	 */
+	public Hero get(String key)
+	{
+		Integer slot = keySlots.get(key);
+		return slot == null ? null : heroes[slot];
+	}
+
+	/**
+	 * Get the party by key, the map a Player hands out from getParty. Putting a hero in the map or removing one from it
+	 * changes the party, and every change to the party is seen in the map, see PartyMap.
+	 * @return the heroes under their keys
+	 */
+	public TreeMap<String, Hero> asMap()
+	{
+		if(map == null)
+		{
+			map = new PartyMap(this);
+			for(int slot = 0; slot < slotCount; slot++)
+			{
+				if(heroes[slot] != null)
+				{
+					map.added(keys[slot], heroes[slot]);
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Get the slot of a hero.
+	 * @param hero: hero in the party
+	 * @return the hero's slot, -1 if the hero isn't in the party
+	 */
+	public int slotOf(Hero hero)
+	{
+		Integer slot = slots.get(hero);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * Get the key of the hero in a slot, unique within the party.
+	 * @param slot: slot of the hero
+	 * @return the key, null if the slot is empty
+	 */
+	public String getKey(int slot)
+	{
+		return slot >= 0 && slot < slotCount ? keys[slot] : null;
+	}
+
+	/**
+	 * Get the number of slots handed out, every slot is below it.
+	 * @return slots handed out, including emptied ones
+	 */
+	public int getSlotCount()
+	{
+		return slotCount;
+	}
+
+	/**
+	 * Is the hero in a slot alive?
+	 * @param slot: slot of the hero
+	 * @return true if the slot holds a hero with more than 0 health
+	 */
+	public boolean isAlive(int slot)
+	{
+		return slot >= 0 && slot < slotCount && (alive[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	/**
+	 * Get the first slot from a slot on whose hero is alive.
+	 * @param from: first slot to look at
+	 * @return the slot, -1 if no later hero is alive
+	 */
+	public int nextAlive(int from)
+	{
+		if(from < 0)
+		{
+			from = 0;
+		}
+		int word = from >>> 6;
+		if(word >= alive.length)
+		{
+			return -1;
+		}
+		long bits = alive[word] & (-1L << from);
+		while(true)
+		{
+			if(bits != 0)
+			{
+				return (word << 6) + Long.numberOfTrailingZeros(bits);
+			}
+			if(++word == alive.length)
+			{
+				return -1;
+			}
+			bits = alive[word];
+		}
+	}
+
+	/**
+	 * Get the number of living heroes.
+	 * @return heroes with more than 0 health
+	 */
+	public int aliveCount()
+	{
+		return aliveCount;
+	}
+
+	/**
+	 * Is every hero in the party dead?
+	 * @return true if no hero has more than 0 health
+	 */
+	public boolean isDefeated()
+	{
+		return aliveCount == 0;
+	}
+
+	/**
+	 * Call an action on every living hero in slot order.
+	 * @param action: action to call
+	 */
+	public void forEachAlive(Consumer<? super Hero> action)
+	{
+		for(int slot = nextAlive(0); slot >= 0; slot = nextAlive(slot + 1))
+		{
+			action.accept(heroes[slot]);
+		}
+	}
+
+	/**
+	 * Get a view of the living heroes in slot order, following the party as heroes die and are revived.
+	 * @return the living heroes
+	 */
+	public Collection<Hero> alive()
+	{
+		return new AbstractCollection<Hero>() {
+			@Override
+			public Iterator<Hero> iterator()
+			{
+				return new SlotIterator(true);
+			}
+
+			@Override
+			public int size()
+			{
+				return aliveCount;
+			}
+		};
+	}
+
+	/**
+	 * Stop following the heroes' health, for a party made for one battle once the battle is over. The party's alive
+	 * mask isn't kept up to date from then on.
+	 */
+	public void detach()
+	{
+		for(int slot = 0; slot < slotCount; slot++)
+		{
+			if(heroes[slot] != null)
+			{
+				heroes[slot].removeListener(this);
+			}
+		}
+	}
+
+	/**
+	 * Get a player's party by slot. The AI keeps its party as one and it is returned as it is, any other player's heroes
+	 * are put in a new party under the keys they have in the player's map, in key order, for a battle to follow.
+	 * @param player: player whose party to get
+	 * @return the party
+	 */
+	public static Party of(Player player)
+	{
+		if(player instanceof AI)
+		{
+			return ((AI) player).getPartySlots();
+		}
+		Party party = new Party();
+		for(Map.Entry<String, Hero> entry : player.getParty().entrySet())
+		{
+			party.addHero(entry.getValue(), entry.getKey());
+		}
+		return party;
+	}
+
+	/**
+	 * Copy the party for a look-ahead, every hero is copied into the same slot under the same key.
+	 * @return the copy
+	 */
+	public Party copy()
+	{
+		Party copy = new Party();
+		copy.heroes = new Hero[heroes.length];
+		copy.keys = Arrays.copyOf(keys, keys.length);
+		copy.alive = Arrays.copyOf(alive, alive.length);
+		copy.slotCount = slotCount;
+		copy.count = count;
+		copy.aliveCount = aliveCount;
+		copy.namedClasses.addAll(namedClasses);
+		for(int slot = 0; slot < slotCount; slot++)
+		{
+			if(heroes[slot] != null)
+			{
+				Hero hero = heroes[slot].copy();
+				copy.heroes[slot] = hero;
+				copy.slots.put(hero, slot);
+				copy.keySlots.put(keys[slot], slot);
+				hero.addListener(copy);
+			}
+		}
+		return copy;
+	}
+
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		if(stat == Stat.HEALTH && (oldValue > 0) != (newValue > 0))
+		{
+			Integer slot = slots.get(hero);
+			if(slot != null)
+			{
+				setAlive(slot, newValue > 0);
+			}
+		}
+	}
+
+	private void setAlive(int slot, boolean value)
+	{
+		if(value)
+		{
+			alive[slot >>> 6] |= 1L << slot;
+			aliveCount ++;
+		}
+		else
+		{
+			alive[slot >>> 6] &= ~(1L << slot);
+			aliveCount --;
+		}
+	}
+
+	//=========================================================================================================
+	//============================================ COLLECTION =================================================
+
+	/**
+	 * Add a hero in the next slot, see addHero.
+	 */
+	@Override
+	public boolean add(Hero hero)
+	{
+		addHero(hero);
+		return true;
+	}
+
+	/**
+	 * Iterate every hero in slot order, dead or alive.
+	 */
+	@Override
+	public Iterator<Hero> iterator()
+	{
+		return new SlotIterator(false);
+	}
+
+	/**
+	 * Get the number of heroes in the party, dead or alive.
+	 */
+	@Override
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Walks the slots in order, skipping empty slots and, if asked, dead heroes.
+	 */
+	private final class SlotIterator implements Iterator<Hero> {
+		private final boolean aliveOnly;
+		private int next;
+
+		SlotIterator(boolean aliveOnly)
+		{
+			this.aliveOnly = aliveOnly;
+			this.next = find(0);
+		}
+
+		private int find(int from)
+		{
+			if(aliveOnly)
+			{
+				return nextAlive(from);
+			}
+			for(int slot = from; slot < slotCount; slot++)
+			{
+				if(heroes[slot] != null)
+				{
+					return slot;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next >= 0;
+		}
+
+		@Override
+		public Hero next()
+		{
+			if(next < 0)
+			{
+				throw new NoSuchElementException();
+			}
+			Hero hero = heroes[next];
+			next = find(next + 1);
+			return hero;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package PartyContainers;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import Heros.Hero;
+
+/**
+ * A Party's heroes under their keys, the TreeMap a Player hands out from getParty. The party is the only copy: putting
+ * a hero in the map adds it to the party in the next slot, or in the slot of the hero it replaces, removing a key
+ * empties the hero's slot, and the party tells the map of every hero it adds, replaces or removes itself. The views
+ * are read-only, and the TreeMap methods that change the map other than put, putAll, putIfAbsent, replace, remove and
+ * clear throw UnsupportedOperationException.
+ * @author Kevin
+ *
+ */
+final class PartyMap extends TreeMap<String, Hero> {
+	private static final long serialVersionUID = 1L;
+	private final transient Party party;
+
+	/**
+	 * Create the map of a party, filled by the party.
+	 * @param party: party the map is of
+	 */
+	PartyMap(Party party)
+	{
+		this.party = party;
+	}
+
+	/**
+	 * Called by the party once it added a hero.
+	 */
+	void added(String key, Hero hero)
+	{
+		super.put(key, hero);
+	}
+
+	/**
+	 * Called by the party once it removed a hero.
+	 */
+	void removed(String key)
+	{
+		super.remove(key);
+	}
+
+	/**
+	 * Add a hero to the party under a key, a hero replacing the one already under the key takes its slot.
+	 */
+	@Override
+	public Hero put(String key, Hero hero)
+	{
+		Hero previous = party.get(key);
+		if(previous != null)
+		{
+			return previous == hero ? hero : party.replaceSlot(party.slotOf(previous), hero);
+		}
+		party.addHero(hero, key);
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Hero> heroes)
+	{
+		for(Map.Entry<? extends String, ? extends Hero> entry : heroes.entrySet())
+		{
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Remove the hero under a key from the party.
+	 */
+	@Override
+	public Hero remove(Object key)
+	{
+		Hero hero = key instanceof String ? party.get((String) key) : null;
+		if(hero != null)
+		{
+			party.removeSlot(party.slotOf(hero));
+		}
+		return hero;
+	}
+
+	@Override
+	public void clear()
+	{
+		for(int slot = 0; slot < party.getSlotCount(); slot++)
+		{
+			if(party.get(slot) != null)
+			{
+				party.removeSlot(slot);
+			}
+		}
+	}
+
+	@Override
+	public Set<String> keySet()
+	{
+		return Collections.unmodifiableSet(super.keySet());
+	}
+
+	@Override
+	public NavigableSet<String> navigableKeySet()
+	{
+		return Collections.unmodifiableNavigableSet(super.navigableKeySet());
+	}
+
+	@Override
+	public NavigableSet<String> descendingKeySet()
+	{
+		return Collections.unmodifiableNavigableSet(super.descendingKeySet());
+	}
+
+	@Override
+	public Collection<Hero> values()
+	{
+		return Collections.unmodifiableCollection(super.values());
+	}
+
+	@Override
+	public Set<Map.Entry<String, Hero>> entrySet()
+	{
+		// Wrapped as a map so the entries can't be set either
+		return Collections.unmodifiableMap(new AbstractMap<String, Hero>() {
+			@Override
+			public Set<Map.Entry<String, Hero>> entrySet()
+			{
+				return PartyMap.super.entrySet();
+			}
+		}).entrySet();
+	}
+
+	@Override
+	public NavigableMap<String, Hero> descendingMap()
+	{
+		return Collections.unmodifiableNavigableMap(super.descendingMap());
+	}
+
+	@Override
+	public NavigableMap<String, Hero> headMap(String toKey, boolean inclusive)
+	{
+		return Collections.unmodifiableNavigableMap(super.headMap(toKey, inclusive));
+	}
+
+	@Override
+	public SortedMap<String, Hero> headMap(String toKey)
+	{
+		return Collections.unmodifiableSortedMap(super.headMap(toKey));
+	}
+
+	@Override
+	public NavigableMap<String, Hero> tailMap(String fromKey, boolean inclusive)
+	{
+		return Collections.unmodifiableNavigableMap(super.tailMap(fromKey, inclusive));
+	}
+
+	@Override
+	public SortedMap<String, Hero> tailMap(String fromKey)
+	{
+		return Collections.unmodifiableSortedMap(super.tailMap(fromKey));
+	}
+
+	@Override
+	public NavigableMap<String, Hero> subMap(String fromKey, boolean fromInclusive, String toKey, boolean toInclusive)
+	{
+		return Collections.unmodifiableNavigableMap(super.subMap(fromKey, fromInclusive, toKey, toInclusive));
+	}
+
+	@Override
+	public SortedMap<String, Hero> subMap(String fromKey, String toKey)
+	{
+		return Collections.unmodifiableSortedMap(super.subMap(fromKey, toKey));
+	}
+
+	@Override
+	public Map.Entry<String, Hero> pollFirstEntry()
+	{
+		throw new UnsupportedOperationException("Remove the hero from the party");
+	}
+
+	@Override
+	public Map.Entry<String, Hero> pollLastEntry()
+	{
+		throw new UnsupportedOperationException("Remove the hero from the party");
+	}
+
+	@Override
+	public Hero putIfAbsent(String key, Hero hero)
+	{
+		Hero current = party.get(key);
+		if(current == null)
+		{
+			party.addHero(hero, key);
+		}
+		return current;
+	}
+
+	@Override
+	public Hero replace(String key, Hero hero)
+	{
+		return party.get(key) == null ? null : put(key, hero);
+	}
+
+	@Override
+	public boolean replace(String key, Hero oldHero, Hero newHero)
+	{
+		throw new UnsupportedOperationException("Put the hero in the party");
+	}
+
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Hero, ? extends Hero> function)
+	{
+		throw new UnsupportedOperationException("Put the heroes in the party");
+	}
+
+	@Override
+	public Hero compute(String key, BiFunction<? super String, ? super Hero, ? extends Hero> function)
+	{
+		throw new UnsupportedOperationException("Put the hero in the party");
+	}
+
+	@Override
+	public Hero computeIfAbsent(String key, Function<? super String, ? extends Hero> function)
+	{
+		throw new UnsupportedOperationException("Put the hero in the party");
+	}
+
+	@Override
+	public Hero computeIfPresent(String key, BiFunction<? super String, ? super Hero, ? extends Hero> function)
+	{
+		throw new UnsupportedOperationException("Put the hero in the party");
+	}
+
+	@Override
+	public Hero merge(String key, Hero hero, BiFunction<? super Hero, ? super Hero, ? extends Hero> function)
+	{
+		throw new UnsupportedOperationException("Put the hero in the party");
+	}
+}
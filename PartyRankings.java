@@ -0,0 +1,476 @@
+package Heros;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+import Statuses.CrowdControlStatus;
+import Statuses.Status;
+
+/**
+ * Live rankings of a party's living members, kept up to date from the heroes' events so the AI can choose a target
+ * without scanning the party. For every Stat a min and a max indexed heap give the lowest and highest living hero in O(1)
+ * and take O(log n) to update when a stat changes. Living and crowd controlled members are kept as bit sets.
+ *
+ * The rankings are also a Collection of the living members, in the order the party was given, so they can be passed
+ * wherever the Monster selection methods take a party. Those methods check for rankings and use them directly, breaking
+ * ties between heroes of equal stats by party order and drawing the same random numbers as scanning the party did.
+ * @author Andrew
+ *
+ */
+public class PartyRankings extends AbstractCollection<Hero> implements HeroListener {
+	private static final Stat[] STATS = Stat.values();
+	private final Object source;
+	private final Hero[] members;
+	private final IdentityHashMap<Hero, Integer> seats = new IdentityHashMap<Hero, Integer>();
+	// values[stat][seat] is the stat of the hero in the seat
+	private final int[][] values;
+	private final SeatHeap[] lowest = new SeatHeap[STATS.length];
+	private final SeatHeap[] highest = new SeatHeap[STATS.length];
+	private final long[] alive;
+	private final long[] crowdControlled;
+	// Number of crowd control statuses on the hero in each seat
+	private final int[] crowdControlCounts;
+	private int aliveCount = 0;
+
+	/**
+	 * Rank a party and start listening to its members.
+	 * @param source: the player or collection the party is kept in, see ranks
+	 * @param party: the party's heroes in the order ties are broken by
+	 */
+	public PartyRankings(Object source, Collection<Hero> party)
+	{
+		this.source = source;
+		this.members = party.toArray(new Hero[0]);
+		this.values = new int[STATS.length][members.length];
+		for(int i = 0; i < STATS.length; i++)
+		{
+			lowest[i] = new SeatHeap(values[i], true, members.length);
+			highest[i] = new SeatHeap(values[i], false, members.length);
+		}
+		this.alive = new long[(members.length + 63) >>> 6];
+		this.crowdControlled = new long[alive.length];
+		this.crowdControlCounts = new int[members.length];
+		for(int seat = 0; seat < members.length; seat++)
+		{
+			seats.put(members[seat], seat);
+			members[seat].addListener(this);
+		}
+		refresh();
+	}
+
+	/**
+	 * Rank every member again from scratch, needed after a hero's statuses are replaced without events, i.e by
+	 * restoring a snapshot.
+	 */
+	public void refresh()
+	{
+		aliveCount = 0;
+		for(int i = 0; i < STATS.length; i++)
+		{
+			lowest[i].clear();
+			highest[i].clear();
+		}
+		for(int seat = 0; seat < members.length; seat++)
+		{
+			Hero hero = members[seat];
+			for(int i = 0; i < STATS.length; i++)
+			{
+				values[i][seat] = hero.getStat(STATS[i]);
+			}
+			setBit(alive, seat, false);
+			if(hero.getHealth() > 0)
+			{
+				insertSeat(seat);
+			}
+			int count = 0;
+			for(Status status : hero.getStatusesById().values())
+			{
+				if(status instanceof CrowdControlStatus)
+				{
+					count ++;
+				}
+			}
+			crowdControlCounts[seat] = count;
+			setBit(crowdControlled, seat, count > 0);
+		}
+	}
+
+	/**
+	 * Do these rankings follow a party?
+	 * @param party: the player or collection a party is kept in
+	 * @return true if the rankings were made for it
+	 */
+	public boolean ranks(Object party)
+	{
+		return source == party;
+	}
+
+	/**
+	 * Get the living member with the lowest or highest stat, the first in party order on a tie.
+	 * @param stat: stat to rank by
+	 * @param lower: true for the lowest, false for the highest
+	 * @return the member, null if no member is alive
+	 */
+	public Hero select(Stat stat, boolean lower)
+	{
+		SeatHeap heap = lower ? lowest[stat.ordinal()] : highest[stat.ordinal()];
+		return heap.size == 0 ? null : members[heap.seats[0]];
+	}
+
+	/**
+	 * Pick a random living member that is, or isn't, crowd controlled, drawing once from the random source if there is one.
+	 * @param crowdControlled: true to pick from the crowd controlled members, false from the rest
+	 * @param random: the battle's random source
+	 * @return the member, null if there is none to pick from
+	 */
+	public Hero selectByCrowdControl(boolean crowdControlled, RandomGenerator random)
+	{
+		int count = 0;
+		for(int i = 0; i < alive.length; i++)
+		{
+			count += Long.bitCount(matching(i, crowdControlled));
+		}
+		if(count == 0)
+		{
+			return null;
+		}
+		int pick = random.nextInt(count);
+		for(int i = 0; i < alive.length; i++)
+		{
+			long word = matching(i, crowdControlled);
+			int bits = Long.bitCount(word);
+			if(pick < bits)
+			{
+				for(; pick > 0; pick--)
+				{
+					word &= word - 1;
+				}
+				return members[(i << 6) + Long.numberOfTrailingZeros(word)];
+			}
+			pick -= bits;
+		}
+		throw new IllegalStateException("Crowd control ranking changed while picking");
+	}
+
+	/**
+	 * Pick a random living member, drawing once from the random source if there is one.
+	 * @param random: the battle's random source
+	 * @return the member, null if no member is alive
+	 */
+	public Hero selectRandom(RandomGenerator random)
+	{
+		if(aliveCount == 0)
+		{
+			return null;
+		}
+		return nthAlive(random.nextInt(aliveCount));
+	}
+
+	/**
+	 * Is the member crowd controlled?
+	 * @param hero: member of the party
+	 * @return true if the hero has a crowd control status
+	 */
+	public boolean isCrowdControlled(Hero hero)
+	{
+		return getBit(crowdControlled, seats.get(hero));
+	}
+
+	private long matching(int word, boolean crowdControlled)
+	{
+		return crowdControlled ? alive[word] & this.crowdControlled[word] : alive[word] & ~this.crowdControlled[word];
+	}
+
+	private Hero nthAlive(int n)
+	{
+		for(int i = 0; i < alive.length; i++)
+		{
+			long word = alive[i];
+			int bits = Long.bitCount(word);
+			if(n < bits)
+			{
+				for(; n > 0; n--)
+				{
+					word &= word - 1;
+				}
+				return members[(i << 6) + Long.numberOfTrailingZeros(word)];
+			}
+			n -= bits;
+		}
+		throw new NoSuchElementException();
+	}
+
+	/**
+	 * Stop listening to the party's members, called once the battle is over.
+	 */
+	public void detach()
+	{
+		for(Hero hero : members)
+		{
+			hero.removeListener(this);
+		}
+	}
+
+	//=========================================================================================================
+	//============================================== EVENTS ===================================================
+
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		Integer seat = seats.get(hero);
+		if(seat == null)
+		{
+			return;
+		}
+		values[stat.ordinal()][seat] = newValue;
+		if(stat == Stat.HEALTH && (oldValue > 0) != (newValue > 0))
+		{
+			if(newValue > 0)
+			{
+				insertSeat(seat);
+			}
+			else
+			{
+				removeSeat(seat);
+			}
+		}
+		else if(getBit(alive, seat))
+		{
+			lowest[stat.ordinal()].update(seat);
+			highest[stat.ordinal()].update(seat);
+		}
+	}
+
+	@Override
+	public void statusAdded(Hero hero, Status status)
+	{
+		Integer seat = seats.get(hero);
+		if(seat != null && status instanceof CrowdControlStatus)
+		{
+			crowdControlCounts[seat] ++;
+			setBit(crowdControlled, seat, true);
+		}
+	}
+
+	@Override
+	public void statusRemoved(Hero hero, Status status)
+	{
+		Integer seat = seats.get(hero);
+		if(seat != null && status instanceof CrowdControlStatus)
+		{
+			crowdControlCounts[seat] --;
+			setBit(crowdControlled, seat, crowdControlCounts[seat] > 0);
+		}
+	}
+
+	private void insertSeat(int seat)
+	{
+		setBit(alive, seat, true);
+		aliveCount ++;
+		for(int i = 0; i < STATS.length; i++)
+		{
+			lowest[i].insert(seat);
+			highest[i].insert(seat);
+		}
+	}
+
+	private void removeSeat(int seat)
+	{
+		setBit(alive, seat, false);
+		aliveCount --;
+		for(int i = 0; i < STATS.length; i++)
+		{
+			lowest[i].remove(seat);
+			highest[i].remove(seat);
+		}
+	}
+
+	private static boolean getBit(long[] bits, int index)
+	{
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void setBit(long[] bits, int index, boolean value)
+	{
+		if(value)
+		{
+			bits[index >>> 6] |= 1L << index;
+		}
+		else
+		{
+			bits[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	//=========================================================================================================
+	//============================================ COLLECTION =================================================
+
+	/**
+	 * Iterate the living members in party order.
+	 */
+	@Override
+	public Iterator<Hero> iterator()
+	{
+		return new Iterator<Hero>() {
+			private int next = nextAlive(0);
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < members.length;
+			}
+
+			@Override
+			public Hero next()
+			{
+				if(next >= members.length)
+				{
+					throw new NoSuchElementException();
+				}
+				Hero hero = members[next];
+				next = nextAlive(next + 1);
+				return hero;
+			}
+		};
+	}
+
+	private int nextAlive(int from)
+	{
+		for(int seat = from; seat < members.length; seat++)
+		{
+			if(getBit(alive, seat))
+			{
+				return seat;
+			}
+		}
+		return members.length;
+	}
+
+	/**
+	 * Get the number of living members.
+	 */
+	@Override
+	public int size()
+	{
+		return aliveCount;
+	}
+
+	/**
+	 * Indexed binary heap of seats ordered by a stat, ties broken by seat.
+	 */
+	private static final class SeatHeap {
+		private final int[] values;
+		private final boolean lowestFirst;
+		private final int[] seats;
+		// Index of each seat in the heap, -1 if it isn't in it
+		private final int[] positions;
+		private int size = 0;
+
+		SeatHeap(int[] values, boolean lowestFirst, int capacity)
+		{
+			this.values = values;
+			this.lowestFirst = lowestFirst;
+			this.seats = new int[capacity];
+			this.positions = new int[capacity];
+			Arrays.fill(positions, -1);
+		}
+
+		void clear()
+		{
+			for(int i = 0; i < size; i++)
+			{
+				positions[seats[i]] = -1;
+			}
+			size = 0;
+		}
+
+		void insert(int seat)
+		{
+			seats[size] = seat;
+			positions[seat] = size;
+			size ++;
+			siftUp(size - 1);
+		}
+
+		void remove(int seat)
+		{
+			int index = positions[seat];
+			positions[seat] = -1;
+			size --;
+			if(index < size)
+			{
+				seats[index] = seats[size];
+				positions[seats[index]] = index;
+				siftUp(index);
+				siftDown(positions[seats[index]] == index ? index : positions[seats[index]]);
+			}
+		}
+
+		void update(int seat)
+		{
+			int index = positions[seat];
+			siftUp(index);
+			siftDown(positions[seat]);
+		}
+
+		private boolean before(int a, int b)
+		{
+			if(values[a] != values[b])
+			{
+				return lowestFirst ? values[a] < values[b] : values[a] > values[b];
+			}
+			return a < b;
+		}
+
+		private void siftUp(int index)
+		{
+			int seat = seats[index];
+			while(index > 0)
+			{
+				int parent = (index - 1) >>> 1;
+				if(!before(seat, seats[parent]))
+				{
+					break;
+				}
+				place(seats[parent], index);
+				index = parent;
+			}
+			place(seat, index);
+		}
+
+		private void siftDown(int index)
+		{
+			int seat = seats[index];
+			while(true)
+			{
+				int child = 2 * index + 1;
+				if(child >= size)
+				{
+					break;
+				}
+				if(child + 1 < size && before(seats[child + 1], seats[child]))
+				{
+					child ++;
+				}
+				if(!before(seats[child], seat))
+				{
+					break;
+				}
+				place(seats[child], index);
+				index = child;
+			}
+			place(seat, index);
+		}
+
+		private void place(int seat, int index)
+		{
+			seats[index] = seat;
+			positions[seat] = index;
+		}
+	}
+}
@@ -1,13 +1,8 @@
 package Heros;
 
-import java.util.Collection;
-
-import BattleCommands.Ability;
-import PartyContainers.AiBattleReturnType;
-
 /**
  * Punisher Monster type. 
- *  Defines the method selectCommand for this specific Monster type.
+ *  Defines the selectCommand ladder for this specific Monster type.
  *  Will use abilities as such:
  *  10% chance to use an DefensiveAbility
  *  15% chance to use a CrowdControlAbility
@@ -21,6 +16,11 @@ import PartyContainers.AiBattleReturnType;
  * @author Andrew
  */
 public abstract class Punisher extends Monster {
+	private static final SelectionLadder LADDER = new SelectionLadder(Stat.HEALTH, true,
+			new SelectionLadder.Rung(0.90, AbilityCategory.DEFENSIVE),
+			new SelectionLadder.Rung(0.75, AbilityCategory.CROWD_CONTROL, null, Stat.HEALTH, false, false), //Highest Health
+			new SelectionLadder.Rung(0.55, AbilityCategory.OFFENSIVE_STATUS, null, Stat.DEFENSE_RATING, false, true), //Crowd Controlled OR highest defense
+			new SelectionLadder.Rung(0.15, AbilityCategory.OFFENSIVE, null, Stat.HEALTH, true, true)); //Crowd Controlled OR lowest health
 
 	/**
 	 * Constructor to create an instance of the Punisher class.
@@ -45,50 +45,11 @@ public abstract class Punisher extends Monster {
 	}
 
 	/**
-	 * Abstract method used by Monsters to determine actions during battle.  
-	 * This method will be used as part of the AI functionality to return an ability to use and a target (if applicable).
-	 * @param Collection<Hero> A list of the Hero instances in the player's party
-	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
+	 * Get the ladder selectCommand walks, see the class description.
+	 * @return SelectionLadder The Punisher ladder.
 	 */
-	public AiBattleReturnType selectCommand(Collection<Hero> playerParty) {
-			
-			Hero target = null;
-			Ability ability = null;
-			
-			
-			Collection<Ability> availableAbilities = getAvailableAbilities();
-			Collection<Hero> availableTargets = getAvailableTargets(playerParty);
-			
-			if (availableAbilities.size() < 2) {
-				ability = this.getBaseAttack();
-				target = selectByStat(availableTargets,"health",true); //Lowest Health
-				return new AiBattleReturnType(target, ability);
-			}
-			else {
-				double random = Math.random();
-				//System.out.println(random);
-				if(random > 0.90) {
-					ability = getDefensiveAbility(availableAbilities);
-				}
-				else if(random > 0.75) {
-					ability = getCrowdControlAbility(availableAbilities);
-					target = selectByStat(availableTargets,"health",false); //Highest Health
-				}
-				else if(random > 0.55) {
-					ability = getOffensiveStatusAbility(availableAbilities);
-					target = selectIfCrowdControlled(availableTargets);	//Crowd Controlled
-					if (target == null) { target = selectByStat(availableTargets,"defenseRating",false); } //OR highest defense
-				}
-				else if(random > 0.15) {
-					ability = getOffensiveAbility(availableAbilities);
-					target = selectIfCrowdControlled(availableTargets);	//Crowd Controlled
-					if (target == null) { target = selectByStat(availableTargets,"health",true); } //OR lowest health
-				}
-			}
-			if (ability == null) { 
-				ability = this.getBaseAttack();
-				target = selectByStat(availableTargets,"health",true); //Lowest Health 
-			}
-			return new AiBattleReturnType(target, ability);
-		}
-}
\ No newline at end of file
+	@Override
+	public SelectionLadder getLadder() {
+		return LADDER;
+	}
+}
@@ -0,0 +1,85 @@
+package Benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import BattleSimulation.BattleEngine;
+import BattleSimulation.GreedyTurnPolicy;
+import BattleSimulation.MonteCarloSearch;
+import BattleSimulation.SearchParallelism;
+import Heros.Hero;
+import Heros.Monster;
+import PartyContainers.AI;
+import PartyContainers.AiBattleReturnType;
+import PartyContainers.HumanPlayer;
+
+/**
+ * Throughput of a Monte Carlo search decision for the first AI monster of a default battle, per parallelism mode
+ * and thread count. Every decision runs PLAYOUTS playouts, so decisions per second times PLAYOUTS is the playout throughput.
+ * The search only reads the live battle so no reset is needed between invocations.
+ * @author Andrew
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+	public static final int PLAYOUTS = 512;
+
+	@Param({"ROOT", "TREE"})
+	public SearchParallelism parallelism;
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	private ForkJoinPool pool;
+	private BattleEngine engine;
+	private HumanPlayer human;
+	private Monster monster;
+	private MonteCarloSearch search;
+
+	@Setup
+	public void setUp()
+	{
+		pool = new ForkJoinPool(threads);
+		human = new HumanPlayer();
+		AI ai = new AI();
+		engine = new BattleEngine(human, ai, new GreedyTurnPolicy(), 42L);
+		for(Hero hero : ai.getParty().values())
+		{
+			monster = (Monster) hero;
+			break;
+		}
+		search = new MonteCarloSearch(engine, PLAYOUTS, 0);
+		search.setParallelism(parallelism, threads);
+		search.setPool(pool);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public AiBattleReturnType decide()
+	{
+		return search.selectCommand(monster, human.getParty().values(), engine.getRandom());
+	}
+}
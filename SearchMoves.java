@@ -0,0 +1,134 @@
+package BattleSimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import BattleCommands.Ability;
+import BattleCommands.CrowdControlAbility;
+import BattleCommands.OffensiveAbility;
+import Heros.Hero;
+import Heros.Monster;
+
+/**
+ * The moves a look-ahead search plays on a forked battle: listing a hero's commands, starting a turn and using a command.
+ * Shared by MonteCarloSearch and ExpectimaxSearch so both searches see the same options.
+ * @author Andrew
+ *
+ */
+final class SearchMoves {
+
+	private SearchMoves()
+	{
+	}
+
+	/**
+	 * Start the next turn of the fork, passing the turns of heroes that are crowd controlled or die to their statuses.
+	 * @return the hero that can act, null if the battle ended first
+	 */
+	static Hero startTurn(BattleEngine fork)
+	{
+		while(!fork.isOver())
+		{
+			Hero actor = fork.nextActor();
+			if(actor == null)
+			{
+				return null;
+			}
+			boolean crowdControlled = actor.updateStatuses();
+			if(!crowdControlled && actor.getHealth() > 0)
+			{
+				return actor;
+			}
+			fork.endTurn(actor, null, null);
+		}
+		return null;
+	}
+
+	/**
+	 * Use an option in the fork and end the actor's turn. A command that can't be used costs the turn, as in BattleEngine.step.
+	 */
+	static void apply(BattleEngine fork, Hero actor, Option option)
+	{
+		Hero target = option.targetSlot < 0 ? null : fork.getHeroes().get(option.targetSlot);
+		// A command that can't be used still ends the turn
+		option.ability.tryUse(actor, target);
+		fork.endTurn(actor, option.ability, target);
+	}
+
+	/**
+	 * List every affordable ability of the actor, once per living opponent for abilities that take a target.
+	 */
+	static List<Option> options(BattleEngine engine, Hero actor)
+	{
+		ArrayList<Option> options = new ArrayList<Option>();
+		List<Hero> heroes = engine.getHeroes();
+		boolean aiControlled = BattleEngine.isAIControlled(actor);
+		ArrayList<Ability> abilities = new ArrayList<Ability>(actor.getAbilities().values());
+		if(actor instanceof Monster)
+		{
+			Ability baseAttack = ((Monster) actor).getBaseAttack();
+			if(baseAttack != null && !abilities.contains(baseAttack))
+			{
+				abilities.add(baseAttack);
+			}
+		}
+		for(Ability ability : abilities)
+		{
+			if(ability.getPointCost() > actor.getAbilityPoints())
+			{
+				continue;
+			}
+			if(ability instanceof OffensiveAbility || ability instanceof CrowdControlAbility)
+			{
+				for(int slot = 0; slot < heroes.size(); slot++)
+				{
+					Hero target = heroes.get(slot);
+					if(target.getHealth() > 0 && BattleEngine.isAIControlled(target) != aiControlled)
+					{
+						options.add(new Option(ability, slot));
+					}
+				}
+			}
+			else
+			{
+				options.add(new Option(ability, -1));
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Find the slot of a hero in a battle.
+	 * @return the hero's index in the engine's hero list, -1 if it isn't in the battle
+	 */
+	static int slotOf(List<Hero> heroes, Hero hero)
+	{
+		for(int slot = 0; slot < heroes.size(); slot++)
+		{
+			if(heroes.get(slot) == hero)
+			{
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * An ability and the slot of its target, -1 if it has none.
+	 */
+	static final class Option {
+		final Ability ability;
+		final int targetSlot;
+
+		Option(Ability ability, int targetSlot)
+		{
+			this.ability = ability;
+			this.targetSlot = targetSlot;
+		}
+
+		boolean sameAs(Option other)
+		{
+			return ability == other.ability && targetSlot == other.targetSlot;
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package BattleSimulation;
+
+/**
+ * How MonteCarloSearch spreads a decision's playouts over several threads.
+ * @author Andrew
+ *
+ */
+public enum SearchParallelism {
+	// Each thread grows its own tree, the root statistics are summed at the end
+	ROOT,
+	// All threads grow one shared tree, virtual loss steers threads away from the paths other threads are playing
+	TREE
+}
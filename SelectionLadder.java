@@ -0,0 +1,137 @@
+package Heros;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Monster archetype's selectCommand ladder as data. The value drawn for a decision picks the first rung whose bound
+ * it is above; the rung picks an affordable ability of its category, or of its alternative if there is none, and
+ * chooses its target. A Monster with fewer than two affordable abilities, whose rung finds no ability or whose value
+ * is below every rung uses its base attack on the base target.
+ * Monster.selectCommand walks the ladder and the columnar battles read the same rungs, so both take the same decisions.
+ * @author Andrew
+ *
+ */
+public final class SelectionLadder {
+	private final Stat baseStat;
+	private final boolean baseLowest;
+	private final Rung[] rungs;
+
+	/**
+	 * Create a ladder.
+	 * @param baseStat: stat the base attack's target is chosen by
+	 * @param baseLowest: true to target the lowest, false the highest
+	 * @param rungs: the rungs from the highest bound down
+	 */
+	public SelectionLadder(Stat baseStat, boolean baseLowest, Rung... rungs)
+	{
+		this.baseStat = baseStat;
+		this.baseLowest = baseLowest;
+		this.rungs = rungs.clone();
+	}
+
+	/**
+	 * Get the rung a value picks.
+	 * @param value: value drawn for the decision, between 0 and 1
+	 * @return the first rung whose bound the value is above, null if it is below every rung
+	 */
+	public Rung select(double value)
+	{
+		for(Rung rung : rungs)
+		{
+			if(value > rung.above)
+			{
+				return rung;
+			}
+		}
+		return null;
+	}
+
+	public List<Rung> getRungs()
+	{
+		return Collections.unmodifiableList(Arrays.asList(rungs));
+	}
+
+	public Stat getBaseStat()
+	{
+		return baseStat;
+	}
+
+	public boolean isBaseLowest()
+	{
+		return baseLowest;
+	}
+
+	/**
+	 * One rung of a ladder.
+	 */
+	public static final class Rung {
+		private final double above;
+		private final AbilityCategory category;
+		private final AbilityCategory alternative;
+		private final Stat targetStat;
+		private final boolean targetLowest;
+		private final boolean crowdControlledFirst;
+
+		/**
+		 * Create a rung whose ability needs no target.
+		 * @param above: the value has to be above this for the rung to be picked
+		 * @param category: category of ability to pick
+		 */
+		public Rung(double above, AbilityCategory category)
+		{
+			this(above, category, null, null, false, false);
+		}
+
+		/**
+		 * Create a rung.
+		 * @param above: the value has to be above this for the rung to be picked
+		 * @param category: category of ability to pick
+		 * @param alternative: category tried if there is no affordable ability of the first, null if none is
+		 * @param targetStat: stat the target is chosen by, null if the ability needs no target
+		 * @param targetLowest: true to target the lowest, false the highest
+		 * @param crowdControlledFirst: target a random crowd controlled hero first, by targetStat if there is none
+		 */
+		public Rung(double above, AbilityCategory category, AbilityCategory alternative, Stat targetStat,
+				boolean targetLowest, boolean crowdControlledFirst)
+		{
+			this.above = above;
+			this.category = category;
+			this.alternative = alternative;
+			this.targetStat = targetStat;
+			this.targetLowest = targetLowest;
+			this.crowdControlledFirst = crowdControlledFirst;
+		}
+
+		public double getAbove()
+		{
+			return above;
+		}
+
+		public AbilityCategory getCategory()
+		{
+			return category;
+		}
+
+		public AbilityCategory getAlternative()
+		{
+			return alternative;
+		}
+
+		public Stat getTargetStat()
+		{
+			return targetStat;
+		}
+
+		public boolean isTargetLowest()
+		{
+			return targetLowest;
+		}
+
+		public boolean isCrowdControlledFirst()
+		{
+			return crowdControlledFirst;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package BattleSimulation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import BattleCommands.BattleCommand;
+
+/**
+ * Aggregated results of a batch of simulated battles: how often each side won, how many turns the battles took
+ * and how often each ability or item was used. Reports from separate batches are merged with merge.
+ * @author Kevin
+ *
+ */
+public class SimulationReport {
+	private long battles;
+	private long humanWins;
+	private long aiWins;
+	private long draws;
+	private long totalTurns;
+	// turnHistogram[n] is the number of battles that lasted n turns, the last bucket holds the turn limit
+	private final long[] turnHistogram;
+	private final HashMap<String, Long> commandUsage = new HashMap<String, Long>();
+
+	/**
+	 * Create an empty report.
+	 * @param turnLimit: turn limit of the simulated battles, sizes the turn histogram
+	 */
+	public SimulationReport(int turnLimit)
+	{
+		this.turnHistogram = new long[turnLimit + 1];
+	}
+
+	/**
+	 * Record the result of one finished battle.
+	 * @param outcome: how the battle ended
+	 * @param turns: how many turns the battle lasted
+	 */
+	public void recordBattle(BattleOutcome outcome, int turns)
+	{
+		battles ++;
+		totalTurns += turns;
+		turnHistogram[Math.min(turns, turnHistogram.length - 1)] ++;
+		switch(outcome)
+		{
+			case HUMAN_VICTORY:
+				humanWins ++;
+				break;
+			case AI_VICTORY:
+				aiWins ++;
+				break;
+			default:
+				draws ++;
+				break;
+		}
+	}
+
+	/**
+	 * Record one use of a command, keyed by its string representation.
+	 * @param command: ability or item used
+	 */
+	public void recordCommand(BattleCommand command)
+	{
+		recordCommand(command.toString());
+	}
+
+	/**
+	 * Record one use of a command by name, for simulations that don't hold the command objects.
+	 * @param command: string representation of the ability or item used
+	 */
+	public void recordCommand(String command)
+	{
+		commandUsage.merge(command, 1L, Long::sum);
+	}
+
+	/**
+	 * Add the results of another report to this one.
+	 * @param other: report of a different batch with the same turn limit
+	 * @return this report
+	 */
+	public SimulationReport merge(SimulationReport other)
+	{
+		battles += other.battles;
+		humanWins += other.humanWins;
+		aiWins += other.aiWins;
+		draws += other.draws;
+		totalTurns += other.totalTurns;
+		for(int i = 0; i < turnHistogram.length; i++)
+		{
+			turnHistogram[i] += other.turnHistogram[i];
+		}
+		for(Map.Entry<String, Long> entry : other.commandUsage.entrySet())
+		{
+			commandUsage.merge(entry.getKey(), entry.getValue(), Long::sum);
+		}
+		return this;
+	}
+
+	/**
+	 * Get the fraction of battles with the given outcome.
+	 * @param outcome: outcome to count
+	 * @return fraction between 0 and 1, 0 if no battles were run
+	 */
+	public double getRate(BattleOutcome outcome)
+	{
+		if(battles == 0)
+		{
+			return 0;
+		}
+		switch(outcome)
+		{
+			case HUMAN_VICTORY:
+				return (double) humanWins / battles;
+			case AI_VICTORY:
+				return (double) aiWins / battles;
+			case DRAW:
+				return (double) draws / battles;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Get the mean number of turns per battle.
+	 * @return mean turns, 0 if no battles were run
+	 */
+	public double getMeanTurns()
+	{
+		return battles == 0 ? 0 : (double) totalTurns / battles;
+	}
+
+	/**
+	 * Get the turn count below or at which the given fraction of battles finished.
+	 * @param fraction: between 0 and 1, 0.5 is the median
+	 * @return turn count of the percentile
+	 */
+	public int getTurnPercentile(double fraction)
+	{
+		long wanted = (long) Math.ceil(fraction * battles);
+		long seen = 0;
+		for(int turns = 0; turns < turnHistogram.length; turns++)
+		{
+			seen += turnHistogram[turns];
+			if(seen >= wanted && seen > 0)
+			{
+				return turns;
+			}
+		}
+		return turnHistogram.length - 1;
+	}
+
+	public long getBattles() {
+		return battles;
+	}
+
+	public long getHumanWins() {
+		return humanWins;
+	}
+
+	public long getAIWins() {
+		return aiWins;
+	}
+
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * Get the number of battles that lasted each turn count.
+	 * @return a copy of the turn histogram, the last bucket holds battles that reached the turn limit
+	 */
+	public long[] getTurnHistogram() {
+		return turnHistogram.clone();
+	}
+
+	/**
+	 * Get how often each ability or item was used, keyed by its string representation.
+	 * @return unmodifiable map of command usage counts
+	 */
+	public Map<String, Long> getCommandUsage() {
+		return Collections.unmodifiableMap(commandUsage);
+	}
+
+	public String toString()
+	{
+		return "Battles: " + battles
+				+ " Human wins: " + String.format("%.3f", getRate(BattleOutcome.HUMAN_VICTORY))
+				+ " AI wins: " + String.format("%.3f", getRate(BattleOutcome.AI_VICTORY))
+				+ " Draws: " + String.format("%.3f", getRate(BattleOutcome.DRAW))
+				+ " Mean turns: " + String.format("%.1f", getMeanTurns())
+				+ " Command usage: " + commandUsage;
+	}
+}
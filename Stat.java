@@ -0,0 +1,57 @@
+package Heros;
+
+import java.util.HashMap;
+
+/**
+ * The hero statistics that can be read and written by key with Hero.getStat and Hero.setStat.
+ * Each constant keeps the String key used by statuses and abilities for the stat they affect, i.e "health".
+ * @author Kevin
+ *
+ */
+public enum Stat {
+	HEALTH("health"),
+	ABILITY_POINTS("abilityPoints"),
+	DEFENSE_RATING("defenseRating"),
+	SPEED("speed");
+
+	private static final HashMap<String, Stat> BY_KEY = new HashMap<String, Stat>();
+	static
+	{
+		for(Stat stat : Stat.values())
+		{
+			BY_KEY.put(stat.key, stat);
+		}
+	}
+
+	private final String key;
+
+	private Stat(String key)
+	{
+		this.key = key;
+	}
+
+	/**
+	 * Get the String key of this stat.
+	 * @return the key, i.e "health"
+	 */
+	public String getKey()
+	{
+		return this.key;
+	}
+
+	/**
+	 * Get the stat for a String key.
+	 * @param key: stat key, i.e "health"
+	 * @return the matching stat
+	 * @throws IllegalArgumentException if no stat has this key
+	 */
+	public static Stat fromKey(String key)
+	{
+		Stat stat = BY_KEY.get(key);
+		if(stat == null)
+		{
+			throw new IllegalArgumentException("Unknown stat " + key);
+		}
+		return stat;
+	}
+}
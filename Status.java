@@ -2,7 +2,6 @@ package Statuses;
 
 import java.awt.Image;
 import java.util.Collection;
-import java.util.Date;
 
 import GridGUI.BattleController;
 import Heros.Hero;
@@ -20,7 +19,12 @@ public abstract class Status implements Cloneable{
 	private int effectStrength;
 	private int duration;
 	private final int defaultDuration;
-	private long time;
+	// Issued by the hero when this status is applied, null for the template statuses held by abilities
+	private Long id;
+	// name + "_" + id, built the first time it is asked for
+	private String key;
+	// Hero this status was applied to, told when the duration changes. Null for the template statuses
+	private Hero owner;
 	private Image animationImage;
 	public static final int STATUS_IMAGE_WIDTH = 150;
 	public static final int STATUS_IMAGE_HEIGHT = 150;
@@ -41,8 +45,6 @@ public abstract class Status implements Cloneable{
 		this.duration = duration;
 		this.defaultDuration = defaultDuration;
 		this.animationImage = animationImage;
-		this.time = new Date().getTime();
-		
 	}
 	
 	/**
@@ -54,18 +56,21 @@ public abstract class Status implements Cloneable{
 	public Status(Status other)
 	{
 		this(other.name, other.statAffected, other.effectStrength, other.duration, other.defaultDuration, other.animationImage);
-		// New time stamp is created in the original constructor
+		// The copy gets its own id when it is applied
 		// This way we can stack status effects 
 	}
 	
 	/**
-	 * Add a status to the targeted hero. Clones a deep copy with a new time stamp so we can stack statuses. 
+	 * Add a status to the targeted hero. Clones a deep copy keyed by a new id from the hero so we can stack statuses. 
 	 * @param Status: effect, status to add to this character 
 	 */
 	public Status addStatus(Hero hero)
 	{
 		Status statusToApply = this.clone();
-		hero.getStatuses().put(statusToApply.getKey(), statusToApply);
+		statusToApply.id = hero.nextStatusId();
+		statusToApply.owner = hero;
+		hero.getStatusesById().put(statusToApply.id, statusToApply);
+		hero.fireStatusAdded(statusToApply);
 		return statusToApply;
 	}
 	
@@ -75,7 +80,22 @@ public abstract class Status implements Cloneable{
 	 */
 	public void removeStatus(Hero hero)
 	{
-		hero.getStatuses().remove(this.getKey());
+		Status removed = hero.getStatusesById().remove(this.id);
+		if(removed != null)
+		{
+			hero.fireStatusRemoved(removed);
+		}
+	}
+	
+	/**
+	 * Put a status that was applied to a hero and later removed back on the hero under its id, used to undo a command.
+	 * @param hero: hero the status was applied to
+	 */
+	public void restoreStatus(Hero hero)
+	{
+		this.owner = hero;
+		hero.getStatusesById().put(this.id, this);
+		hero.fireStatusAdded(this);
 	}
 	
 	/**
@@ -85,7 +105,7 @@ public abstract class Status implements Cloneable{
 	 */
 	public Status getStatus(Hero hero)
 	{
-		return hero.getStatuses().get(this.getKey());
+		return hero.getStatusesById().get(this.id);
 	}
 	
 	/**
@@ -98,7 +118,7 @@ public abstract class Status implements Cloneable{
 	{
 		//return hero.getStatuses().get(name);
 		Status effect = null;
-		Collection<Status> statusEffects = hero.getStatuses().values();
+		Collection<Status> statusEffects = hero.getStatusesById().values();
 		for (Status s :statusEffects) {
 			if (s.getName() == name) { effect = s; }
 		}
@@ -149,6 +169,21 @@ public abstract class Status implements Cloneable{
 	 * Polymorphism doesn't apply to static methods.
 	 */
 	public abstract Status clone();
+	
+	/**
+	 * Copy a status applied to a hero, keeping its id and remaining duration. Used when a hero is copied 
+	 * so the copy's statuses can be ticked and removed without touching the original hero's.
+	 * @param owner: the copied hero the copy is applied to
+	 * @return A copy of this status under the same id
+	 */
+	public Status copyApplied(Hero owner)
+	{
+		Status copy = this.clone();
+		copy.id = this.id;
+		copy.key = this.key;
+		copy.owner = owner;
+		return copy;
+	}
 
 	/**
 	 * Get effect strength
@@ -171,7 +206,12 @@ public abstract class Status implements Cloneable{
 	 * @param duration remaining
 	 */
 	public void setDuration(int duration) {
+		int oldDuration = this.duration;
 		this.duration = duration;
+		if(this.owner != null)
+		{
+			this.owner.fireStatusDurationChanged(this, oldDuration, duration);
+		}
 	}
 
 	/**
@@ -202,12 +242,27 @@ public abstract class Status implements Cloneable{
 	}
 	
 	/**
-	 * Get the key of this status effect to access it from a hero's statuses Map.
-	 * @return The Map key of this status effect. 
+	 * Get the key of this status effect to access it from a hero's statuses Map, its name and id.
+	 * The key is only built the first time it is asked for, the battle itself looks statuses up by id.
+	 * @return The Map key of this status effect, null if it hasn't been applied to a hero. 
 	 */
 	public String getKey()
 	{
-		return this.name + "_" + String.format("%d",this.time);
+		if(this.key == null && this.id != null)
+		{
+			this.key = this.name + "_" + this.id;
+		}
+		return this.key;
+	}
+	
+	/**
+	 * Get the id of this status effect to access it from a hero's statuses by id.
+	 * Ids are issued in increasing order by the hero the status is applied to.
+	 * @return The id of this status effect, null if it hasn't been applied to a hero. 
+	 */
+	public Long getId()
+	{
+		return this.id;
 	}
 	
 	/**
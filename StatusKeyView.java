@@ -0,0 +1,115 @@
+package Heros;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import Statuses.Status;
+
+/**
+ * Read-only view of a hero's statuses keyed by each status' String key, name + "_" + id, for the view and controller
+ * code that looks statuses up by key. The hero keeps its statuses by id, this only reads through to that map, so a
+ * lookup parses the id back out of the key and no String is built unless a key is asked for.
+ * @author Kevin
+ *
+ */
+final class StatusKeyView extends AbstractMap<String, Status> {
+	private final Map<Long, Status> statuses;
+	private final Collection<Status> values;
+	private final Set<Map.Entry<String, Status>> entries = new AbstractSet<Map.Entry<String, Status>>() {
+		@Override
+		public Iterator<Map.Entry<String, Status>> iterator()
+		{
+			Iterator<Status> iterator = statuses.values().iterator();
+			return new Iterator<Map.Entry<String, Status>>() {
+				@Override
+				public boolean hasNext()
+				{
+					return iterator.hasNext();
+				}
+
+				@Override
+				public Map.Entry<String, Status> next()
+				{
+					Status status = iterator.next();
+					return new AbstractMap.SimpleImmutableEntry<String, Status>(status.getKey(), status);
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return statuses.size();
+		}
+	};
+
+	/**
+	 * Create a view of a hero's statuses.
+	 * @param statuses: the hero's statuses keyed by id
+	 */
+	StatusKeyView(Map<Long, Status> statuses)
+	{
+		this.statuses = statuses;
+		this.values = Collections.unmodifiableCollection(statuses.values());
+	}
+
+	@Override
+	public Status get(Object key)
+	{
+		if(!(key instanceof String))
+		{
+			return null;
+		}
+		String name = (String) key;
+		int separator = name.lastIndexOf('_');
+		if(separator < 0)
+		{
+			return null;
+		}
+		Status status;
+		try
+		{
+			status = statuses.get(Long.valueOf(name.substring(separator + 1)));
+		}
+		catch(NumberFormatException e)
+		{
+			return null;
+		}
+		return status != null && status.getKey().equals(name) ? status : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return get(key) != null;
+	}
+
+	@Override
+	public int size()
+	{
+		return statuses.size();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return statuses.isEmpty();
+	}
+
+	@Override
+	public Collection<Status> values()
+	{
+		return values;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Status>> entrySet()
+	{
+		return entries;
+	}
+}
@@ -0,0 +1,171 @@
+package BattleSimulation;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of searched battle states, keyed by a 64-bit state hash and holding the value found for the state
+ * and the depth it was searched to. The table never grows: it is an array of two-entry buckets, and a new entry replaces
+ * an entry of the same state, an empty entry, an entry left from an earlier search, or the shallower of the two, in that order.
+ * The full key is stored so a bucket collision is never mistaken for a hit.
+ * @author Andrew
+ *
+ */
+public class TranspositionTable {
+	private static final int WAYS = 2;
+	private final long[] keys;
+	private final double[] values;
+	// Depth searched below the entry, 0 marks an empty entry
+	private final int[] depths;
+	// Search the entry was stored in, see newSearch
+	private final int[] generations;
+	private final int bucketMask;
+	private int generation = 1;
+	private long probes;
+	private long hits;
+	private long stores;
+	private long evictions;
+
+	/**
+	 * Create a table.
+	 * @param capacity: most entries held, rounded up to a power of two
+	 */
+	public TranspositionTable(int capacity)
+	{
+		int buckets = Integer.highestOneBit(Math.max(WAYS, capacity) - 1) << 1;
+		buckets = Math.max(1, buckets / WAYS);
+		this.bucketMask = buckets - 1;
+		this.keys = new long[buckets * WAYS];
+		this.values = new double[buckets * WAYS];
+		this.depths = new int[buckets * WAYS];
+		this.generations = new int[buckets * WAYS];
+	}
+
+	/**
+	 * Look up a state searched at least as deep as needed.
+	 * @param key: state hash
+	 * @param depth: depth the caller would search the state to
+	 * @return the stored value, NaN if the state isn't stored at that depth or deeper
+	 */
+	public double probe(long key, int depth)
+	{
+		probes ++;
+		int index = bucket(key);
+		for(int i = index; i < index + WAYS; i++)
+		{
+			if(depths[i] != 0 && keys[i] == key)
+			{
+				if(depths[i] >= depth)
+				{
+					hits ++;
+					// Keep entries that are still being used from being replaced as stale
+					generations[i] = generation;
+					return values[i];
+				}
+				return Double.NaN;
+			}
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Store the value of a searched state.
+	 * @param key: state hash
+	 * @param depth: depth the state was searched to, at least 1
+	 * @param value: value found
+	 */
+	public void store(long key, int depth, double value)
+	{
+		stores ++;
+		int index = bucket(key);
+		int replace = -1;
+		for(int i = index; i < index + WAYS; i++)
+		{
+			if(depths[i] == 0 || keys[i] == key)
+			{
+				replace = i;
+				break;
+			}
+		}
+		if(replace < 0)
+		{
+			evictions ++;
+			replace = index;
+			for(int i = index + 1; i < index + WAYS; i++)
+			{
+				if(worseThan(i, replace))
+				{
+					replace = i;
+				}
+			}
+		}
+		else if(depths[replace] > depth && keys[replace] == key)
+		{
+			// A deeper result for the same state is worth more
+			return;
+		}
+		keys[replace] = key;
+		values[replace] = value;
+		depths[replace] = Math.max(1, depth);
+		generations[replace] = generation;
+	}
+
+	/**
+	 * Is entry a a better one to replace than entry b: stale before current, then shallower first.
+	 */
+	private boolean worseThan(int a, int b)
+	{
+		boolean staleA = generations[a] != generation;
+		boolean staleB = generations[b] != generation;
+		if(staleA != staleB)
+		{
+			return staleA;
+		}
+		return depths[a] < depths[b];
+	}
+
+	private int bucket(long key)
+	{
+		return (int) ((key ^ (key >>> 32)) & bucketMask) * WAYS;
+	}
+
+	/**
+	 * Start a new search, entries stored before are kept but replaced first.
+	 */
+	public void newSearch()
+	{
+		generation ++;
+	}
+
+	/**
+	 * Remove every entry.
+	 */
+	public void clear()
+	{
+		Arrays.fill(depths, 0);
+	}
+
+	public int getCapacity()
+	{
+		return keys.length;
+	}
+
+	public long getProbes()
+	{
+		return probes;
+	}
+
+	public long getHits()
+	{
+		return hits;
+	}
+
+	public long getStores()
+	{
+		return stores;
+	}
+
+	public long getEvictions()
+	{
+		return evictions;
+	}
+}
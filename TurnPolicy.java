@@ -0,0 +1,25 @@
+package BattleSimulation;
+
+import java.util.Collection;
+import java.util.random.RandomGenerator;
+
+import Heros.Hero;
+import PartyContainers.AiBattleReturnType;
+
+/**
+ * Decides the command for a hero that is not controlled by the AI when a battle is run without a view.
+ * In the GUI this decision is made by the human player clicking the ability buttons.
+ * @author Kevin
+ *
+ */
+public interface TurnPolicy {
+
+	/**
+	 * Select the command and target for the acting hero.
+	 * @param hero: current acting hero, its statuses have already been updated this turn
+	 * @param opponents: the opposing party's living heroes, as PartyRankings when the BattleEngine asks
+	 * @param random: the battle's random source, every random choice must be drawn from it so the battle can be replayed
+	 * @return AiBattleReturnType holding the target (if applicable) and command to use, or a null command to pass the turn
+	 */
+	public AiBattleReturnType selectCommand(Hero hero, Collection<Hero> opponents, RandomGenerator random);
+}
@@ -0,0 +1,108 @@
+package BattleSimulation;
+
+import java.util.List;
+
+import BattleCommands.UndoRecord;
+import Heros.Hero;
+
+/**
+ * A point in a battle that BattleEngine.unmake takes the battle back to, set with BattleEngine.mark.
+ *
+ * Unlike a BattleSnapshot the heroes aren't saved: the engine keeps one UndoRecord watching every hero, and the record
+ * only holds where that log stood when it was marked, with the engine's own counters, the random source and the turn order.
+ * Undoing the log from there puts back every stat, status and item the turns since have changed. A depth-first search
+ * marks once per depth with one record per depth, so it copies nothing and its memory stays flat however deep it goes.
+ * @author Kevin
+ *
+ */
+public class TurnRecord {
+	private boolean open = false;
+	private int logMark;
+	private long[] rounds = new long[0];
+	private long currentRound;
+	private long randomState;
+	private long randomDraws;
+	private long turnStartDraws;
+	private int turnCount;
+	private BattleOutcome outcome;
+	private long inventoryHash;
+
+	/**
+	 * Save where the battle is and log its inventories so used up items can be put back.
+	 */
+	void mark(BattleEngine engine, UndoRecord log)
+	{
+		if(open)
+		{
+			throw new IllegalStateException("Turn record is already marked");
+		}
+		List<Hero> heroes = engine.getHeroes();
+		TurnScheduler scheduler = engine.getScheduler();
+		if(rounds.length < heroes.size())
+		{
+			rounds = new long[heroes.size()];
+		}
+		for(int i = 0; i < heroes.size(); i++)
+		{
+			rounds[i] = scheduler.getRound(heroes.get(i));
+		}
+		currentRound = scheduler.getCurrentRound();
+		randomState = engine.getRandom().getState();
+		randomDraws = engine.getRandom().getDraws();
+		turnStartDraws = engine.getTurnStartDraws();
+		turnCount = engine.getTurnCount();
+		outcome = engine.getOutcome();
+		inventoryHash = engine.getZobristHash().getInventoryHash();
+
+		logMark = log.mark();
+		if(!engine.getHuman().getInventory().isEmpty())
+		{
+			log.recordInventory(engine.getHuman().getInventory());
+		}
+		if(!engine.getAI().getInventory().isEmpty())
+		{
+			log.recordInventory(engine.getAI().getInventory());
+		}
+		open = true;
+	}
+
+	/**
+	 * Take the battle back to where it was marked.
+	 */
+	void unmake(BattleEngine engine, UndoRecord log)
+	{
+		if(!open)
+		{
+			throw new IllegalStateException("Turn record was not marked");
+		}
+		open = false;
+		log.undo(logMark);
+
+		// Rounds last, undoing a death puts the hero back in whatever round the scheduler is on
+		List<Hero> heroes = engine.getHeroes();
+		TurnScheduler scheduler = engine.getScheduler();
+		for(int i = 0; i < heroes.size(); i++)
+		{
+			scheduler.setRound(heroes.get(i), rounds[i]);
+		}
+		scheduler.setCurrentRound(currentRound);
+		engine.getRandom().restore(randomState, randomDraws);
+		engine.restoreProgress(turnCount, outcome, turnStartDraws);
+		ZobristHash zobrist = engine.getZobristHash();
+		zobrist.restore(zobrist.getHeroHash(), inventoryHash);
+	}
+
+	/**
+	 * Is the record marked and not yet unmade?
+	 * @return true if BattleEngine.unmake can take the battle back to this record
+	 */
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	public int getTurnCount()
+	{
+		return turnCount;
+	}
+}
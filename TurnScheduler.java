@@ -0,0 +1,392 @@
+package BattleSimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import Heros.Hero;
+import Heros.HeroListener;
+import Heros.Stat;
+
+/**
+ * Turn order of a battle kept in an indexed binary heap. Every living hero acts once per round; within a round
+ * faster heroes act first, and heroes of equal speed keep the order they were given at the start of the battle.
+ * The scheduler listens to its heroes so a speed change re-orders the hero, and a death removes it (a revive puts it back),
+ * each in O(log n) instead of leaving dead heroes in the queue to be polled.
+ * @author Kevin
+ *
+ */
+public class TurnScheduler implements HeroListener {
+	private final IdentityHashMap<Hero, Entry> entries = new IdentityHashMap<Hero, Entry>();
+	private Entry[] heap;
+	private int size = 0;
+	// Round of the hero whose turn it currently is
+	private long currentRound = 0;
+	// Sum of ZobristHash.roundKey over every hero, dead or alive, kept up to date as rounds change
+	private long roundHash = 0;
+
+	/**
+	 * Create the scheduler for a battle. The heroes are seated fastest first, ties broken the way Hero.compareTo orders them.
+	 * @param heroes: every hero in the battle
+	 */
+	public TurnScheduler(Collection<Hero> heroes)
+	{
+		ArrayList<Hero> sortMe = new ArrayList<Hero>(heroes);
+		// Sorts in ascending order i.e lower speed first, so reverse the order
+		Collections.sort(sortMe);
+		Collections.reverse(sortMe);
+
+		this.heap = new Entry[Math.max(1, sortMe.size())];
+		for(int seat = 0; seat < sortMe.size(); seat++)
+		{
+			Hero hero = sortMe.get(seat);
+			Entry entry = new Entry(hero, seat);
+			entries.put(hero, entry);
+			roundHash += ZobristHash.roundKey(seat, entry.round);
+			hero.addListener(this);
+			if(hero.getHealth() > 0)
+			{
+				insert(entry);
+			}
+		}
+	}
+
+	/**
+	 * Create an empty scheduler, filled by copy.
+	 */
+	private TurnScheduler(int capacity)
+	{
+		this.heap = new Entry[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Copy this turn order onto copies of its heroes, used to fork a battle.
+	 * @param heroes: the heroes of this scheduler
+	 * @param copies: copies.get(i) is the copy of heroes.get(i)
+	 * @return a scheduler listening to the copies
+	 */
+	TurnScheduler copy(List<Hero> heroes, List<Hero> copies)
+	{
+		TurnScheduler copy = new TurnScheduler(heap.length);
+		copy.currentRound = currentRound;
+		copy.roundHash = roundHash;
+		for(int i = 0; i < heroes.size(); i++)
+		{
+			Entry entry = entries.get(heroes.get(i));
+			Hero hero = copies.get(i);
+			Entry copied = new Entry(hero, entry.seat);
+			copied.speed = entry.speed;
+			copied.round = entry.round;
+			copy.entries.put(hero, copied);
+			hero.addListener(copy);
+			if(entry.heapIndex >= 0)
+			{
+				copy.insert(copied);
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Get the hero whose turn it is without removing it, it stays first until advance is called.
+	 * @return the next hero to act, null if no hero is alive
+	 */
+	public Hero peek()
+	{
+		if(size == 0)
+		{
+			return null;
+		}
+		currentRound = heap[0].round;
+		return heap[0].hero;
+	}
+
+	/**
+	 * Move a hero that has finished its turn to the next round.
+	 * @param hero: the hero whose turn has just finished
+	 */
+	public void advance(Hero hero)
+	{
+		Entry entry = entries.get(hero);
+		moveRound(entry, entry.round + 1);
+		if(entry.heapIndex >= 0)
+		{
+			siftDown(entry.heapIndex);
+		}
+	}
+
+	/**
+	 * List the heroes that will act in the next turns if nothing changes, starting with the hero whose turn it is.
+	 * Every hero in the heap is either in the current round or the next one, so the order is the rest of the current
+	 * round followed by the full round order repeating.
+	 * @param turns: number of turns to look ahead
+	 * @return the heroes in the order they will act, empty if no hero is alive
+	 */
+	public List<Hero> upcoming(int turns)
+	{
+		ArrayList<Hero> order = new ArrayList<Hero>(turns);
+		if(size == 0)
+		{
+			return order;
+		}
+		Entry[] roundOrder = Arrays.copyOf(heap, size);
+		Arrays.sort(roundOrder, Comparator.comparingLong((Entry entry) -> entry.round)
+				.thenComparing(Comparator.comparingInt((Entry entry) -> entry.speed).reversed())
+				.thenComparingInt((Entry entry) -> entry.seat));
+		long firstRound = roundOrder[0].round;
+		for(int i = 0; i < roundOrder.length && roundOrder[i].round == firstRound && order.size() < turns; i++)
+		{
+			order.add(roundOrder[i].hero);
+		}
+		// Later rounds ignore which round each hero was in
+		Arrays.sort(roundOrder, Comparator.comparingInt((Entry entry) -> entry.speed).reversed()
+				.thenComparingInt((Entry entry) -> entry.seat));
+		while(order.size() < turns)
+		{
+			for(int i = 0; i < roundOrder.length && order.size() < turns; i++)
+			{
+				order.add(roundOrder[i].hero);
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Re-order a hero when its speed changes, remove it when it dies and put it back when it is revived.
+	 */
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		Entry entry = entries.get(hero);
+		if(entry == null)
+		{
+			return;
+		}
+		if(stat == Stat.SPEED)
+		{
+			entry.speed = newValue;
+			if(entry.heapIndex >= 0)
+			{
+				siftUp(entry.heapIndex);
+				siftDown(entry.heapIndex);
+			}
+		}
+		else if(stat == Stat.HEALTH)
+		{
+			if(oldValue > 0 && newValue <= 0 && entry.heapIndex >= 0)
+			{
+				remove(entry);
+			}
+			else if(oldValue <= 0 && newValue > 0 && entry.heapIndex < 0)
+			{
+				// A revived hero can't act in a round that has already passed
+				moveRound(entry, Math.max(entry.round, currentRound));
+				insert(entry);
+			}
+		}
+	}
+
+	/**
+	 * Stop listening to the battle's heroes, called once the battle is over.
+	 */
+	public void detach()
+	{
+		for(Hero hero : entries.keySet())
+		{
+			hero.removeListener(this);
+		}
+	}
+
+	/**
+	 * Get the round a hero will next act in.
+	 * @param hero: hero in this battle
+	 * @return the hero's round
+	 */
+	public long getRound(Hero hero)
+	{
+		return entries.get(hero).round;
+	}
+
+	/**
+	 * Move a hero to a round, used to restore a saved turn order.
+	 * @param hero: hero in this battle
+	 * @param round: round the hero will next act in
+	 */
+	public void setRound(Hero hero, long round)
+	{
+		Entry entry = entries.get(hero);
+		moveRound(entry, round);
+		if(entry.heapIndex >= 0)
+		{
+			siftUp(entry.heapIndex);
+			siftDown(entry.heapIndex);
+		}
+	}
+
+	/**
+	 * Get the round of the hero whose turn it last was, where a revived hero rejoins the turn order.
+	 */
+	long getCurrentRound()
+	{
+		return currentRound;
+	}
+
+	void setCurrentRound(long currentRound)
+	{
+		this.currentRound = currentRound;
+	}
+
+	/**
+	 * Get the part of the battle's Zobrist hash covering the turn order, see ZobristHash.
+	 * @return sum of the round keys of every hero
+	 */
+	public long getRoundHash()
+	{
+		return roundHash;
+	}
+
+	/**
+	 * Work the round hash out from scratch, used to check the kept one.
+	 * @return sum of the round keys of every hero
+	 */
+	long computeRoundHash()
+	{
+		long hash = 0;
+		for(Entry entry : entries.values())
+		{
+			hash += ZobristHash.roundKey(entry.seat, entry.round);
+		}
+		return hash;
+	}
+
+	/**
+	 * Move an entry to a round, keeping the round hash up to date.
+	 */
+	private void moveRound(Entry entry, long round)
+	{
+		roundHash += ZobristHash.roundKey(entry.seat, round) - ZobristHash.roundKey(entry.seat, entry.round);
+		entry.round = round;
+	}
+
+	/**
+	 * Get the number of heroes waiting for a turn, the living heroes of both parties.
+	 * @return number of heroes in the heap
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	//=========================================================================================================
+	//=============================================== HEAP ====================================================
+
+	private void insert(Entry entry)
+	{
+		if(size == heap.length)
+		{
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		heap[size] = entry;
+		entry.heapIndex = size;
+		size ++;
+		siftUp(entry.heapIndex);
+	}
+
+	private void remove(Entry entry)
+	{
+		int index = entry.heapIndex;
+		size --;
+		Entry last = heap[size];
+		heap[size] = null;
+		entry.heapIndex = -1;
+		if(index < size)
+		{
+			heap[index] = last;
+			last.heapIndex = index;
+			siftUp(index);
+			siftDown(last.heapIndex);
+		}
+	}
+
+	private void siftUp(int index)
+	{
+		Entry entry = heap[index];
+		while(index > 0)
+		{
+			int parent = (index - 1) >>> 1;
+			if(!entry.actsBefore(heap[parent]))
+			{
+				break;
+			}
+			place(heap[parent], index);
+			index = parent;
+		}
+		place(entry, index);
+	}
+
+	private void siftDown(int index)
+	{
+		Entry entry = heap[index];
+		while(true)
+		{
+			int child = 2 * index + 1;
+			if(child >= size)
+			{
+				break;
+			}
+			if(child + 1 < size && heap[child + 1].actsBefore(heap[child]))
+			{
+				child ++;
+			}
+			if(!heap[child].actsBefore(entry))
+			{
+				break;
+			}
+			place(heap[child], index);
+			index = child;
+		}
+		place(entry, index);
+	}
+
+	private void place(Entry entry, int index)
+	{
+		heap[index] = entry;
+		entry.heapIndex = index;
+	}
+
+	/**
+	 * A hero's place in the turn order.
+	 */
+	private static final class Entry {
+		private final Hero hero;
+		// Position in the initial turn order, breaks ties between heroes of equal speed
+		private final int seat;
+		private int speed;
+		private long round = 0;
+		private int heapIndex = -1;
+
+		Entry(Hero hero, int seat)
+		{
+			this.hero = hero;
+			this.seat = seat;
+			this.speed = hero.getSpeed();
+		}
+
+		boolean actsBefore(Entry other)
+		{
+			if(round != other.round)
+			{
+				return round < other.round;
+			}
+			if(speed != other.speed)
+			{
+				return speed > other.speed;
+			}
+			return seat < other.seat;
+		}
+	}
+}
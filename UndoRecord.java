@@ -0,0 +1,297 @@
+package BattleCommands;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import Heros.Hero;
+import Heros.HeroListener;
+import Heros.Stat;
+import Statuses.Status;
+
+/**
+ * Undo log of the changes made to heroes while it watches them, so a command can be used and taken back exactly
+ * without copying the heroes. It listens to the watched heroes and logs the value each stat had before it changed,
+ * each status added or removed and each status duration before it changed. Inventories are logged as their entries
+ * when recordInventory is called, so items consumed can be put back.
+ *
+ * The log is kept in flat arrays that only grow, so a record reused move after move stops allocating. Undoing runs the log
+ * backwards through the heroes' setters, so other listeners such as the turn order and the Zobrist hash follow it.
+ * A mark of the log can be undone to on its own, letting one record serve as the undo stack of a depth-first search.
+ * @author Kevin
+ *
+ */
+public class UndoRecord implements HeroListener {
+	private static final byte STAT = 0;
+	private static final byte STATUS_ADDED = 1;
+	private static final byte STATUS_REMOVED = 2;
+	private static final byte DURATION = 3;
+	private static final byte INVENTORY = 4;
+	private static final Stat[] STATS = Stat.values();
+
+	private byte[] kinds = new byte[16];
+	private Hero[] heroes = new Hero[16];
+	// The status of a status entry, the inventory of an inventory entry
+	private Object[] refs = new Object[16];
+	// The old value of a stat or duration, the first logged item of an inventory
+	private int[] values = new int[16];
+	// The stat ordinal of a stat entry, the number of logged items of an inventory
+	private int[] details = new int[16];
+	private int size = 0;
+	private String[] itemKeys = new String[0];
+	private Item[] items = new Item[0];
+	private int itemCount = 0;
+	private Hero[] watched = new Hero[0];
+	private int watchedCount = 0;
+	private boolean recording = true;
+	private boolean undoing = false;
+
+	/**
+	 * Start logging the changes made to a hero. Watching a hero twice does nothing.
+	 * @param hero: hero to watch
+	 */
+	public void watch(Hero hero)
+	{
+		for(int i = 0; i < watchedCount; i++)
+		{
+			if(watched[i] == hero)
+			{
+				return;
+			}
+		}
+		if(watchedCount == watched.length)
+		{
+			watched = Arrays.copyOf(watched, Math.max(4, watchedCount * 2));
+		}
+		watched[watchedCount++] = hero;
+		hero.addListener(this);
+	}
+
+	/**
+	 * Stop watching every hero. The log is kept and can still be undone.
+	 */
+	public void unwatch()
+	{
+		for(int i = 0; i < watchedCount; i++)
+		{
+			watched[i].removeListener(this);
+			watched[i] = null;
+		}
+		watchedCount = 0;
+	}
+
+	/**
+	 * Log the entries of an inventory so undoing puts them back, call before a command that may use up an item.
+	 * @param inventory: inventory that may change
+	 */
+	public void recordInventory(TreeMap<String, Item> inventory)
+	{
+		if(!recording)
+		{
+			return;
+		}
+		if(itemCount + inventory.size() > itemKeys.length)
+		{
+			int capacity = Math.max(itemKeys.length * 2, itemCount + inventory.size());
+			itemKeys = Arrays.copyOf(itemKeys, capacity);
+			items = Arrays.copyOf(items, capacity);
+		}
+		int first = itemCount;
+		for(Map.Entry<String, Item> entry : inventory.entrySet())
+		{
+			itemKeys[itemCount] = entry.getKey();
+			items[itemCount] = entry.getValue();
+			itemCount ++;
+		}
+		append(INVENTORY, null, inventory, first, itemCount - first);
+	}
+
+	/**
+	 * Get a mark of the log, undo(mark) takes back every change logged after it.
+	 * @return the number of changes logged so far
+	 */
+	public int mark()
+	{
+		return size;
+	}
+
+	/**
+	 * Take back every change logged after a mark, newest first, and drop them from the log.
+	 * @param mark: mark from mark()
+	 * @return true if an inventory was changed back
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean undo(int mark)
+	{
+		if(mark < 0 || mark > size)
+		{
+			throw new IllegalArgumentException("Mark " + mark + " is not in a log of " + size + " changes");
+		}
+		boolean inventoryChanged = false;
+		undoing = true;
+		try
+		{
+			while(size > mark)
+			{
+				size --;
+				Hero hero = heroes[size];
+				switch(kinds[size])
+				{
+					case STAT:
+						hero.setStat(STATS[details[size]], values[size]);
+						break;
+					case STATUS_ADDED:
+						Status added = (Status) refs[size];
+						added.removeStatus(hero);
+						// Ids are issued in order, so the oldest undone status had the id the hero was on
+						hero.setNextStatusId(added.getId());
+						break;
+					case STATUS_REMOVED:
+						((Status) refs[size]).restoreStatus(hero);
+						break;
+					case DURATION:
+						((Status) refs[size]).setDuration(values[size]);
+						break;
+					case INVENTORY:
+						inventoryChanged |= restoreInventory((TreeMap<String, Item>) refs[size], values[size], details[size]);
+						itemCount = values[size];
+						Arrays.fill(itemKeys, itemCount, itemCount + details[size], null);
+						Arrays.fill(items, itemCount, itemCount + details[size], null);
+						break;
+					default:
+						throw new IllegalStateException("Unknown undo entry " + kinds[size]);
+				}
+				heroes[size] = null;
+				refs[size] = null;
+			}
+		}
+		finally
+		{
+			undoing = false;
+		}
+		return inventoryChanged;
+	}
+
+	/**
+	 * Take back every logged change.
+	 * @return true if an inventory was changed back
+	 */
+	public boolean unmake()
+	{
+		return undo(0);
+	}
+
+	/**
+	 * Forget every logged change without taking them back.
+	 */
+	public void clear()
+	{
+		Arrays.fill(heroes, 0, size, null);
+		Arrays.fill(refs, 0, size, null);
+		Arrays.fill(itemKeys, 0, itemCount, null);
+		Arrays.fill(items, 0, itemCount, null);
+		size = 0;
+		itemCount = 0;
+	}
+
+	/**
+	 * Get the number of changes logged.
+	 * @return logged changes
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Turn logging on or off, a watched hero's changes made while it is off are not logged and can't be undone.
+	 * @param recording: true to log changes
+	 */
+	public void setRecording(boolean recording)
+	{
+		this.recording = recording;
+	}
+
+	public boolean isRecording()
+	{
+		return recording;
+	}
+
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		append(STAT, hero, null, oldValue, stat.ordinal());
+	}
+
+	@Override
+	public void statusAdded(Hero hero, Status status)
+	{
+		append(STATUS_ADDED, hero, status, 0, 0);
+	}
+
+	@Override
+	public void statusRemoved(Hero hero, Status status)
+	{
+		append(STATUS_REMOVED, hero, status, 0, 0);
+	}
+
+	@Override
+	public void statusDurationChanged(Hero hero, Status status, int oldDuration, int newDuration)
+	{
+		append(DURATION, hero, status, oldDuration, 0);
+	}
+
+	private void append(byte kind, Hero hero, Object ref, int value, int detail)
+	{
+		if(!recording || undoing)
+		{
+			return;
+		}
+		if(size == kinds.length)
+		{
+			int capacity = size * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			heroes = Arrays.copyOf(heroes, capacity);
+			refs = Arrays.copyOf(refs, capacity);
+			values = Arrays.copyOf(values, capacity);
+			details = Arrays.copyOf(details, capacity);
+		}
+		kinds[size] = kind;
+		heroes[size] = hero;
+		refs[size] = ref;
+		values[size] = value;
+		details[size] = detail;
+		size ++;
+	}
+
+	/**
+	 * Put an inventory back to its logged entries if it changed.
+	 */
+	private boolean restoreInventory(TreeMap<String, Item> inventory, int first, int count)
+	{
+		if(inventory.size() == count)
+		{
+			boolean unchanged = true;
+			int i = first;
+			for(Map.Entry<String, Item> entry : inventory.entrySet())
+			{
+				if(!entry.getKey().equals(itemKeys[i]) || entry.getValue() != items[i])
+				{
+					unchanged = false;
+					break;
+				}
+				i ++;
+			}
+			if(unchanged)
+			{
+				return false;
+			}
+		}
+		inventory.clear();
+		for(int i = first; i < first + count; i++)
+		{
+			inventory.put(itemKeys[i], items[i]);
+		}
+		return true;
+	}
+}
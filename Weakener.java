@@ -1,13 +1,8 @@
 package Heros;
 
-import java.util.Collection;
-
-import BattleCommands.Ability;
-import PartyContainers.AiBattleReturnType;
-
 /**
  * Weakener Monster type. 
- *  Defines the method selectCommand for this specific Monster type.
+ *  Defines the selectCommand ladder for this specific Monster type.
  *  Will use abilities as such:
  *  10% chance to use an DefensiveAbility
  *  15% chance to use a OffensiveAbility that is not a StatusEffectAbility
@@ -21,6 +16,11 @@ import PartyContainers.AiBattleReturnType;
  * @author Andrew
  */
 public abstract class Weakener extends Monster {
+	private static final SelectionLadder LADDER = new SelectionLadder(Stat.HEALTH, false,
+			new SelectionLadder.Rung(0.90, AbilityCategory.DEFENSIVE),
+			new SelectionLadder.Rung(0.75, AbilityCategory.OFFENSIVE, null, Stat.HEALTH, false, false), //Highest Health
+			new SelectionLadder.Rung(0.55, AbilityCategory.CROWD_CONTROL, null, Stat.HEALTH, false, false), //Highest Health
+			new SelectionLadder.Rung(0.15, AbilityCategory.OFFENSIVE_STATUS, null, Stat.DEFENSE_RATING, false, false)); //Highest defenseRating
 
 	/**
 	 * Constructor to create an instance of the Weakener class.
@@ -45,50 +45,11 @@ public abstract class Weakener extends Monster {
 	}
 
 	/**
-	 * Abstract method used by Monsters to determine actions during battle.  
-	 * This method will be used as part of the AI functionality to return an ability to use and a target (if applicable).
-	 * @param Collection<Hero> A list of the Hero instances in the player's party
-	 * @return AiBattleReturnType holding both a target (if applicable) and an ability to use. 
+	 * Get the ladder selectCommand walks, see the class description.
+	 * @return SelectionLadder The Weakener ladder.
 	 */
-	public AiBattleReturnType selectCommand(Collection<Hero> playerParty) {
-			
-			Hero target = null;
-			Ability ability = null;
-			
-			
-			Collection<Ability> availableAbilities = getAvailableAbilities();
-			Collection<Hero> availableTargets = getAvailableTargets(playerParty);
-			
-			if (availableAbilities.size() < 2) {
-				ability = this.getBaseAttack();
-				target = selectByStat(availableTargets,"health",false); //highest Health
-				return new AiBattleReturnType(target, ability);
-			}
-			else {
-				double random = Math.random();
-				//System.out.println(random);
-				if(random > 0.90) {
-					ability = getDefensiveAbility(availableAbilities);
-				}
-				else if(random > 0.75) {
-					ability = getOffensiveAbility(availableAbilities);
-					target = selectByStat(availableTargets,"health",false); //Highest Health
-				}
-				else if(random > 0.55) {
-					ability = getCrowdControlAbility(availableAbilities);
-					target = selectByStat(availableTargets,"health",false); //highest Health
-				}
-				else if(random > 0.15) {
-					ability = getOffensiveStatusAbility(availableAbilities);
-					target = selectByStat(availableTargets,"defenseRating",false); //highest defenseRating
-				}
-			}
-			if (ability == null) { 
-				ability = this.getBaseAttack();
-				target = selectByStat(availableTargets,"health",false); //Lowest Health 
-			}
-			return new AiBattleReturnType(target, ability);
-		}
-	
-
-}
\ No newline at end of file
+	@Override
+	public SelectionLadder getLadder() {
+		return LADDER;
+	}
+}
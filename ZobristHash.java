@@ -0,0 +1,246 @@
+package BattleSimulation;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import BattleCommands.Item;
+import Heros.Hero;
+import Heros.HeroListener;
+import Heros.Stat;
+import PartyContainers.Player;
+import Statuses.Status;
+
+/**
+ * Zobrist hash of a battle's state, kept up to date as the battle changes instead of being worked out on every lookup.
+ *
+ * Every feature of the state has its own pseudo-random 64-bit key: a hero slot's stat at a value, a status on a hero slot
+ * with its strength and remaining duration, a hero's round in the turn order and an item in a player's inventory. The hash
+ * is the sum of the keys of the features the battle has, so a change only swaps the key of the old feature for the new one.
+ * The keys are drawn by mixing their coordinates with SplitMix64 rather than stored in tables, as stats and durations
+ * have no fixed range. Sums are used instead of the usual exclusive or so two identical stacked statuses don't cancel out.
+ *
+ * The hash listens to the heroes for stat and status changes and the TurnScheduler keeps the turn order part. Items can only
+ * leave an inventory by being used, so the inventories are hashed again when the engine ends a turn on an item.
+ * Keys depend only on slots and values, so a fork of a battle hashes the same as the battle it was taken from.
+ * @author Andrew
+ *
+ */
+public class ZobristHash implements HeroListener {
+	private static final long STAT_FEATURE = 0x5354415400000000L;
+	private static final long STATUS_FEATURE = 0x5354550000000000L;
+	private static final long ROUND_FEATURE = 0x524E440000000000L;
+	private static final long ITEM_FEATURE = 0x4954454D00000000L;
+	private final List<Hero> heroes;
+	private final IdentityHashMap<Hero, Integer> slots = new IdentityHashMap<Hero, Integer>();
+	private final TurnScheduler scheduler;
+	private final Player human;
+	private final Player ai;
+	// Sum of the stat and status keys of every hero
+	private long heroHash;
+	// Sum of the item keys of both inventories
+	private long inventoryHash;
+
+	/**
+	 * Hash a battle and start listening to its heroes.
+	 * @param heroes: every hero in the battle, a hero's index is its slot
+	 * @param scheduler: turn order of the battle
+	 * @param human: the human player
+	 * @param ai: the AI player
+	 */
+	ZobristHash(List<Hero> heroes, TurnScheduler scheduler, Player human, Player ai)
+	{
+		this.heroes = heroes;
+		this.scheduler = scheduler;
+		this.human = human;
+		this.ai = ai;
+		for(int slot = 0; slot < heroes.size(); slot++)
+		{
+			Hero hero = heroes.get(slot);
+			slots.put(hero, slot);
+			hero.addListener(this);
+		}
+		this.heroHash = computeHeroHash();
+		this.inventoryHash = computeInventoryHash();
+	}
+
+	/**
+	 * Get the hash of the battle as it is now.
+	 * @return 64-bit hash of the heroes' stats and statuses, the turn order and both inventories
+	 */
+	public long getHash()
+	{
+		return heroHash + inventoryHash + scheduler.getRoundHash();
+	}
+
+	/**
+	 * Work the hash out from scratch without changing the kept one, used to check the incremental hash.
+	 * @return the hash the battle should have
+	 */
+	public long recompute()
+	{
+		return computeHeroHash() + computeInventoryHash() + scheduler.computeRoundHash();
+	}
+
+	@Override
+	public void statChanged(Hero hero, Stat stat, int oldValue, int newValue)
+	{
+		Integer slot = slots.get(hero);
+		if(slot != null)
+		{
+			heroHash += statKey(slot, stat, newValue) - statKey(slot, stat, oldValue);
+		}
+	}
+
+	@Override
+	public void statusAdded(Hero hero, Status status)
+	{
+		Integer slot = slots.get(hero);
+		if(slot != null)
+		{
+			heroHash += statusKey(slot, status, status.getDuration());
+		}
+	}
+
+	@Override
+	public void statusRemoved(Hero hero, Status status)
+	{
+		Integer slot = slots.get(hero);
+		if(slot != null)
+		{
+			heroHash -= statusKey(slot, status, status.getDuration());
+		}
+	}
+
+	@Override
+	public void statusDurationChanged(Hero hero, Status status, int oldDuration, int newDuration)
+	{
+		Integer slot = slots.get(hero);
+		// A status ticked after it was removed is no longer part of the hash
+		if(slot != null && hero.getStatusesById().get(status.getId()) == status)
+		{
+			heroHash += statusKey(slot, status, newDuration) - statusKey(slot, status, oldDuration);
+		}
+	}
+
+	/**
+	 * Hash the inventories again, called once an item has been used.
+	 */
+	void refreshInventories()
+	{
+		inventoryHash = computeInventoryHash();
+	}
+
+	/**
+	 * Set the kept hash to saved values, used by BattleSnapshot as restoring a snapshot puts statuses and items back
+	 * without the heroes telling their listeners.
+	 */
+	void restore(long heroHash, long inventoryHash)
+	{
+		this.heroHash = heroHash;
+		this.inventoryHash = inventoryHash;
+	}
+
+	long getHeroHash()
+	{
+		return heroHash;
+	}
+
+	long getInventoryHash()
+	{
+		return inventoryHash;
+	}
+
+	/**
+	 * Stop listening to the battle's heroes, called once the battle is over.
+	 */
+	public void detach()
+	{
+		for(Hero hero : slots.keySet())
+		{
+			hero.removeListener(this);
+		}
+	}
+
+	private long computeHeroHash()
+	{
+		long hash = 0;
+		for(int slot = 0; slot < heroes.size(); slot++)
+		{
+			Hero hero = heroes.get(slot);
+			for(Stat stat : Stat.values())
+			{
+				hash += statKey(slot, stat, hero.getStat(stat));
+			}
+			for(Status status : hero.getStatusesById().values())
+			{
+				hash += statusKey(slot, status, status.getDuration());
+			}
+		}
+		return hash;
+	}
+
+	private long computeInventoryHash()
+	{
+		return inventoryHash(human, 0) + inventoryHash(ai, 1);
+	}
+
+	private static long inventoryHash(Player player, int side)
+	{
+		long hash = 0;
+		for(Map.Entry<String, Item> entry : player.getInventory().entrySet())
+		{
+			hash += itemKey(side, entry.getKey());
+		}
+		return hash;
+	}
+
+	//=========================================================================================================
+	//=============================================== KEYS ====================================================
+
+	/**
+	 * Key of a hero slot's stat at a value.
+	 */
+	static long statKey(int slot, Stat stat, int value)
+	{
+		return mix(mix(STAT_FEATURE | ((long) slot << 8) | stat.ordinal()) + value);
+	}
+
+	/**
+	 * Key of a status on a hero slot with a remaining duration. Statuses are told apart by what they do rather than by the
+	 * id they were applied under, so two orders of commands that leave the same statuses hash the same.
+	 */
+	static long statusKey(int slot, Status status, int duration)
+	{
+		long kind = mix(STATUS_FEATURE | slot) + status.getName().hashCode();
+		kind = mix(kind + status.getStatAffected().hashCode());
+		kind = mix(kind + status.getEffectStrength());
+		return mix(kind + duration);
+	}
+
+	/**
+	 * Key of a hero seated in the turn order at a seat being in a round.
+	 */
+	static long roundKey(int seat, long round)
+	{
+		return mix(mix(ROUND_FEATURE | seat) + round);
+	}
+
+	/**
+	 * Key of an item held in the inventory of a side, 0 for the human player and 1 for the AI.
+	 */
+	static long itemKey(int side, String key)
+	{
+		return mix(mix(ITEM_FEATURE | side) + key.hashCode());
+	}
+
+	/**
+	 * SplitMix64 finaliser.
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}